@@ -7,10 +7,24 @@ import orderbook.tools.OrderSet;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipFile;
 
 public class DecodeAndBookBenchmark {
 
@@ -39,6 +53,11 @@ public class DecodeAndBookBenchmark {
     public enum Book {
         FASTUTIL,
         DIRECT,
+        DIRECT_BITMAP,
+        DIRECT_OFFHEAP,
+        DIRECT_SHORT,
+        DIRECT_TICK,
+        SLIDING,
         ART, ARTXPOOL,
         NULL;
     }
@@ -52,6 +71,14 @@ public class DecodeAndBookBenchmark {
         GENERIC,
         DEDICATED;
     }
+    public enum Parse {
+        INDEX_DEDICATED,    // SplitterIndexed + DecoderDedicated over preloaded Strings
+        BYTES_DEDICATED,    // SplitterBytes + DecoderDedicated over the raw bytes
+        SWAR,               // SplitterSwar + DecoderSwar over the raw bytes - a negative result, see DecodersSwar
+        GENERATED,          // SplitterBytes + a DecoderSchema generated for the layout
+        TAGGED;             // SplitterBytesTagged + DecoderTagged, fields found by tag
+    }
+
     public enum AccessPattern {
         DENSE,
         LOOSE,
@@ -61,7 +88,7 @@ public class DecodeAndBookBenchmark {
 
     @State(Scope.Benchmark)
     public static class MyStateBook {
-        @Param({"FASTUTIL", "DIRECT", "ART", "NULL"})
+        @Param({"FASTUTIL", "DIRECT", "DIRECT_BITMAP", "DIRECT_OFFHEAP", "DIRECT_SHORT", "DIRECT_TICK", "SLIDING", "ART", "NULL"})
         public Book book;
         @Param({"DENSE", "LOOSE"})
         AccessPattern accessPattern;
@@ -76,6 +103,25 @@ public class DecodeAndBookBenchmark {
                 .depth(10_000)
                 .symbolId(1)
                 .build().initialiseSlabs();
+        OrderBook bookDirectBitmap = BookDirectBitmap.builder()
+                .depth(10_000)
+                .symbolId(1)
+                .build().initialiseSlabs();
+        OrderBook bookDirectOffHeap = BookDirectOffHeap.builder()
+                .depth(10_000)
+                .symbolId(1)
+                .build().initialiseSlabs();
+        OrderBook bookDirectShort = BookDirectShort.builder()
+                .depth(10_000)
+                .symbolId(1)
+                .build().initialiseSlabs();
+        OrderBook bookDirectTick = BookDirectTick.builder()
+                .depth(10_000)
+                .symbolId(1)
+                .build().initialiseSlabs();
+        OrderBook bookSliding = BookDirectSliding.builder()
+                .window(1024)
+                .build().initialiseSlabs();
 
         Splitter splitter = new SplitterIndexed(20);
         DecoderGeneric decoder = DecoderGeneric.builder().build();
@@ -142,6 +188,275 @@ public class DecodeAndBookBenchmark {
         Decoder decoderDedicated = DecoderDedicated.builder().build();
     }
 
+    /**
+     * Parses the whole capture, without a book, to compare the splitter/decoder pairs
+     */
+    @State(Scope.Benchmark)
+    public static class MyStateParse {
+        @Param({"INDEX_DEDICATED", "BYTES_DEDICATED", "SWAR", "GENERATED", "TAGGED"})
+        public Parse parse;
+        @Param({"SOLUSDT-10000"})
+        public String capture;
+
+        String[] messages;
+        ByteBuffer bytes;
+        Splitter splitter = new SplitterIndexed(20);
+        ByteSplitter byteSplitter;
+        DecoderDedicated decoder = DecoderDedicated.builder().build();
+        ByteDecoder byteDecoder;
+
+        @Setup
+        public void setup() throws IOException {
+            messages = readCapture("testing/" + capture + ".zip");
+            bytes = readCaptureBytes("testing/" + capture + ".zip");
+            byteSplitter = switch (parse) {
+                case SWAR -> new SplitterSwar(20);
+                case TAGGED -> new SplitterBytesTagged(20);
+                default -> new SplitterBytes(20);
+            };
+            byteDecoder = switch (parse) {
+                case SWAR -> new DecoderSwar();
+                case GENERATED -> DecoderSchema.compile(Schema.DEFAULT);
+                case TAGGED -> DecoderTagged.builder().build().init();
+                default -> decoder;
+            };
+            verify();
+        }
+
+        /**
+         * The pair under test must decode the capture as SplitterBytes + DecoderDedicated do - the SWAR pair
+         * has no unit test, living here
+         */
+        private void verify() {
+            final ByteSplitter reference = new SplitterBytes(20);
+            final long[] expected = new long[5], actual = new long[5];
+            for (int from = 0, ix = 0; ix < bytes.limit(); ix++) {
+                if (bytes.get(ix) != '\n') continue;
+                reference.split(bytes, from, ix, "|=");
+                decoder.decode(reference, (stamp, symbolId, side, price, qty) -> set(expected, stamp, symbolId, side, price, qty));
+                byteSplitter.split(bytes, from, ix, "|=");
+                byteDecoder.decode(byteSplitter, (stamp, symbolId, side, price, qty) -> set(actual, stamp, symbolId, side, price, qty));
+                if (!Arrays.equals(expected, actual))
+                    throw new IllegalStateException(parse + " decodes " + Arrays.toString(actual) + " not " + Arrays.toString(expected) + " at " + from);
+                from = ix + 1;
+            }
+        }
+
+        private static void set(final long[] out, final long stamp, final long symbolId, final Side side, final long price, final long qty) {
+            out[0] = stamp;
+            out[1] = symbolId;
+            out[2] = side.ordinal();
+            out[3] = price;
+            out[4] = qty;
+        }
+    }
+
+    /**
+     * Routing by symbolId across many symbols - the registry against the array map Example1 used
+     */
+    @State(Scope.Benchmark)
+    public static class MyStateMarket {
+        @Param({"16", "4096"})
+        public int symbols;
+
+        long[] symbolIds;
+        Market market;
+        Long2ObjectArrayMap<OrderBook> arrayMap = new Long2ObjectArrayMap<>();
+        SymbolDictionary dictionary;
+        ByteBuffer names;       // The symbols as they arrive in the feed, 7 bytes each
+        int next;
+
+        @Setup
+        public void setup() {
+            market = MarketRegistry.builder()
+                .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.FASTUTIL).build())
+                .build().init();
+            dictionary = SymbolDictionary.builder()
+                .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.FASTUTIL).build())
+                .build().init();
+            symbolIds = new long[symbols];
+            names = ByteBuffer.allocate(symbols * 7);
+            for (int ix = 0; ix < symbols; ix++) {
+                final String symbol = String.format("S%06d", ix);
+                symbolIds[ix] = Decoders.toLongChar8(symbol, 0, 7);
+                arrayMap.put(symbolIds[ix], market.bookOrRegister(symbolIds[ix]));
+                dictionary.register(Instrument.builder().symbol(symbol).bookType(Instrument.BookType.FASTUTIL).build());
+                names.put(symbol.getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+    }
+
+    @Benchmark
+    public OrderBook testMarketLookup(final MyStateMarket state) {
+        return state.market.book(state.symbolIds[state.next++ & (state.symbols - 1)]);
+    }
+
+    @Benchmark
+    public OrderBook testArrayMapLookup(final MyStateMarket state) {
+        return state.arrayMap.get(state.symbolIds[state.next++ & (state.symbols - 1)]);
+    }
+
+    /**
+     * From the symbol's bytes - packed then looked up, against interned
+     */
+    @Benchmark
+    public OrderBook testMarketLookupBytes(final MyStateMarket state) {
+        final int from = (state.next++ & (state.symbols - 1)) * 7;
+        return state.market.book(Decoders.toLongChar8(state.names, from, from + 7));
+    }
+
+    @Benchmark
+    public OrderBook testDictionaryLookupBytes(final MyStateMarket state) {
+        final int from = (state.next++ & (state.symbols - 1)) * 7;
+        return state.dictionary.book(state.names, from, from + 7);
+    }
+
+    /**
+     * A market of deep DIRECT books, with slabs on or off the heap - for the cost of a full collection
+     * with the books live
+     */
+    @State(Scope.Benchmark)
+    public static class MyStateFootprint {
+        @Param({"DIRECT", "DIRECT_OFFHEAP"})
+        public Instrument.BookType bookType;
+        @Param({"500"})
+        public int symbols;
+
+        static final int DEPTH = 1_000_00;
+        SlabArena arena;
+        Market market;
+
+        @Setup
+        public void setup() {
+            if (bookType == Instrument.BookType.DIRECT_OFFHEAP)
+                arena = new SlabArena((long)symbols * 2 * (DEPTH * 4 + 64));
+            market = MarketRegistry.builder()
+                .defaultInstrument(Instrument.builder().bookType(bookType).depth(DEPTH).build())
+                .arena(arena)
+                .capacity(symbols)
+                .build().init();
+            for (int ix = 1; ix <= symbols; ix++)
+                market.bookOrRegister(ix).add(Side.BID, 2_000 + ix, 100).add(Side.OFFER, 3_000 + ix, 100);
+            System.gc();
+            final Runtime runtime = Runtime.getRuntime();
+            System.out.printf("%n%s x %d: heap used %,d MB%n", bookType, symbols,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20);
+        }
+
+        @TearDown
+        public void tearDown() {
+            market = null;
+            if (arena != null)
+                arena.close();
+        }
+    }
+
+    @Benchmark
+    public Market testFullGcWithBooks(final MyStateFootprint state) {
+        System.gc();
+        return state.market;
+    }
+
+    /**
+     * A book populated once, for measuring the read side - getLevels, forEach and getMidPrice
+     */
+    @State(Scope.Benchmark)
+    public static class MyStateQuery {
+        @Param({"FASTUTIL", "DIRECT", "ART"})
+        public Book book;
+
+        OrderBook orderBook;
+        final int[] outPrices = new int[10], outQty = new int[10];
+        final SizeUpToLevel sizeUpToLevel = new SizeUpToLevel();
+        final BookUtils.WorkingSizeUpToLevel wSizeUpToLevel = new BookUtils.WorkingSizeUpToLevel();
+        final BookUtils.WorkingLevelSatisfyingSize wLevelSatisfyingSize = new BookUtils.WorkingLevelSatisfyingSize();
+        final int[] outOfferPrices = new int[10], outOfferQty = new int[10];
+        BookSnapshot snapshot;
+
+        @Setup
+        public void setup() {
+            final MyStateBook books = new MyStateBook();
+            books.book = book;
+            orderBook = selectBook(books);
+            final OrderSet orders = books.accessLoose;
+            for (int ix = 0; ix < orders.n; ix++)
+                orderBook.add(orders.prices[ix] > 5000 ? Side.BID : Side.OFFER, orders.prices[ix], orders.quantities[ix]);
+            snapshot = new BookSnapshot(orderBook, 10);
+        }
+    }
+
+    /**
+     * A reusable consumer for forEach, so the benchmark itself does not allocate a capturing lambda
+     */
+    static final class SizeUpToLevel implements OrderBook.PriceLevel {
+        int ct, size;
+
+        @Override
+        public boolean more(final int entryPx, final int entrySize) {
+            size += entrySize;
+            return ++ct < 10;
+        }
+    }
+
+    /**
+     * Replays one of the captured Binance streams in testing/ - the whole capture is one operation
+     */
+    @State(Scope.Benchmark)
+    public static class MyStateReplay {
+        @Param({"FASTUTIL", "DIRECT", "SLIDING", "ART"})
+        public Book book;
+        @Param({"SOLUSDT-10000"})
+        public String capture;
+
+        String[] messages;
+        ByteBuffer bytes;       // The same capture as raw, newline separated, ASCII in direct memory
+        ByteBuffer binary;      // and as BinaryFormat records
+        OrderBook orderBook;
+        Splitter splitter = new SplitterIndexed(20);
+        ByteSplitter byteSplitter = new SplitterBytes(20);
+        DecoderDedicated decoder = DecoderDedicated.builder().build();
+        ParserFused parser = ParserFused.builder().build();
+
+        @Setup
+        public void setup() throws IOException {
+            messages = readCapture("testing/" + capture + ".zip");
+            bytes = readCaptureBytes("testing/" + capture + ".zip");
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (EncoderBinary encoder = new EncoderBinary(Channels.newChannel(out), 1 << 16)) {
+                Replay.builder().build().replay(bytes, encoder);
+            }
+            binary = ByteBuffer.allocateDirect(out.size()).order(ByteOrder.LITTLE_ENDIAN).put(out.toByteArray())
+                .position(BinaryFormat.HEADER);
+            orderBook = switch (book) {
+                case FASTUTIL -> BookFastUtil.builder().build();
+                case DIRECT -> BookDirect.builder().symbolId(1).depth(1_000_00).build().initialiseSlabs();
+                case SLIDING -> BookDirectSliding.builder().window(1024).build().initialiseSlabs();
+                case ART -> BookArt.builder().build().init();
+                default -> throw new IllegalStateException("Invalid book:" + book);
+            };
+        }
+    }
+
+    static String[] readCapture(final String fileName) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(fileName)) {
+            final var entry = zip.entries().nextElement();
+            try (var reader = new BufferedReader(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = reader.readLine()) != null)
+                    lines.add(line);
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    static ByteBuffer readCaptureBytes(final String fileName) throws IOException {
+        try (ZipFile zip = new ZipFile(fileName)) {
+            final byte[] raw = zip.getInputStream(zip.entries().nextElement()).readAllBytes();
+            return ByteBuffer.allocateDirect(raw.length).order(ByteOrder.nativeOrder()).put(raw).flip();
+        }
+    }
+
     private static OrderBook selectBook(MyStateBook state) {
         switch (state.book) {
             case NULL:
@@ -152,6 +467,16 @@ public class DecodeAndBookBenchmark {
                 return state.bookARTNoPool;
             case DIRECT:
                 return state.bookDirect;
+            case DIRECT_BITMAP:
+                return state.bookDirectBitmap;
+            case DIRECT_OFFHEAP:
+                return state.bookDirectOffHeap;
+            case DIRECT_SHORT:
+                return state.bookDirectShort;
+            case DIRECT_TICK:
+                return state.bookDirectTick;
+            case SLIDING:
+                return state.bookSliding;
             case FASTUTIL:
                 return state.bookLong2Long;
             default:
@@ -215,13 +540,76 @@ public class DecodeAndBookBenchmark {
 //                Arrays.toString(offerPrices), Arrays.toString(offerQty));
     }
 
+    /**
+     * The updates of the DENSE/LOOSE order sets (less the accesses) as side/price/quantity arrays, applied in
+     * batches - by addBatch or by looping add
+     */
+    @State(Scope.Benchmark)
+    public static class MyStateBatch {
+        @Param({"FASTUTIL", "DIRECT", "ART"})
+        public Book book;
+        @Param({"DENSE", "LOOSE"})
+        AccessPattern accessPattern;
+        @Param({"1", "10", "50"})
+        int batch;
+
+        OrderBook orderBook;
+        Side[] sides;
+        int[] prices, quantities;
+
+        @Setup
+        public void setup() {
+            final MyStateBook books = new MyStateBook();
+            books.book = book;
+            books.accessPattern = accessPattern;
+            orderBook = selectBook(books);
+            final OrderSet orders = selectOrderSet(books);
+            int n = 0;
+            for (int ix = 0; ix < orders.n; ix++)
+                if (orders.op[ix] != OrderSet.ACCESS) n++;
+            sides = new Side[n];
+            prices = new int[n];
+            quantities = new int[n];
+            n = 0;
+            for (int ix = 0; ix < orders.n; ix++) {
+                if (orders.op[ix] == OrderSet.ACCESS) continue;
+                sides[n] = orders.prices[ix] > 5000 ? Side.BID : Side.OFFER;
+                prices[n] = orders.prices[ix];
+                quantities[n++] = orders.quantities[ix];
+            }
+        }
+    }
+
+    @Benchmark
+    public int testBatchLoop(final MyStateBatch state) {
+        final OrderBook book = state.orderBook;
+        final int n = state.prices.length;
+        for (int offset = 0; offset < n; offset += state.batch) {
+            final int end = Math.min(offset + state.batch, n);
+            for (int ix = offset; ix < end; ix++)
+                book.add(state.sides[ix], state.prices[ix], state.quantities[ix]);
+        }
+        return book.getMidPrice();
+    }
+
+    @Benchmark
+    public int testBatchAdd(final MyStateBatch state) {
+        final OrderBook book = state.orderBook;
+        final int n = state.prices.length;
+        for (int offset = 0; offset < n; offset += state.batch)
+            book.addBatch(state.sides, state.prices, state.quantities, offset, Math.min(state.batch, n - offset));
+        return book.getMidPrice();
+    }
+
     private static void insertOrders(OrderSet orders, OrderBook book, BookUtils.WorkingSizeUpToLevel working) {
         for (int ix = 0; ix < orders.n; ix++) {
             switch (orders.op[ix]) {
                 case OrderSet.ACCESS:
+                    // Before the context visitor (capturing lambda per call):
                     // 1. 14.2MB /2688 1x working
                     // 2. 75.2MB/ 4416 2x working
                     // 3. 115MB/  5376 New working
+                    // With a reused working the query no longer allocates
                     //BookUtils.getSizeUpToLevel(book, Side.BID, 5);
                     BookUtils.getSizeUpToLevel(book, Side.OFFER, 5, working);
                     break;
@@ -232,6 +620,189 @@ public class DecodeAndBookBenchmark {
         }
     }
 
+    @Benchmark
+    public void testReplayCapture(final MyStateReplay state, final Blackhole blackhole) {
+        final OrderBook book = state.orderBook.clear();
+        final Splitter splitter = state.splitter;
+        final Decoder decoder = state.decoder;
+        final Decoder.Add add = (stamp, symbolId, side, price, qty) -> book.add(side, price, qty);
+        for (final String msg : state.messages) {
+            splitter.split(msg, "|=");
+            decoder.decode(splitter, add);
+        }
+        blackhole.consume(book.getMidPrice());
+    }
+
+    /**
+     * Splits and decodes each line in place in the raw capture bytes - no String per message
+     */
+    @Benchmark
+    public void testReplayCaptureBytes(final MyStateReplay state, final Blackhole blackhole) {
+        final OrderBook book = state.orderBook.clear();
+        final ByteBuffer bytes = state.bytes;
+        final ByteSplitter splitter = state.byteSplitter;
+        final ByteDecoder decoder = state.decoder;
+        final Decoder.Add add = (stamp, symbolId, side, price, qty) -> book.add(side, price, qty);
+        final int limit = bytes.limit();
+        for (int from = 0, ix = 0; ix < limit; ix++) {
+            if (bytes.get(ix) == '\n') {
+                splitter.split(bytes, from, ix, "|=");
+                decoder.decode(splitter, add);
+                from = ix + 1;
+            }
+        }
+        blackhole.consume(book.getMidPrice());
+    }
+
+    @Benchmark
+    public void testParseCapture(final MyStateParse state, final Blackhole blackhole) {
+        final Decoder.Add add = (stamp, symbolId, side, price, qty) -> blackhole.consume(stamp + symbolId + price + qty);
+        if (state.parse == Parse.INDEX_DEDICATED) {
+            final Splitter splitter = state.splitter;
+            for (final String msg : state.messages) {
+                splitter.split(msg, "|=");
+                state.decoder.decode(splitter, add);
+            }
+            return;
+        }
+        final ByteBuffer bytes = state.bytes;
+        final ByteSplitter splitter = state.byteSplitter;
+        final ByteDecoder decoder = state.byteDecoder;
+        final int limit = bytes.limit();
+        for (int from = 0, ix = 0; ix < limit; ix++) {
+            if (bytes.get(ix) == '\n') {
+                splitter.split(bytes, from, ix, "|=");
+                decoder.decode(splitter, add);
+                from = ix + 1;
+            }
+        }
+    }
+
+    /**
+     * Levels conflated between flushes - 1 flushes every update, as if there were no conflation
+     */
+    @State(Scope.Benchmark)
+    public static class MyStateConflate {
+        @Param({"1", "64", "1024"})
+        public int maxLevels;
+
+        Conflater conflater;
+        OrderBook target;
+
+        @Setup
+        public void setup() {
+            conflater = Conflater.builder()
+                .downstream((stamp, symbolId, side, price, qty) -> target.add(side, price, qty))
+                .maxLevels(maxLevels)
+                .build().init();
+        }
+
+        @TearDown
+        public void tearDown() {
+            System.out.printf("%n%,d updates, %,d writes%n", conflater.getUpdates(), conflater.getWrites());
+        }
+    }
+
+    /**
+     * As testReplayCaptureBytes, with updates to the same level conflated before they reach the book
+     */
+    @Benchmark
+    public void testReplayCaptureConflated(final MyStateReplay state, final MyStateConflate conflate, final Blackhole blackhole) {
+        final OrderBook book = conflate.target = state.orderBook.clear();
+        final ByteBuffer bytes = state.bytes;
+        final ByteSplitter splitter = state.byteSplitter;
+        final ByteDecoder decoder = state.decoder;
+        final Conflater conflater = conflate.conflater;
+        final int limit = bytes.limit();
+        for (int from = 0, ix = 0; ix < limit; ix++) {
+            if (bytes.get(ix) == '\n') {
+                splitter.split(bytes, from, ix, "|=");
+                decoder.decode(splitter, conflater);
+                from = ix + 1;
+            }
+        }
+        conflater.flush();
+        blackhole.consume(book.getMidPrice());
+    }
+
+    /**
+     * As testReplayCaptureBytes, but each line is split, decoded and applied in one pass by the fused parser
+     */
+    @Benchmark
+    public void testReplayCaptureFused(final MyStateReplay state, final Blackhole blackhole) {
+        final OrderBook book = state.orderBook.clear();
+        state.parser.apply(state.bytes, 0, state.bytes.limit(), book);
+        blackhole.consume(book.getMidPrice());
+    }
+
+    /**
+     * The capture as fixed width binary records - nothing to split or parse
+     */
+    @Benchmark
+    public void testReplayBinary(final MyStateReplay state, final Blackhole blackhole) {
+        final OrderBook book = state.orderBook.clear();
+        BinaryFormat.decodeAll(state.binary, (stamp, symbolId, side, price, qty) -> book.add(side, price, qty));
+        blackhole.consume(book.getMidPrice());
+    }
+
+    /**
+     * The same raw capture bytes, but decoded to a String per line first as a line reader would
+     */
+    @Benchmark
+    public void testReplayCaptureBytesAsString(final MyStateReplay state, final Blackhole blackhole) {
+        final OrderBook book = state.orderBook.clear();
+        final ByteBuffer bytes = state.bytes;
+        final Splitter splitter = state.splitter;
+        final Decoder decoder = state.decoder;
+        final Decoder.Add add = (stamp, symbolId, side, price, qty) -> book.add(side, price, qty);
+        final byte[] line = new byte[256];
+        final int limit = bytes.limit();
+        for (int from = 0, ix = 0; ix < limit; ix++) {
+            if (bytes.get(ix) == '\n') {
+                bytes.get(from, line, 0, ix - from);
+                splitter.split(new String(line, 0, ix - from, StandardCharsets.US_ASCII), "|=");
+                decoder.decode(splitter, add);
+                from = ix + 1;
+            }
+        }
+        blackhole.consume(book.getMidPrice());
+    }
+
+    @Benchmark
+    public void testGetLevels(final MyStateQuery state, final Blackhole blackhole) {
+        state.orderBook.getLevels(Side.BID, 10, state.outPrices, state.outQty);
+        blackhole.consume(state.outQty[9]);
+        state.orderBook.getLevels(Side.OFFER, 10, state.outPrices, state.outQty);
+        blackhole.consume(state.outQty[9]);
+    }
+
+    @Benchmark
+    public int testForEach(final MyStateQuery state) {
+        final SizeUpToLevel sizeUpToLevel = state.sizeUpToLevel;
+        sizeUpToLevel.ct = sizeUpToLevel.size = 0;
+        state.orderBook.forEach(Side.BID, sizeUpToLevel);
+        sizeUpToLevel.ct = 0;
+        state.orderBook.forEach(Side.OFFER, sizeUpToLevel);
+        return sizeUpToLevel.size;
+    }
+
+    @Benchmark
+    public int testBookUtils(final MyStateQuery state) {
+        return BookUtils.getSizeUpToLevel(state.orderBook, Side.BID, 10, state.wSizeUpToLevel)
+            + BookUtils.getLevelSatisfyingSize(state.orderBook, Side.OFFER, 10_000, state.wLevelSatisfyingSize);
+    }
+
+    @Benchmark
+    public int testMidPrice(final MyStateQuery state) {
+        return state.orderBook.getMidPrice();
+    }
+
+    @Benchmark
+    public long testSnapshotPublishAndRead(final MyStateQuery state) {
+        state.snapshot.publish();
+        return state.snapshot.read(state.outPrices, state.outQty, state.outOfferPrices, state.outOfferQty);
+    }
+
     //@Benchmark
     public void testSplit6(final MyStateSplit state, final Blackhole blackhole) {
         final Splitter splitter = selectSplitter(state);
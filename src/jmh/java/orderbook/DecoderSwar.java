@@ -0,0 +1,27 @@
+package orderbook;
+
+import orderbook.impl.DecoderDedicated;
+import orderbook.impl.Decoders;
+
+import static orderbook.impl.DecoderDedicated.ENTRY_PX;
+import static orderbook.impl.DecoderDedicated.ENTRY_SIZE;
+import static orderbook.impl.DecoderDedicated.SIDE;
+import static orderbook.impl.DecoderDedicated.STAMP;
+import static orderbook.impl.DecoderDedicated.SYMBOL;
+
+/**
+ * {@link DecoderDedicated} over bytes, using the {@link DecodersSwar} converters
+ * Pair with {@link SplitterSwar} - a negative result, with {@link DecodersSwar}
+ */
+class DecoderSwar implements ByteDecoder {
+
+    @Override
+    public void decode(final ByteSplitter split, final Decoder.Add add) {
+        final Side side = Decoders.toSide(split.toChar(SIDE, Decoders::toChar));
+        final int entrySize = (int)split.toLong(ENTRY_SIZE, DecodersSwar::toLongChar2);
+        final int entryPx = (int)split.toLong(ENTRY_PX, DecodersSwar::toLongChar2);
+        final long stamp = split.toLong(STAMP, DecodersSwar::toLongStamp10);
+        final long symbolId = split.toLong(SYMBOL, DecodersSwar::toLongChar8);
+        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
+    }
+}
@@ -0,0 +1,100 @@
+package orderbook;
+
+import orderbook.impl.Decoders;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * SWAR (SIMD within a register) versions of the byte {@link Decoders}, working on 8 bytes at a time
+ *
+ * Digits are folded with multiply-shift - pairs, then quads, then the 8 digits in a word - rather
+ * than one multiply per digit. Each falls back to the scalar decoder when the field does not fit
+ * the shape it expects, so they can be used on any input the scalar decoders accept
+ *
+ * Kept with the benchmarks as a negative result - {@link SplitterSwar} + {@link DecoderSwar} lost to
+ * SplitterBytes + DecoderDedicated on testParseCapture (SOLUSDT-10000: 431 against 665 ops/s), and each
+ * converter on its own was no faster than the scalar one. The fields are a few bytes each, so the word at a
+ * time work does not pay for the bounds checked loads and the masking around them
+ */
+class DecodersSwar {
+    static final long ONES = 0x0101010101010101L;
+    static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    static final long ZEROS = 0x3030303030303030L;    // '0' in every byte
+
+    private static final VarHandle LONG_LE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * @return the 8 bytes at ix with the byte at ix lowest, whatever the order of the buffer - the order is
+     *  fixed in the view, so nothing is checked per load
+     */
+    static long getLongLE(final ByteBuffer b, final int ix) {
+        return (long)LONG_LE.get(b, ix);
+    }
+
+    /**
+     * @return a word with the high bit set in every byte of word equal to that byte of pattern,
+     *  exactly - there are no false positives from borrows
+     */
+    static long match(final long word, final long pattern) {
+        final long x = word ^ pattern;
+        return ~(((x & LOW7) + LOW7) | x | LOW7);
+    }
+
+    static long broadcast(final char ch) {
+        return ONES * (ch & 0xFF);
+    }
+
+    /**
+     * Folds 8 ASCII digits, first digit in the lowest byte, into their value
+     */
+    static long fold8(long word) {
+        word -= ZEROS;
+        word = (word * 10 + (word >>> 8)) & 0x00FF00FF00FF00FFL;
+        word = (word * 100 + (word >>> 16)) & 0x0000FFFF0000FFFFL;
+        return (word * 10000 + (word >>> 32)) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * A fp.2 number with up to 5 integer digits, as one 8 byte load ending at the last digit.
+     * The dot is squeezed out, bytes before the number are replaced with '0' and the word folded
+     * @return a long that represent the x 100 scale of the fp.2 number
+     */
+    static long toLongChar2(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        final int intDigits = endIndex - 3 - beginIndex;
+        if (intDigits < 1 || intDigits > 5 || endIndex < 8)
+            return Decoders.toLongChar2(b, beginIndex, endIndex);
+        long word = getLongLE(b, endIndex - 8);
+        if ((word >>> 40 & 0xFF) != '.')
+            return Decoders.toLongChar2(b, beginIndex, endIndex);
+        final long keep = -1L << ((5 - intDigits) << 3);
+        word = (word & keep) | (ZEROS & ~keep);                     // Blank out what precedes the number
+        word = (word & 0xFFFF000000000000L) | ((word << 8) & 0x0000FFFFFFFFFF00L) | '0'; // Squeeze out the dot
+        return fold8(word);
+    }
+
+    /**
+     * A 10 digit stamp as one 8 digit fold and 2 scalar digits
+     * Anything other than 10 digits falls back to {@link Decoders#toLongDigits}
+     * @return a long that represents the stamp
+     */
+    static long toLongStamp10(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        if (endIndex - beginIndex != 10)
+            return Decoders.toLongDigits(b, beginIndex, endIndex);
+        return fold8(getLongLE(b, beginIndex)) * 100
+            + (b.get(beginIndex + 8) - '0') * 10
+            + (b.get(beginIndex + 9) - '0');
+    }
+
+    /**
+     * Up to 8 bytes as one load, shifted down - the same value as {@link Decoders#toLongChar8}
+     */
+    static long toLongChar8(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        final int len = endIndex - beginIndex;
+        if (len < 1 || len > 8 || beginIndex + 8 > b.limit())
+            return Decoders.toLongChar8(b, beginIndex, endIndex);
+        return Long.reverseBytes(getLongLE(b, beginIndex)) >>> ((8 - len) << 3);
+    }
+}
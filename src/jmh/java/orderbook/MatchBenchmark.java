@@ -0,0 +1,66 @@
+package orderbook;
+
+import orderbook.impl.BookArt;
+import orderbook.impl.BookDirect;
+import orderbook.impl.BookFastUtil;
+import orderbook.impl.Matcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Sweeps of 1 to 50 levels by a marketable buy, against a book refilled after each sweep so every
+ * invocation sees the same 100 offers
+ */
+public class MatchBenchmark {
+    static final int LEVELS = 100, BASE = 10_000, QUANTITY = 100;
+
+    public enum Book {
+        DIRECT,
+        ART,
+        FASTUTIL
+    }
+
+    @State(Scope.Benchmark)
+    public static class MyStateMatch {
+        @Param({"DIRECT", "ART", "FASTUTIL"})
+        public Book book;
+        @Param({"1", "5", "20", "50"})
+        public int depth;
+
+        OrderBook orderBook;
+        Matcher matcher = Matcher.builder().build().init();
+
+        @Setup
+        public void setup() {
+            switch (book) {
+                case DIRECT:
+                    orderBook = BookDirect.builder().depth(BASE + LEVELS * 2).symbolId(1).build().initialiseSlabs();
+                    break;
+                case ART:
+                    orderBook = BookArt.builder().build().init();
+                    break;
+                case FASTUTIL:
+                    orderBook = BookFastUtil.builder().build();
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid book:" + book);
+            }
+            for (int level = 0; level < LEVELS; level++) {
+                orderBook.add(Side.OFFER, BASE + level, QUANTITY);
+                orderBook.add(Side.BID, BASE - 1 - level, QUANTITY);
+            }
+        }
+    }
+
+    @Benchmark
+    public long testSweep(final MyStateMatch state) {
+        final OrderBook book = state.orderBook;
+        final long filled = state.matcher.match(book, Side.BID, Integer.MAX_VALUE, state.depth * QUANTITY);
+        for (int level = 0; level < state.depth; level++)     // Refill the levels taken
+            book.add(Side.OFFER, BASE + level, QUANTITY);
+        return filled;
+    }
+}
@@ -0,0 +1,100 @@
+package orderbook;
+
+import orderbook.impl.SplitterBytes;
+
+import java.nio.ByteBuffer;
+
+import static orderbook.DecodersSwar.broadcast;
+import static orderbook.DecodersSwar.getLongLE;
+import static orderbook.DecodersSwar.match;
+
+/**
+ * A {@link ByteSplitter} that finds every delimiter in a word of 8 bytes at once, rather than
+ * comparing byte by byte. The tail is the last 8 bytes of the message, masked to those not yet
+ * scanned - only a message shorter than 8 bytes is scanned scalar. Capacity is checked once per word
+ *
+ * Unlike {@link SplitterBytes} it does not alternate between the delimiters - either delimiter ends a
+ * field - which is the same split as long as no value contains a delimiter, as in
+ *      t=1638848595|i=BTC-USD|p=32.99|q=100.00|s=b
+ *
+ * A negative result, with {@link DecodersSwar}
+ */
+class SplitterSwar implements ByteSplitter {
+
+    int[] split;
+    int splitIx;
+    ByteBuffer msg;
+
+    SplitterSwar(final int maxElements) {
+        split = new int[maxElements];
+    }
+
+    @Override
+    public int fieldCt() {
+        return splitIx - 1;
+    }
+
+    @Override
+    public int begin(final int ix) {
+        return split[ix];
+    }
+
+    @Override
+    public int end(final int ix) {
+        return split[ix + 1] - 1;
+    }
+
+    @Override
+    public long toLong(final int ix, final ToLongFunction toLong) {
+        return toLong.apply(msg, split[ix], split[ix + 1] - 1);
+    }
+
+    @Override
+    public char toChar(final int ix, final ToCharFunction toChar) {
+        return toChar.apply(msg, split[ix], split[ix + 1] - 1);
+    }
+
+    @Override
+    public Splitter.Result split(final ByteBuffer msg, final int from, final int to, final String delim) {
+        this.msg = msg;
+        final char delim0 = delim.charAt(0), delim1 = delim.charAt(1);
+        final long pattern0 = broadcast(delim0), pattern1 = broadcast(delim1);
+        final int last = split.length - 1;
+        splitIx = 0;
+        split[splitIx++] = from;
+        int ix = from;
+        for (; ix + 8 <= to; ix += 8) {
+            final long word = getLongLE(msg, ix);
+            long found = match(word, pattern0) | match(word, pattern1);
+            if (found == 0) continue;
+            if (splitIx + Long.bitCount(found) > last) return Splitter.Result.FAILED;
+            do {
+                split[splitIx++] = ix + (Long.numberOfTrailingZeros(found) >>> 3) + 1;
+                found &= found - 1;
+            } while (found != 0);
+        }
+        if (ix < to) {
+            if (to - from >= 8) {
+                // The tail as the last 8 bytes, ignoring those already scanned
+                final int at = to - 8;
+                final long word = getLongLE(msg, at);
+                long found = (match(word, pattern0) | match(word, pattern1)) & (-1L << ((ix - at) << 3));
+                if (splitIx + Long.bitCount(found) > last) return Splitter.Result.FAILED;
+                while (found != 0) {
+                    split[splitIx++] = at + (Long.numberOfTrailingZeros(found) >>> 3) + 1;
+                    found &= found - 1;
+                }
+            } else {
+                for (; ix < to; ix++) {
+                    final int ch = msg.get(ix);
+                    if (ch == delim0 || ch == delim1) {
+                        if (splitIx == last) return Splitter.Result.FAILED;
+                        split[splitIx++] = ix + 1;
+                    }
+                }
+            }
+        }
+        if (split[splitIx - 1] != to) split[splitIx++] = to + 1;
+        return Splitter.Result.OK;
+    }
+}
@@ -0,0 +1,8 @@
+package orderbook;
+
+/**
+ * A {@link Decoder} over a {@link ByteSplitter}, so fields are converted straight from the raw bytes
+ */
+public interface ByteDecoder {
+    void decode(ByteSplitter split, Decoder.Add add);
+}
@@ -0,0 +1,63 @@
+package orderbook;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Splitter} that works directly on raw ASCII bytes held in a {@link ByteBuffer} - heap, direct
+ * or mapped. Field offsets are recorded against the buffer, so there is no charset decoding and no
+ * String per message. Offsets are absolute and the buffer position and limit are not changed
+ */
+public interface ByteSplitter {
+    @FunctionalInterface
+    public interface ToLongFunction {
+        long apply(ByteBuffer b, int beginIndex, int endIndex);
+    }
+
+    @FunctionalInterface
+    public interface ToCharFunction {
+        char apply(ByteBuffer b, int beginIndex, int endIndex);
+    }
+
+    int fieldCt();
+
+    /**
+     * @param ix which field
+     * @return the absolute offset of the first byte of the field
+     */
+    int begin(int ix);
+
+    /**
+     * @param ix which field
+     * @return the absolute offset one past the last byte of the field
+     */
+    int end(int ix);
+
+    /**
+     * Extract the long described by the tag ix
+     *
+     * @param ix - index to extract field from
+     * @param toLong functional interface to call with the bytes to parse
+     * @return long value after parsing
+     */
+    long toLong(int ix, ToLongFunction toLong);
+
+    /**
+     * Extract the char described by the tag ix
+     *
+     * @param ix - index to extract field from
+     * @param toChar functional interface to call with the bytes to parse
+     * @return char value after parsing
+     */
+    char toChar(int ix, ToCharFunction toChar);
+
+    /**
+     * Perform the split operation on the bytes [from, to) of msg, storing the offsets of parsed fields
+     * in the splitter, for extraction. The splitter will be reused to avoid allocation
+     * @param msg holding the message
+     * @param from absolute offset of the first byte of the message
+     * @param to absolute offset one past the last byte of the message
+     * @param delim list of delimiters use to identify field boundaries
+     * @return a result if it has been split successfully
+     */
+    Splitter.Result split(ByteBuffer msg, int from, int to, String delim);
+}
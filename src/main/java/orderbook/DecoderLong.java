@@ -0,0 +1,18 @@
+package orderbook;
+
+/**
+ * A decoder to long prices and quantities, for an {@link OrderBookLong}
+ */
+public interface DecoderLong {
+    /**
+     * A consumer for the fields decoded
+     */
+    @FunctionalInterface
+    public interface AddLong {
+        void apply(long stamp, long symbolId, Side side, long entryPx, long entrySize);
+    }
+
+    void decode(Splitter split, AddLong add);
+
+    void decode(ByteSplitter split, AddLong add);
+}
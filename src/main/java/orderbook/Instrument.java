@@ -0,0 +1,43 @@
+package orderbook;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The meta data a {@link Market} holds for a symbol, including which book implementation to use for it
+ *
+ * Prices and quantities reach a book as integers - priceScale (quantityScale) is the number of decimal places
+ * that have been scaled out of the feed price (quantity), and tickSize the smallest price increment in those
+ * integer units. A DIRECT_TICK book holds depth ticks from basePrice in its slab
+ */
+@Builder(toBuilder = true) @Getter @ToString
+public class Instrument {
+    public enum BookType {
+        ART,
+        FASTUTIL,
+        DIRECT,
+        DIRECT_BITMAP,
+        SLIDING,
+        DIRECT_OFFHEAP,
+        DIRECT_SHORT,
+        DIRECT_TICK
+    }
+
+    private long symbolId;
+    private String symbol;
+    @Builder.Default
+    private int tickSize = 1;
+    @Builder.Default
+    private int priceScale = 2;
+    @Builder.Default
+    private int quantityScale = 2;
+    @Builder.Default
+    private BookType bookType = BookType.ART;
+    @Builder.Default
+    private int depth = 1_000_00;       // Slab depth, for the DIRECT books
+    @Builder.Default
+    private int window = 1024;          // Window, for SLIDING
+    @Builder.Default
+    private int basePrice = 0;          // Price of the first slot, for DIRECT_TICK
+}
@@ -1,7 +1,40 @@
 package orderbook;
 
+import java.util.function.BiConsumer;
+
 /**
  * A factory for registering and accessing order books, as well as accessing meta data for the market in question
+ *
+ * A book is created once per symbol, as configured by its {@link Instrument}. Looking up a registered
+ * symbol is expected to be constant time and allocation free, so it can be done for every message
  */
 public interface Market {
+    /**
+     * Creates and registers the book described by instrument
+     * @return the new book
+     * @throws IllegalArgumentException if the symbolId is 0 or already registered
+     */
+    OrderBook register(Instrument instrument);
+
+    /**
+     * @return the book for symbolId, null if not registered
+     */
+    OrderBook book(long symbolId);
+
+    /**
+     * @return the book for symbolId, registering one from the market's default instrument if needed
+     */
+    OrderBook bookOrRegister(long symbolId);
+
+    /**
+     * @return the instrument for symbolId, null if not registered
+     */
+    Instrument instrument(long symbolId);
+
+    int size();
+
+    /**
+     * Visits every registered symbol, in no particular order
+     */
+    void forEach(BiConsumer<Instrument, OrderBook> consumer);
 }
@@ -13,6 +13,16 @@ public interface OrderBook {
         boolean more(int entryPx, int entrySize);
     }
 
+    /**
+     * As {@link PriceLevel} but also passed a caller owned context, so a visitor can keep its working
+     * state there. A static, non capturing visitor is then a singleton and iteration does not allocate
+     * (BookFastUtil excepted - its tree map allocates an iterator per forEach)
+     */
+    @FunctionalInterface
+    interface PriceLevelWithContext<C> {
+        boolean more(C context, int entryPx, int entrySize);
+    }
+
     /**
      * Anything that emits a price/qty will emit this to mean no price/quantity
      */
@@ -33,6 +43,21 @@ public interface OrderBook {
      */
     OrderBook add(Side side, int price, int quantity);
 
+    /**
+     * Applies len updates from offset, as add would in turn - a book may defer the work that only the
+     * last update to a side needs, such as finding its new top
+     *
+     * @param sides      per update
+     * @param prices     per update
+     * @param quantities per update - 0 removes
+     * @return the order book
+     */
+    default OrderBook addBatch(final Side[] sides, final int[] prices, final int[] quantities, final int offset, final int len) {
+        for (int ix = offset; ix < offset + len; ix++)
+            add(sides[ix], prices[ix], quantities[ix]);
+        return this;
+    }
+
     /**
      * Derives the mid-price from top of book bid/ask - applying FLOOR rounding
      *
@@ -48,6 +73,14 @@ public interface OrderBook {
      */
     int depth(Side side);
 
+    /**
+     * Returns the total quantity resting on the specified side - summed over every level
+     *
+     * @param side to access
+     * @return the total quantity - 0 if none
+     */
+    long totalSize(Side side);
+
     /**
      * Iterates through the specified side of the book, stopping
      * when it runs out of levels or the consumer sates that he does not require any more
@@ -59,6 +92,15 @@ public interface OrderBook {
      */
     void forEach(Side side, PriceLevel priceLevel);
 
+    /**
+     * Iterates as {@link #forEach(Side, PriceLevel)}, passing the supplied context to each call
+     *
+     * @param side       to access
+     * @param context    caller owned state handed to the visitor
+     * @param priceLevel to call with each level
+     */
+    <C> void forEach(Side side, C context, PriceLevelWithContext<C> priceLevel);
+
     /**
      * Extracts the top levels of an orderbook,copying them into the supplied bid/offer arrays
      * It performs no explicit bounds checking, leaving that to defaultjava behaviour
@@ -0,0 +1,79 @@
+package orderbook;
+
+/**
+ * An order by order (L3) book - each order rests in a FIFO queue at its price, so the position of an
+ * order in its queue can be read back. The {@link OrderBook} views (levels, depth, mid) are the
+ * aggregate over the orders at each price
+ *
+ * The L2 {@link #add(Side, int, int)} still sets the aggregate at a price, so an L3 book can be fed, matched
+ * against or restored as any other - an increase rests a synthetic order ({@link #SYNTHETIC_ORDER}, which
+ * cannot be modified or cancelled by id) at the back of the queue, a decrease is taken from the front of the
+ * queue as a fill would be, and 0 removes every order at the price
+ */
+public interface OrderBookL3 extends OrderBook {
+    /**
+     * The orderId of the orders an L2 add rests - not a valid orderId for addOrder
+     */
+    long SYNTHETIC_ORDER = Long.MIN_VALUE;
+
+    /**
+     * Visits the orders at a price in queue order, with a caller owned context - return false to stop
+     */
+    @FunctionalInterface
+    interface OrderLevel<C> {
+        boolean more(C context, long orderId, int quantity);
+    }
+
+    /**
+     * Adds an order to the back of the queue at its price
+     *
+     * @throws IllegalArgumentException if orderId is already live or SYNTHETIC_ORDER, or quantity is not positive
+     */
+    OrderBookL3 addOrder(long orderId, Side side, int price, int quantity);
+
+    /**
+     * Changes the quantity of an order - a reduction keeps its place in the queue, an increase moves it
+     * to the back, and 0 cancels it
+     *
+     * @return false if the order is not live
+     */
+    boolean modifyOrder(long orderId, int quantity);
+
+    /**
+     * Moves an order to a new price and quantity, at the back of the queue there - 0 cancels it
+     *
+     * @return false if the order is not live
+     * @throws IllegalArgumentException if quantity is negative, leaving the order as it was
+     */
+    boolean replaceOrder(long orderId, int price, int quantity);
+
+    /**
+     * @return false if the order is not live
+     */
+    boolean cancelOrder(long orderId);
+
+    /**
+     * @return the quantity of an order, NO_VALUE if it is not live
+     */
+    int orderQuantity(long orderId);
+
+    /**
+     * @return the number of orders ahead of this one at its price, -1 if it is not live
+     */
+    int queuePosition(long orderId);
+
+    /**
+     * @return the quantity resting ahead of this order at its price, -1 if it is not live
+     */
+    long queueAhead(long orderId);
+
+    /**
+     * @return the number of orders resting at a price, 0 if none
+     */
+    int orders(Side side, int price);
+
+    /**
+     * Walks the orders at a price, from the front of the queue
+     */
+    <C> void forEachOrder(Side side, int price, C context, OrderLevel<C> order);
+}
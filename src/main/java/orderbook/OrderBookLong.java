@@ -0,0 +1,64 @@
+package orderbook;
+
+/**
+ * An {@link OrderBook} with long prices and quantities - for venues quoting more precision than an int
+ * holds once scaled (e.g. 8 decimal places). Prices and quantities are integers, scaled per symbol
+ * by the {@link Instrument} priceScale and quantityScale, as decoded by a {@link DecoderLong}
+ *
+ * The operations are as {@link OrderBook} - getMidPriceLong is named apart from getMidPrice, so one book (BookArt,
+ * BookFastUtil) can be both
+ */
+public interface OrderBookLong {
+
+    /**
+     * As {@link OrderBook.PriceLevel}
+     */
+    @FunctionalInterface
+    interface PriceLevel {
+        boolean more(long entryPx, long entrySize);
+    }
+
+    /**
+     * As {@link OrderBook.PriceLevelWithContext}
+     */
+    @FunctionalInterface
+    interface PriceLevelWithContext<C> {
+        boolean more(C context, long entryPx, long entrySize);
+    }
+
+    long NO_PRICE = -1;  // Invalid or no Price
+    long NO_VALUE = -1;  // Invalid or no Quantity
+
+    /**
+     * Add, Update or Remove a price level from one side of an order book - a quantity of 0 removes
+     */
+    OrderBookLong add(Side side, long price, long quantity);
+
+    /**
+     * @return the mid of the top bid and offer, FLOOR rounded - NO_PRICE if either side is empty
+     */
+    long getMidPriceLong();
+
+    int depth(Side side);
+
+    /**
+     * @return the total quantity on side - which overflows only past Long.MAX_VALUE
+     */
+    long totalSize(Side side);
+
+    void forEach(Side side, PriceLevel priceLevel);
+
+    <C> void forEach(Side side, C context, PriceLevelWithContext<C> priceLevel);
+
+    /**
+     * Copies the top levels of side, best first - missing levels are NO_PRICE with quantity 0
+     */
+    void getLevels(Side side, int level, long[] outPrices, long[] outQty);
+
+    /**
+     * @return quantity at price, NO_VALUE if none
+     */
+    long get(Side side, long price);
+
+    OrderBookLong clear();
+}
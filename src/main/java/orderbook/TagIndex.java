@@ -0,0 +1,16 @@
+package orderbook;
+
+/**
+ * Implemented by splitters that index fields by tag as they split, so a field can be found by its tag
+ * whichever order the tags arrive in, or whether they arrive at all
+ *
+ * Only single character ASCII tags are indexed. Should a tag repeat in a message, the last one wins
+ */
+public interface TagIndex {
+    int ABSENT = -1;
+
+    /**
+     * @return the index of the value field carried by tag in the last message split, ABSENT if there is none
+     */
+    int field(char tag);
+}
@@ -1,17 +1,16 @@
 package orderbook.examples;
 
+import orderbook.Decoder;
+import orderbook.Instrument;
 import orderbook.Side;
 import orderbook.impl.*;
 import orderbook.OrderBook;
-import orderbook.Splitter;
-import it.unimi.dsi.fastutil.longs.Long2ObjectArrayMap;
-import org.apache.commons.io.FileUtils;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.List;
 
 public class Example1 {
     public static final String TEST_MSGS[] = {
@@ -50,62 +49,63 @@ public class Example1 {
     };
 
     public static void main(final String[] args) throws IOException {
-        List<String> list = Arrays.asList(TEST_MSGS);
+        String file = null;
         int levels = 3;
         for (int argIx = 0; argIx < args.length; argIx++)
             if ("-file".equals(args[argIx])) {
-                list = FileUtils.readLines(new File(args[++argIx]), Charset.defaultCharset());
+                file = args[++argIx];
             } else
                 if ("-levels".equals(args[argIx])) {
                     levels = Integer.parseInt(args[++argIx]);
                 }
-        final Splitter split = new SplitterIndexed(20);
-        final var decoder = DecoderDedicated.builder().build();
-        final var bookMap = new Long2ObjectArrayMap<OrderBook>();
-        final var symbolMap = new Long2ObjectArrayMap();
-        for (final String msg : list)
-            try {
-                final var result = split.split(msg, "|=");
-                decoder.decode(split, (stamp, symbolId, side, price, qty) -> {
-                    final var book = bookMap.computeIfAbsent(symbolId, x -> {
-                        final String symbol = split.sequence(3).toString();
-                        symbolMap.put(symbolId, symbol);
-                        final OrderBook newBook = BookArt.builder().maxIterationLevel(99).build().init();
-//                      final OrderBook newBook = BookFastUtil.builder().build();
-//                        final OrderBook newBook = BookDirect.builder().symbolId(symbolId).depth(1_000_00).build().initialiseSlabs();
-                        System.out.printf("symbol %s -> %s\n", symbol, newBook);
-                        return newBook;
-                    });
-                    switch (side) {
-                        case BID:
-                        case OFFER:
-                            book.add(side, price, qty);
-                            break;
-                        case CLEAR:
-                            book.clear();
-                            break;
-                    }
-                });
-            } catch (Exception e) {
-                System.out.printf("%s\n", msg);
-                e.printStackTrace();
-                throw e;
+        // Books are created on first sight of a symbol, as configured by the default instrument. Symbols are
+        // interned to dense ids as they are decoded, so each message routes to its book by array index
+        final SymbolDictionary dictionary = SymbolDictionary.builder()
+            .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.ART).build())
+            .build().init();
+//          .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.FASTUTIL).build())
+//          .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.DIRECT).depth(1_000_00).build())
+        // The capture is mapped (or streamed from a zip) and decoded in place - never loaded onto the heap
+        final Replay replay = Replay.builder()
+            .decoder(DecoderInterned.builder().dictionary(dictionary).build().init())
+            .build();
+        final Decoder.Add add = (stamp, symbolId, side, price, qty) -> {
+            final OrderBook book = dictionary.book((int)symbolId);
+            switch (side) {
+                case BID:
+                case OFFER:
+                    book.add(side, price, qty);
+                    break;
+                case CLEAR:
+                    book.clear();
+                    break;
             }
-        final var working = new BookUtils.WorkingSizeUpToLevel();
-        for (final var book: bookMap.values()) {
-            //System.out.printf("%s: %s\n", symbolMap.get(book.getSymbolId()),  book);
-            final int[] bidPrices = new int[levels], bidQty = new int[levels];
-            final int[] offerPrices = new int[levels], offerQty = new int[levels];
-            book.getLevels(Side.BID, levels, bidPrices, bidQty);
-            book.getLevels(Side.OFFER, levels, offerPrices, offerQty);
+        };
+        final long start = System.nanoTime();
+        if (file != null)
+            replay.replay(Path.of(file), add);
+        else
+            replay.replay(ByteBuffer.wrap(String.join("\n", TEST_MSGS).getBytes(StandardCharsets.US_ASCII)), add);
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("%,d messages (%,d rejected) in %,d ms - %,.0f msgs/sec\n",
+            replay.getMessages(), replay.getRejected(), elapsed / 1_000_000,
+            replay.getMessages() * 1e9 / Math.max(elapsed, 1));
+
+        final int depth = levels;
+        dictionary.forEach((instrument, book) -> {
+            System.out.printf("symbol %s -> %s\n", instrument.getSymbol(), book);
+            final int[] bidPrices = new int[depth], bidQty = new int[depth];
+            final int[] offerPrices = new int[depth], offerQty = new int[depth];
+            book.getLevels(Side.BID, depth, bidPrices, bidQty);
+            book.getLevels(Side.OFFER, depth, offerPrices, offerQty);
             System.out.printf(" bids   %s: %s\n offers %s: %s\n",
                 Arrays.toString(bidPrices), Arrays.toString(bidQty),
                 Arrays.toString(offerPrices), Arrays.toString(offerQty));
-            for (int level = 1; level <= levels; level++) {
+            for (int level = 1; level <= depth; level++) {
                 System.out.printf("  L%d ", level);
                 System.out.printf("  %d %s ", BookUtils.getSizeUpToLevel(book, Side.BID, level), Side.BID);
                 System.out.printf("  %d %s\n", BookUtils.getSizeUpToLevel(book, Side.OFFER, level), Side.OFFER);
             }
-        }
+        });
     }
 }
@@ -0,0 +1,82 @@
+package orderbook.examples;
+
+import orderbook.Decoder;
+import orderbook.Instrument;
+import orderbook.impl.BookUtils;
+import orderbook.impl.Replay;
+import orderbook.impl.ShardedEngine;
+import orderbook.Side;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays several captures at once through a {@link ShardedEngine} - one decoding thread per capture, and
+ * books applied on -workers threads by symbol. A symbol should appear in only one capture
+ */
+public class Example2 {
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final List<Path> files = new ArrayList<>();
+        int workers = Runtime.getRuntime().availableProcessors();
+        int levels = 3;
+        for (int argIx = 0; argIx < args.length; argIx++)
+            if ("-file".equals(args[argIx])) {
+                files.add(Path.of(args[++argIx]));
+            } else
+                if ("-workers".equals(args[argIx])) {
+                    workers = Integer.parseInt(args[++argIx]);
+                } else
+                    if ("-levels".equals(args[argIx])) {
+                        levels = Integer.parseInt(args[++argIx]);
+                    }
+        if (files.isEmpty())
+            throw new IllegalArgumentException("Usage: Example2 -file capture [-file capture ...] [-workers n] [-levels n]");
+
+        try (ShardedEngine engine = ShardedEngine.builder()
+            .workers(workers).producers(files.size())
+            .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.ART).build())
+            .build().start()) {
+            final Replay[] replays = new Replay[files.size()];
+            final Thread[] threads = new Thread[files.size()];
+            final long start = System.nanoTime();
+            for (int fileIx = 0; fileIx < files.size(); fileIx++) {
+                final Path file = files.get(fileIx);
+                final Replay replay = replays[fileIx] = Replay.builder().build();
+                final Decoder.Add add = engine.producer(fileIx);
+                threads[fileIx] = new Thread(() -> {
+                    try {
+                        replay.replay(file, add);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, "decode-" + fileIx);
+                threads[fileIx].start();
+            }
+            for (final Thread thread : threads)
+                thread.join();
+            engine.awaitIdle();
+            final long elapsed = System.nanoTime() - start;
+
+            long messages = 0, rejected = 0;
+            for (final Replay replay : replays) {
+                messages += replay.getMessages();
+                rejected += replay.getRejected();
+            }
+            System.out.printf("%,d messages (%,d rejected) from %d files on %d workers in %,d ms - %,.0f msgs/sec\n",
+                messages, rejected, files.size(), workers, elapsed / 1_000_000, messages * 1e9 / Math.max(elapsed, 1));
+
+            final int depth = levels;
+            engine.forEach((instrument, book) -> {
+                System.out.printf("symbol %s -> mid %d", instrument.getSymbol(), book.getMidPrice());
+                for (int level = 1; level <= depth; level++)
+                    System.out.printf("  L%d %d/%d", level,
+                        BookUtils.getSizeUpToLevel(book, Side.BID, level),
+                        BookUtils.getSizeUpToLevel(book, Side.OFFER, level));
+                System.out.println();
+            });
+        }
+    }
+}
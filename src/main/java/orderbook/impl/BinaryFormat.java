@@ -0,0 +1,87 @@
+package orderbook.impl;
+
+import orderbook.Decoder;
+import orderbook.Side;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A compact, fixed width, little endian record for a book update - what {@link Decoder.Add} receives
+ *
+ * <pre>
+ *   offset  0  long  stamp
+ *   offset  8  long  symbolId   (as packed by Decoders.toLongChar8)
+ *   offset 16  byte  side       ('b', 'a', 'c' as in the text format)
+ *   offset 17  int   price
+ *   offset 21  int   quantity
+ * </pre>
+ * 25 bytes against around 45 for the text form, and nothing to parse. A file starts with an 8 byte
+ * header - a magic number and the record length - so a reader can reject a file it does not understand
+ */
+public class BinaryFormat {
+    public static final int MAGIC = 0x314B424F;     // "OBK1" little endian
+    public static final int HEADER = 8;
+    public static final int STAMP = 0, SYMBOL = 8, SIDE = 16, PRICE = 17, QUANTITY = 21;
+    public static final int RECORD = 25;
+
+    public static void writeHeader(final ByteBuffer out, final int offset) {
+        checkOrder(out);
+        out.putInt(offset, MAGIC);
+        out.putInt(offset + 4, RECORD);
+    }
+
+    public static void checkHeader(final ByteBuffer in, final int offset) {
+        checkOrder(in);
+        if (in.limit() - offset < HEADER || in.getInt(offset) != MAGIC || in.getInt(offset + 4) != RECORD)
+            throw new IllegalArgumentException("Not a binary capture");
+    }
+
+    static void checkOrder(final ByteBuffer buffer) {
+        if (buffer.order() != ByteOrder.LITTLE_ENDIAN)
+            throw new IllegalArgumentException("Buffer must be LITTLE_ENDIAN");
+    }
+
+    /**
+     * Writes one record at offset - the buffer must be LITTLE_ENDIAN
+     */
+    public static void encode(final ByteBuffer out, final int offset,
+            final long stamp, final long symbolId, final Side side, final int price, final int quantity) {
+        out.putLong(offset + STAMP, stamp);
+        out.putLong(offset + SYMBOL, symbolId);
+        out.put(offset + SIDE, toByte(side));
+        out.putInt(offset + PRICE, price);
+        out.putInt(offset + QUANTITY, quantity);
+    }
+
+    /**
+     * Reads one record at offset - the buffer must be LITTLE_ENDIAN
+     */
+    public static void decode(final ByteBuffer in, final int offset, final Decoder.Add add) {
+        add.apply(in.getLong(offset + STAMP), in.getLong(offset + SYMBOL),
+            Decoders.toSide((char)in.get(offset + SIDE)),
+            in.getInt(offset + PRICE), in.getInt(offset + QUANTITY));
+    }
+
+    /**
+     * Reads every whole record between position and limit - the buffer itself is not changed
+     * @return the number of records decoded
+     */
+    public static int decodeAll(final ByteBuffer in, final Decoder.Add add) {
+        checkOrder(in);
+        final int from = in.position();
+        final int n = (in.limit() - from) / RECORD;
+        for (int ix = 0, offset = from; ix < n; ix++, offset += RECORD)
+            decode(in, offset, add);
+        return n;
+    }
+
+    public static byte toByte(final Side side) {
+        switch (side) {
+            case BID:   return 'b';
+            case OFFER: return 'a';
+            case CLEAR: return 'c';
+            default:    return '?';
+        }
+    }
+}
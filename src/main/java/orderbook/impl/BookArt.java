@@ -3,12 +3,9 @@ package orderbook.impl;
 import exchange.core2.collections.art.LongAdaptiveRadixTreeMap;
 import exchange.core2.collections.objpool.ObjectsPool;
 import orderbook.OrderBook;
+import orderbook.OrderBookLong;
 import orderbook.Side;
-import orderbook.util.MutableBidOffer;
-import orderbook.util.MutableInt;
 import lombok.Builder;
-import lombok.Getter;
-import lombok.val;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -26,31 +23,41 @@ import java.util.HashMap;
  * (ideal for price) and can support multiple entries at a price (using stamp prioritized buckets) It also
  * implements a form of object pooling to reduce the pressure due to garbage generation.
  *
- * The assumption of an object for the value means it will allocate, and the object pooling should help but
- * have yet to make any substantive improvement using the object pooling
- *
- * This implementation also does not expose a flexible iteration mechanism  - either as an iterator or as a
- * predicate based traveral, so for now we limit the traversal and track in the wrapper call
- *
- * Rather that wrapper mitigation, a better approach would be to change the ART to support predicate behaviour
- * for the iteration
+ * The value held at each price is a mutable {@link Level} carrying its own price and quantity. Levels are
+ * pooled in the book and updated in place, so an update does not box its quantity, and a side can be walked
+ * from any level to the next with getLowerValue/getHigherValue. That walk does not allocate and stops
+ * as soon as the consumer has enough - the ART's own forEach needs a capturing consumer and always visits
+ * a fixed number of entries
  *
+ * Levels hold long prices and quantities, so the same book is also an {@link OrderBookLong} - the int methods
+ * widen on the way in and narrow on the way out, so read a book through the interface it was filled through
  */
 @Builder
-public class BookArt implements OrderBook {
+public class BookArt implements OrderBook, OrderBookLong {
 
     /**
-     * The ART does not support inverse ordering so all BID keys should be inverted
+     * The value held at each price - recycled through a free list when the price is removed
      */
-    @Getter
-    private LongAdaptiveRadixTreeMap<Integer> bids;
-    @Getter
-    private LongAdaptiveRadixTreeMap<Integer> offers;
-    @Builder.Default
-    private int maxIterationLevel = 100;
+    static final class Level {
+        long price, quantity;
+        Level next;     // Free list
+    }
+
+    private LongAdaptiveRadixTreeMap<Level> bids;
+    private LongAdaptiveRadixTreeMap<Level> offers;
     @Builder.Default
     private boolean usePooling = true;
 
+    /*
+        Level counts, total quantity and the top of each side are maintained on each add, so depth,
+        totalSize and getMidPrice do not need to walk the tree
+     */
+    private Level topBid, topOffer;
+    private int bidLevels, offerLevels;
+    private long bidSize, offerSize;
+
+    private Level free;
+
     public BookArt init() {
         if (usePooling) {
             final HashMap<Integer, Integer> poolConfig = new HashMap<>();
@@ -73,114 +80,343 @@ public class BookArt implements OrderBook {
     }
 
     @Override
-    public void forEach(final Side side, final PriceLevel priceLevel) {
-        forEach(side, priceLevel, maxIterationLevel);
+    public void forEach(final Side side, final OrderBook.PriceLevel priceLevel) {
+        forEach(side, priceLevel, Integer.MAX_VALUE);
     }
-    public void forEach(final Side side, final PriceLevel priceLevel, final int maxLevel) {
-        // ART Does not support a Predicate to cease iteration or an interator interface - just forEach bounded
-        // by a fixed depth
 
-        // An exception could be thrown as a sanity check, otherwise changes need to be made to the ART
-        // to use a predicate rather than a LongConsumer
+    /**
+     * Walks the side from the top, one level to the next, until the consumer has enough or
+     * maxLevel levels have been emitted
+     */
+    public void forEach(final Side side, final OrderBook.PriceLevel priceLevel, int maxLevel) {
+        switch (side) {
+            case BID:
+                for (Level level = topBid; level != null && maxLevel-- > 0; level = bids.getLowerValue(level.price))
+                    if (!priceLevel.more((int)level.price, (int)level.quantity)) return;
+                break;
+            case OFFER:
+                for (Level level = topOffer; level != null && maxLevel-- > 0; level = offers.getHigherValue(level.price))
+                    if (!priceLevel.more((int)level.price, (int)level.quantity)) return;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
 
-        // For now we use an allocated completion boolean as a gate + a maxIterationLevel
-        // This does define an operation constraint
-        final boolean[] more = new boolean[]  {true};    // Ouch!
+    @Override
+    public <C> void forEach(final Side side, final C context, final OrderBook.PriceLevelWithContext<C> priceLevel) {
         switch (side) {
             case BID:
-                bids.forEach((price, value) -> {
-                    if (more[0])
-                        more[0] = priceLevel.more((int)invert(price), value);
-                }, maxLevel);
+                for (Level level = topBid; level != null; level = bids.getLowerValue(level.price))
+                    if (!priceLevel.more(context, (int)level.price, (int)level.quantity)) return;
                 break;
             case OFFER:
-                offers.forEach((price, value) -> {
-                    if (more[0])
-                        more[0] = priceLevel.more((int)price, value);
-                }, maxLevel);
+                for (Level level = topOffer; level != null; level = offers.getHigherValue(level.price))
+                    if (!priceLevel.more(context, (int)level.price, (int)level.quantity)) return;
                 break;
             default:
                 throw new IllegalArgumentException("Side not supported: " + side);
         }
     }
 
-    /*
-        Raw keys are inverted in the BIDS ART
-     */
-    private static long invert(final long key) {
-        return -key;
+    @Override
+    public void forEach(final Side side, final OrderBookLong.PriceLevel priceLevel) {
+        switch (side) {
+            case BID:
+                for (Level level = topBid; level != null; level = bids.getLowerValue(level.price))
+                    if (!priceLevel.more(level.price, level.quantity)) return;
+                break;
+            case OFFER:
+                for (Level level = topOffer; level != null; level = offers.getHigherValue(level.price))
+                    if (!priceLevel.more(level.price, level.quantity)) return;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public <C> void forEach(final Side side, final C context, final OrderBookLong.PriceLevelWithContext<C> priceLevel) {
+        switch (side) {
+            case BID:
+                for (Level level = topBid; level != null; level = bids.getLowerValue(level.price))
+                    if (!priceLevel.more(context, level.price, level.quantity)) return;
+                break;
+            case OFFER:
+                for (Level level = topOffer; level != null; level = offers.getHigherValue(level.price))
+                    if (!priceLevel.more(context, level.price, level.quantity)) return;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
     }
 
     @Override
     public int get(final Side side, final int price) {
+        final long quantity = get(side, (long)price);
+        return quantity != OrderBookLong.NO_VALUE ? (int)quantity : OrderBook.NO_VALUE;
+    }
+
+    @Override
+    public long get(final Side side, final long price) {
+        final Level level;
         switch (side) {
             case BID:
-                final val retBid = bids.get(invert(price)); // Invert the bid
-                return retBid != null ? retBid : NO_VALUE;
+                level = bids.get(price);
+                break;
             case OFFER:
-                final val retOffer = offers.get(price);
-                return retOffer != null ? retOffer : NO_VALUE;
+                level = offers.get(price);
+                break;
             default:
                 throw new IllegalArgumentException("Side not supported: " + side);
         }
+        return level != null ? level.quantity : OrderBookLong.NO_VALUE;
     }
 
     @Override
-    public OrderBook add(final Side side, int price, final int quantity) {
-        final long adjustedPrice = side.equals(Side.BID) ?
-            invert(price) :
-            price;
-        final var map = side.equals(Side.BID) ?
-            bids :
-            offers;
+    public OrderBook add(final Side side, final int price, final int quantity) {
+        add(side, (long)price, (long)quantity);
+        return this;
+    }
 
-        if (quantity == 0)
-            map.remove(adjustedPrice);
-        else
-            map.put(adjustedPrice, quantity);
+    @Override
+    public OrderBookLong add(final Side side, final long price, final long quantity) {
+        switch (side) {
+            case BID:
+                final Level bid = bids.get(price);
+                if (quantity == 0) {
+                    if (bid == null) break;
+                    bids.remove(price);
+                    bidLevels--;
+                    bidSize -= bid.quantity;
+                    if (bid == topBid)    // removed head
+                        topBid = bidLevels == 0 ? null : bids.getLowerValue(price);
+                    release(bid);
+                } else if (bid == null) {
+                    final Level level = take(price, quantity);
+                    bids.put(price, level);
+                    bidLevels++;
+                    bidSize += quantity;
+                    if (topBid == null || price > topBid.price) topBid = level;
+                } else {
+                    bidSize += quantity - bid.quantity;
+                    bid.quantity = quantity;
+                }
+                break;
+            case OFFER:
+                final Level offer = offers.get(price);
+                if (quantity == 0) {
+                    if (offer == null) break;
+                    offers.remove(price);
+                    offerLevels--;
+                    offerSize -= offer.quantity;
+                    if (offer == topOffer)  // removed head
+                        topOffer = offerLevels == 0 ? null : offers.getHigherValue(price);
+                    release(offer);
+                } else if (offer == null) {
+                    final Level level = take(price, quantity);
+                    offers.put(price, level);
+                    offerLevels++;
+                    offerSize += quantity;
+                    if (topOffer == null || price < topOffer.price) topOffer = level;
+                } else {
+                    offerSize += quantity - offer.quantity;
+                    offer.quantity = quantity;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return this;
+    }
+
+    /**
+     * As add, but a removed top is found once, after the batch, rather than by a tree walk per removal
+     */
+    @Override
+    public OrderBook addBatch(final Side[] sides, final int[] prices, final int[] quantities, final int offset, final int len) {
+        boolean lostBid = false, lostOffer = false;     // Top removed - every add is then below (above) the new top
+        for (int ix = offset; ix < offset + len; ix++) {
+            final int price = prices[ix], quantity = quantities[ix];
+            switch (sides[ix]) {
+                case BID:
+                    final Level bid = bids.get(price);
+                    if (quantity == 0) {
+                        if (bid == null) break;
+                        bids.remove(price);
+                        bidLevels--;
+                        bidSize -= bid.quantity;
+                        if (bid == topBid) {
+                            topBid = null;
+                            lostBid = true;
+                        }
+                        release(bid);
+                    } else if (bid == null) {
+                        final Level level = take(price, quantity);
+                        bids.put(price, level);
+                        bidLevels++;
+                        bidSize += quantity;
+                        if (!lostBid && (topBid == null || price > topBid.price)) topBid = level;
+                    } else {
+                        bidSize += quantity - bid.quantity;
+                        bid.quantity = quantity;
+                    }
+                    break;
+                case OFFER:
+                    final Level offer = offers.get(price);
+                    if (quantity == 0) {
+                        if (offer == null) break;
+                        offers.remove(price);
+                        offerLevels--;
+                        offerSize -= offer.quantity;
+                        if (offer == topOffer) {
+                            topOffer = null;
+                            lostOffer = true;
+                        }
+                        release(offer);
+                    } else if (offer == null) {
+                        final Level level = take(price, quantity);
+                        offers.put(price, level);
+                        offerLevels++;
+                        offerSize += quantity;
+                        if (!lostOffer && (topOffer == null || price < topOffer.price)) topOffer = level;
+                    } else {
+                        offerSize += quantity - offer.quantity;
+                        offer.quantity = quantity;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Side not supported: " + sides[ix]);
+            }
+        }
+        if (lostBid)
+            topBid = bidLevels == 0 ? null : bids.getLowerValue(Long.MAX_VALUE);
+        if (lostOffer)
+            topOffer = offerLevels == 0 ? null : offers.getHigherValue(Long.MIN_VALUE);
         return this;
     }
 
+    private Level take(final long price, final long quantity) {
+        Level level = free;
+        if (level == null)
+            level = new Level();
+        else
+            free = level.next;
+        level.next = null;
+        level.price = price;
+        level.quantity = quantity;
+        return level;
+    }
+
+    private void release(final Level level) {
+        level.next = free;
+        free = level;
+    }
+
     @Override
     public int getMidPrice() {
-        if (bids.size(Integer.MAX_VALUE) == 0 || offers.size(Integer.MAX_VALUE) == 0)
-            return NO_PRICE;
+        if (topBid == null || topOffer == null)
+            return OrderBook.NO_PRICE;
 
-        final val bidOffer = new MutableBidOffer(); // Ouch
-        bids.forEach((price, value) -> {
-            price = invert(price);
-            bidOffer.bid = price;
-        }, 1);
-        offers.forEach((price, value) -> {
-            bidOffer.offer = price;
-        }, 1);
-        return (int)(bidOffer.bid + bidOffer.offer) / 2;
+        return (int)((topBid.price + topOffer.price) / 2);
+    }
+
+    @Override
+    public long getMidPriceLong() {
+        if (topBid == null || topOffer == null)
+            return OrderBookLong.NO_PRICE;
+
+        return (topBid.price + topOffer.price) >>> 1;
     }
 
     @Override
     public int depth(final Side side) {
-        return Side.BID.equals(side) ?
-                bids.size(Integer.MAX_VALUE) :
-                offers.size(Integer.MAX_VALUE);
+        switch (side) {
+            case BID:
+                return bidLevels;
+            case OFFER:
+                return offerLevels;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
     }
 
     @Override
-    public void getLevels(final Side side, final int level, final int[] outPrices, final int[] outQty) {
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
 
-        final MutableInt ct = new MutableInt(); // Ouch
-        forEach(side, (entryPx, entrySize) -> {
-            outPrices[ct.value] = (int)entryPx;
-            outQty[ct.value++] = entrySize;
-            return true;
-        }, level);
-        Arrays.fill(outPrices, ct.value, outPrices.length, NO_PRICE);
-        Arrays.fill(outQty, ct.value, outQty.length, 0);
+    @Override
+    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) {
+        int outIx = 0;
+        switch (side) {
+            case BID:
+                for (Level bid = topBid; bid != null && level-- > 0; bid = bids.getLowerValue(bid.price)) {
+                    outPrices[outIx] = (int)bid.price;
+                    outQty[outIx++] = (int)bid.quantity;
+                }
+                break;
+            case OFFER:
+                for (Level offer = topOffer; offer != null && level-- > 0; offer = offers.getHigherValue(offer.price)) {
+                    outPrices[outIx] = (int)offer.price;
+                    outQty[outIx++] = (int)offer.quantity;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, OrderBook.NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
     }
 
     @Override
-    public OrderBook clear() {
+    public void getLevels(final Side side, int level, final long[] outPrices, final long[] outQty) {
+        int outIx = 0;
+        switch (side) {
+            case BID:
+                for (Level bid = topBid; bid != null && level-- > 0; bid = bids.getLowerValue(bid.price)) {
+                    outPrices[outIx] = bid.price;
+                    outQty[outIx++] = bid.quantity;
+                }
+                break;
+            case OFFER:
+                for (Level offer = topOffer; offer != null && level-- > 0; offer = offers.getHigherValue(offer.price)) {
+                    outPrices[outIx] = offer.price;
+                    outQty[outIx++] = offer.quantity;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, OrderBookLong.NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
+    }
+
+    @Override
+    public BookArt clear() {
+        // Recycle the levels before dropping the tree
+        for (Level bid = topBid; bid != null; ) {
+            final Level lower = bids.getLowerValue(bid.price);
+            release(bid);
+            bid = lower;
+        }
+        for (Level offer = topOffer; offer != null; ) {
+            final Level higher = offers.getHigherValue(offer.price);
+            release(offer);
+            offer = higher;
+        }
         bids.clear();
         offers.clear();
+        topBid = topOffer = null;
+        bidLevels = offerLevels = 0;
+        bidSize = offerSize = 0;
         return this;
     }
 }
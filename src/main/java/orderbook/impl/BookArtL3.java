@@ -0,0 +1,483 @@
+package orderbook.impl;
+
+import exchange.core2.collections.art.LongAdaptiveRadixTreeMap;
+import exchange.core2.collections.objpool.ObjectsPool;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.Builder;
+import orderbook.OrderBook;
+import orderbook.OrderBookL3;
+import orderbook.Side;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An order by order book on the Adaptive Radix Tree, as {@link BookArt}
+ *
+ * The value at each price is a {@link Level} heading a doubly linked FIFO queue of its orders, and carrying
+ * the aggregate quantity and order count, so the L2 views read exactly as BookArt's. Orders are found by
+ * orderId through one primitive keyed map, and both orders and levels are recycled through free lists -
+ * once the pools are warm an add, modify or cancel does not allocate
+ *
+ * An order keeps its place when its quantity is reduced and goes to the back of the queue on an increase
+ * or a new price, as most venues do. Queue position is a walk from the front of the queue. An L2 add is
+ * applied through synthetic orders, as described in {@link OrderBookL3}
+ */
+@Builder
+public class BookArtL3 implements OrderBookL3 {
+
+    /**
+     * An order resting in a level's queue - recycled through a free list (next) once cancelled
+     */
+    static final class Order {
+        long orderId;
+        int quantity;
+        Level level;
+        Order prev, next;
+    }
+
+    /**
+     * The value held at each price - recycled through a free list (next) when the price is removed
+     */
+    static final class Level {
+        Side side;
+        int price, quantity, orders;
+        Order head, tail;
+        Level next;     // Free list
+    }
+
+    private LongAdaptiveRadixTreeMap<Level> bids;
+    private LongAdaptiveRadixTreeMap<Level> offers;
+    private Long2ObjectOpenHashMap<Order> live;
+    @Builder.Default
+    private boolean usePooling = true;
+    @Builder.Default
+    private int expectedOrders = 1024;  // Orders preallocated, and the initial size of the orderId map
+
+    private Level topBid, topOffer;
+    private int bidLevels, offerLevels;
+    private long bidSize, offerSize;
+
+    private Level freeLevel;
+    private Order freeOrder;
+
+    public BookArtL3 init() {
+        if (usePooling) {
+            final HashMap<Integer, Integer> poolConfig = new HashMap<>();
+            poolConfig.put(ObjectsPool.ART_NODE_4, 1024 * 32);
+            poolConfig.put(ObjectsPool.ART_NODE_16, 1024 * 16);
+            poolConfig.put(ObjectsPool.ART_NODE_48, 1024 * 8);
+            poolConfig.put(ObjectsPool.ART_NODE_256, 1024 * 4);
+            final ObjectsPool objectPool = new ObjectsPool(poolConfig);
+
+            bids = new LongAdaptiveRadixTreeMap<>(objectPool);
+            offers = new LongAdaptiveRadixTreeMap<>(objectPool);
+        } else {
+            bids = new LongAdaptiveRadixTreeMap<>();
+            offers = new LongAdaptiveRadixTreeMap<>();
+        }
+        live = new Long2ObjectOpenHashMap<>(expectedOrders);
+        for (int ix = 0; ix < expectedOrders; ix++)
+            releaseOrder(new Order());
+        return this;
+    }
+
+    @Override
+    public OrderBookL3 addOrder(final long orderId, final Side side, final int price, final int quantity) {
+        if (quantity <= 0)
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        if (orderId == SYNTHETIC_ORDER)
+            throw new IllegalArgumentException("orderId is reserved: " + orderId);
+        if (live.containsKey(orderId))
+            throw new IllegalArgumentException("Order already live: " + orderId);
+        final Level level = levelOrAdd(side, price);
+        final Order order = takeOrder();
+        order.orderId = orderId;
+        order.quantity = quantity;
+        order.level = level;
+        append(level, order);
+        level.quantity += quantity;
+        level.orders++;
+        addSize(side, quantity);
+        live.put(orderId, order);
+        return this;
+    }
+
+    @Override
+    public boolean modifyOrder(final long orderId, final int quantity) {
+        if (quantity == 0)
+            return cancelOrder(orderId);
+        if (quantity < 0)
+            throw new IllegalArgumentException("quantity must not be negative: " + quantity);
+        final Order order = live.get(orderId);
+        if (order == null)
+            return false;
+        final Level level = order.level;
+        if (quantity > order.quantity && order != level.tail) {     // Loses its place
+            unlink(level, order);
+            append(level, order);
+        }
+        level.quantity += quantity - order.quantity;
+        addSize(level.side, quantity - order.quantity);
+        order.quantity = quantity;
+        return true;
+    }
+
+    @Override
+    public boolean replaceOrder(final long orderId, final int price, final int quantity) {
+        if (quantity < 0)       // Before the cancel, so a bad replace leaves the order as it was
+            throw new IllegalArgumentException("quantity must not be negative: " + quantity);
+        final Order order = live.get(orderId);
+        if (order == null)
+            return false;
+        final Side side = order.level.side;
+        cancelOrder(orderId);
+        if (quantity != 0)
+            addOrder(orderId, side, price, quantity);
+        return true;
+    }
+
+    @Override
+    public boolean cancelOrder(final long orderId) {
+        final Order order = live.remove(orderId);
+        if (order == null)
+            return false;
+        remove(order);
+        return true;
+    }
+
+    /**
+     * Takes an order out of its queue, and its level out of the tree once empty
+     */
+    private void remove(final Order order) {
+        final Level level = order.level;
+        unlink(level, order);
+        level.quantity -= order.quantity;
+        addSize(level.side, -order.quantity);
+        if (--level.orders == 0)
+            removeLevel(level);
+        releaseOrder(order);
+    }
+
+    @Override
+    public int orderQuantity(final long orderId) {
+        final Order order = live.get(orderId);
+        return order == null ? NO_VALUE : order.quantity;
+    }
+
+    @Override
+    public int queuePosition(final long orderId) {
+        final Order order = live.get(orderId);
+        if (order == null)
+            return -1;
+        int ahead = 0;
+        for (Order at = order.level.head; at != order; at = at.next)
+            ahead++;
+        return ahead;
+    }
+
+    @Override
+    public long queueAhead(final long orderId) {
+        final Order order = live.get(orderId);
+        if (order == null)
+            return -1;
+        long ahead = 0;
+        for (Order at = order.level.head; at != order; at = at.next)
+            ahead += at.quantity;
+        return ahead;
+    }
+
+    @Override
+    public int orders(final Side side, final int price) {
+        final Level level = tree(side).get(price);
+        return level == null ? 0 : level.orders;
+    }
+
+    @Override
+    public <C> void forEachOrder(final Side side, final int price, final C context, final OrderLevel<C> visitor) {
+        final Level level = tree(side).get(price);
+        if (level == null)
+            return;
+        for (Order order = level.head; order != null; order = order.next)
+            if (!visitor.more(context, order.orderId, order.quantity)) return;
+    }
+
+    /**
+     * Sets the aggregate at a price - an increase grows the synthetic order at the back of the queue, or rests
+     * a new one there, and a decrease is taken from the front
+     * @throws IllegalArgumentException if quantity is negative
+     */
+    @Override
+    public OrderBook add(final Side side, final int price, final int quantity) {
+        if (quantity < 0)
+            throw new IllegalArgumentException("quantity must not be negative: " + quantity);
+        final Level level = tree(side).get(price);
+        final int current = level == null ? 0 : level.quantity;
+        if (quantity > current) {
+            final Level at = level == null ? levelOrAdd(side, price) : level;
+            final Order tail = at.tail;
+            if (tail != null && tail.orderId == SYNTHETIC_ORDER) {
+                tail.quantity += quantity - current;
+            } else {
+                final Order order = takeOrder();
+                order.orderId = SYNTHETIC_ORDER;
+                order.quantity = quantity - current;
+                order.level = at;
+                append(at, order);
+                at.orders++;
+            }
+            at.quantity = quantity;
+            addSize(side, quantity - current);
+        } else {
+            for (int excess = current - quantity; excess > 0; ) {
+                final Order head = level.head;
+                if (head.quantity <= excess) {      // Filled - removing the last order removes the level
+                    excess -= head.quantity;
+                    if (head.orderId != SYNTHETIC_ORDER)
+                        live.remove(head.orderId);
+                    remove(head);
+                } else {
+                    head.quantity -= excess;
+                    level.quantity -= excess;
+                    addSize(side, -excess);
+                    excess = 0;
+                }
+            }
+        }
+        return this;
+    }
+
+    private LongAdaptiveRadixTreeMap<Level> tree(final Side side) {
+        switch (side) {
+            case BID:
+                return bids;
+            case OFFER:
+                return offers;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    private void addSize(final Side side, final int quantity) {
+        if (side == Side.BID)
+            bidSize += quantity;
+        else
+            offerSize += quantity;
+    }
+
+    private Level levelOrAdd(final Side side, final int price) {
+        final LongAdaptiveRadixTreeMap<Level> tree = tree(side);
+        Level level = tree.get(price);
+        if (level != null)
+            return level;
+        level = takeLevel(side, price);
+        tree.put(price, level);
+        if (side == Side.BID) {
+            bidLevels++;
+            if (topBid == null || price > topBid.price) topBid = level;
+        } else {
+            offerLevels++;
+            if (topOffer == null || price < topOffer.price) topOffer = level;
+        }
+        return level;
+    }
+
+    private void removeLevel(final Level level) {
+        final int price = level.price;
+        if (level.side == Side.BID) {
+            bids.remove(price);
+            bidLevels--;
+            if (level == topBid)    // removed head
+                topBid = bidLevels == 0 ? null : bids.getLowerValue(price);
+        } else {
+            offers.remove(price);
+            offerLevels--;
+            if (level == topOffer)  // removed head
+                topOffer = offerLevels == 0 ? null : offers.getHigherValue(price);
+        }
+        releaseLevel(level);
+    }
+
+    private static void append(final Level level, final Order order) {
+        order.next = null;
+        order.prev = level.tail;
+        if (level.tail == null)
+            level.head = order;
+        else
+            level.tail.next = order;
+        level.tail = order;
+    }
+
+    private static void unlink(final Level level, final Order order) {
+        if (order.prev == null)
+            level.head = order.next;
+        else
+            order.prev.next = order.next;
+        if (order.next == null)
+            level.tail = order.prev;
+        else
+            order.next.prev = order.prev;
+        order.prev = order.next = null;
+    }
+
+    private Order takeOrder() {
+        Order order = freeOrder;
+        if (order == null)
+            order = new Order();
+        else
+            freeOrder = order.next;
+        order.next = null;
+        return order;
+    }
+
+    private void releaseOrder(final Order order) {
+        order.level = null;
+        order.prev = null;
+        order.next = freeOrder;
+        freeOrder = order;
+    }
+
+    private Level takeLevel(final Side side, final int price) {
+        Level level = freeLevel;
+        if (level == null)
+            level = new Level();
+        else
+            freeLevel = level.next;
+        level.next = null;
+        level.side = side;
+        level.price = price;
+        level.quantity = level.orders = 0;
+        level.head = level.tail = null;
+        return level;
+    }
+
+    private void releaseLevel(final Level level) {
+        level.head = level.tail = null;
+        level.next = freeLevel;
+        freeLevel = level;
+    }
+
+    private void releaseAll(final Level level) {
+        for (Order order = level.head; order != null; ) {
+            final Order next = order.next;
+            releaseOrder(order);
+            order = next;
+        }
+        releaseLevel(level);
+    }
+
+    @Override
+    public void forEach(final Side side, final PriceLevel priceLevel) {
+        switch (side) {
+            case BID:
+                for (Level level = topBid; level != null; level = bids.getLowerValue(level.price))
+                    if (!priceLevel.more(level.price, level.quantity)) return;
+                break;
+            case OFFER:
+                for (Level level = topOffer; level != null; level = offers.getHigherValue(level.price))
+                    if (!priceLevel.more(level.price, level.quantity)) return;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
+        switch (side) {
+            case BID:
+                for (Level level = topBid; level != null; level = bids.getLowerValue(level.price))
+                    if (!priceLevel.more(context, level.price, level.quantity)) return;
+                break;
+            case OFFER:
+                for (Level level = topOffer; level != null; level = offers.getHigherValue(level.price))
+                    if (!priceLevel.more(context, level.price, level.quantity)) return;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public int get(final Side side, final int price) {
+        final Level level = tree(side).get(price);
+        return level != null ? level.quantity : NO_VALUE;
+    }
+
+    @Override
+    public int getMidPrice() {
+        if (topBid == null || topOffer == null)
+            return NO_PRICE;
+
+        return (topBid.price + topOffer.price) / 2;
+    }
+
+    @Override
+    public int depth(final Side side) {
+        switch (side) {
+            case BID:
+                return bidLevels;
+            case OFFER:
+                return offerLevels;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) {
+        int outIx = 0;
+        switch (side) {
+            case BID:
+                for (Level bid = topBid; bid != null && level-- > 0; bid = bids.getLowerValue(bid.price)) {
+                    outPrices[outIx] = bid.price;
+                    outQty[outIx++] = bid.quantity;
+                }
+                break;
+            case OFFER:
+                for (Level offer = topOffer; offer != null && level-- > 0; offer = offers.getHigherValue(offer.price)) {
+                    outPrices[outIx] = offer.price;
+                    outQty[outIx++] = offer.quantity;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
+    }
+
+    @Override
+    public OrderBook clear() {
+        // Recycle the orders and levels before dropping the tree
+        for (Level bid = topBid; bid != null; ) {
+            final Level lower = bids.getLowerValue(bid.price);
+            releaseAll(bid);
+            bid = lower;
+        }
+        for (Level offer = topOffer; offer != null; ) {
+            final Level higher = offers.getHigherValue(offer.price);
+            releaseAll(offer);
+            offer = higher;
+        }
+        bids.clear();
+        offers.clear();
+        live.clear();
+        topBid = topOffer = null;
+        bidLevels = offerLevels = 0;
+        bidSize = offerSize = 0;
+        return this;
+    }
+}
@@ -19,11 +19,8 @@ import java.util.Arrays;
  * <p>
  * This is an intentional tradeoff - please wrap this library if you need more
  *
- * There is also some duplication between iteration and functions in BookUtils
- *
- * The implementation in BookUtils is not allocation free and will require an API
- * change to allow it to be so. For now, we leave allocation free versions here and
- * consolidate them later
+ * There is also some duplication between iteration and functions in BookUtils - the
+ * versions here are kept as they avoid the visitor call per level
  *
  */
 @Builder @ToString(onlyExplicitlyIncluded = true)
@@ -49,6 +46,12 @@ public class BookDirect implements OrderBook {
     @Builder.Default @ToString.Include
     private int topBidIx = NO_BID, topOfferIx = NO_OFFER;
 
+    @ToString.Include
+    private int bidLevels, offerLevels;     // Maintained on each add
+
+    @ToString.Include
+    private long bidSize, offerSize;        // Total quantity, maintained on each add
+
     private Slab slab;
 
     @Getter @ToString.Include
@@ -70,26 +73,48 @@ public class BookDirect implements OrderBook {
             case BID:
                 if (topBidIx != NO_BID || quantity != 0) { // Delete on an empty book not a good idea
                     final int[] qty = slab.bids;
-                    if (maskedPrice > topBidIx)
-                        topBidIx = maskedPrice;
+                    final int oldQty = qty[maskedPrice];
                     qty[maskedPrice] = quantity;
-                    if (quantity == 0 && topBidIx == maskedPrice) { // removed head
-                        int bidIx = (int)topBidIx;
-                        while (qty[bidIx] == 0 && bidIx > 0) bidIx--;
-                        topBidIx = qty[bidIx] == 0 ? NO_BID : bidIx;
+                    if (quantity != 0) {
+                        if (oldQty == 0) bidLevels++;
+                        bidSize += quantity - oldQty;
+                        if (maskedPrice > topBidIx)
+                            topBidIx = maskedPrice;
+                    } else if (oldQty != 0) {
+                        bidLevels--;
+                        bidSize -= oldQty;
+                        if (topBidIx == maskedPrice) { // removed head
+                            int bidIx = (int)topBidIx;
+                            if (bidLevels == 0)
+                                bidIx = NO_BID;
+                            else
+                                while (qty[bidIx] == 0) bidIx--;    // Guaranteed to find one
+                            topBidIx = bidIx;
+                        }
                     }
                 }
                 break;
             case OFFER:
                 if (topOfferIx != NO_OFFER || quantity != 0) { // Delete on an empty book not a good idea
                     final int[] qty = slab.offers;
-                    if (maskedPrice < topOfferIx)
-                        topOfferIx = maskedPrice;
+                    final int oldQty = qty[maskedPrice];
                     qty[maskedPrice] = quantity;
-                    if (quantity == 0 && topOfferIx == maskedPrice) { // removed head
-                        int offerIx = (int)topOfferIx;
-                        while (qty[offerIx] == 0 && offerIx < depth) offerIx++;
-                        topOfferIx = qty[offerIx] == 0 ? NO_OFFER : offerIx;
+                    if (quantity != 0) {
+                        if (oldQty == 0) offerLevels++;
+                        offerSize += quantity - oldQty;
+                        if (maskedPrice < topOfferIx)
+                            topOfferIx = maskedPrice;
+                    } else if (oldQty != 0) {
+                        offerLevels--;
+                        offerSize -= oldQty;
+                        if (topOfferIx == maskedPrice) { // removed head
+                            int offerIx = (int)topOfferIx;
+                            if (offerLevels == 0)
+                                offerIx = NO_OFFER;
+                            else
+                                while (qty[offerIx] == 0) offerIx++;    // Guaranteed to find one
+                            topOfferIx = offerIx;
+                        }
                     }
                 }
                 break;
@@ -100,57 +125,138 @@ public class BookDirect implements OrderBook {
     }
 
     /**
-     * This duplicates the iteration loop,but it is, at least, garbage free
-     * Consider changing the api to support passed in state
-     * An iterater is not garbage free
+     * As add, but a removed top is only searched for once, after the batch - until then the top is kept
+     * at or above every level on its side
+     */
+    @Override
+    public OrderBook addBatch(final Side[] sides, final int[] prices, final int[] quantities, final int offset, final int len) {
+        final int[] bids = slab.bids, offers = slab.offers;
+        for (int ix = offset; ix < offset + len; ix++) {
+            final int price = prices[ix], quantity = quantities[ix];
+            switch (sides[ix]) {
+                case BID:
+                    final int oldBid = bids[price];
+                    bids[price] = quantity;
+                    if (quantity != 0) {
+                        if (oldBid == 0) bidLevels++;
+                        bidSize += quantity - oldBid;
+                        if (price > topBidIx)
+                            topBidIx = price;
+                    } else if (oldBid != 0) {
+                        bidLevels--;
+                        bidSize -= oldBid;
+                    }
+                    break;
+                case OFFER:
+                    final int oldOffer = offers[price];
+                    offers[price] = quantity;
+                    if (quantity != 0) {
+                        if (oldOffer == 0) offerLevels++;
+                        offerSize += quantity - oldOffer;
+                        if (price < topOfferIx)
+                            topOfferIx = price;
+                    } else if (oldOffer != 0) {
+                        offerLevels--;
+                        offerSize -= oldOffer;
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Side not supported: " + sides[ix]);
+            }
+        }
+        if (bidLevels == 0)
+            topBidIx = NO_BID;
+        else
+            while (bids[topBidIx] == 0) topBidIx--;      // Guaranteed to find one
+        if (offerLevels == 0)
+            topOfferIx = NO_OFFER;
+        else
+            while (offers[topOfferIx] == 0) topOfferIx++;  // Guaranteed to find one
+        return this;
+    }
+
+    /**
+     * Level counts are maintained on each add, so this is O(1)
      * @param side
      * @return depth of book on that side
      */
     @Override
-    public int depth(final Side side) { // TODO Consider ccnsolidation with BookUtils/forEach
-        int level = 0;
+    public int depth(final Side side) {
+        switch (side) {
+            case BID:
+                return bidLevels;
+            case OFFER:
+                return offerLevels;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void forEach(final Side side, final PriceLevel priceLevel) {
         switch (side) {
             case BID:
                 final int[] bids = slab.bids;
-                int bidIx = topBidIx;
-                while (bidIx >= 0) {
-                    if (bids[bidIx--] != 0)
-                        level++;
+                int bidIx = (int)topBidIx;
+                for (int seen = 0; seen < bidLevels; bidIx--) {
+                    final int qty = bids[bidIx];
+                    if (qty != 0) {
+                        if (!priceLevel.more(bidIx, qty)) return;
+                        seen++;
+                    }
                 }
                 break;
             case OFFER:
                 final int[] offers = slab.offers;
-                int offerIx = topOfferIx;
-                while (offerIx < depth) {
-                    if (offers[offerIx++] != 0)
-                        level++;
+                int offerIx = (int)topOfferIx;
+                for (int seen = 0; seen < offerLevels; offerIx++) {
+                    final int qty = offers[offerIx];
+                    if (qty != 0) {
+                        if (!priceLevel.more(offerIx, qty)) return;
+                        seen++;
+                    }
                 }
                 break;
             default:
                 throw new IllegalArgumentException("Side not supported: " + side);
         }
-        return level;
     }
 
     @Override
-    public void forEach(final Side side, final PriceLevel priceLevel) {
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
         switch (side) {
             case BID:
                 final int[] bids = slab.bids;
                 int bidIx = (int)topBidIx;
-                while (bidIx >= 0) {
+                for (int seen = 0; seen < bidLevels; bidIx--) {
                     final int qty = bids[bidIx];
-                    if (qty != 0 && !priceLevel.more(bidIx, qty)) return;
-                    bidIx--;
+                    if (qty != 0) {
+                        if (!priceLevel.more(context, bidIx, qty)) return;
+                        seen++;
+                    }
                 }
                 break;
             case OFFER:
                 final int[] offers = slab.offers;
                 int offerIx = (int)topOfferIx;
-                while (offerIx < depth) {
+                for (int seen = 0; seen < offerLevels; offerIx++) {
                     final int qty = offers[offerIx];
-                    if (qty != 0 && !priceLevel.more(offerIx, qty)) return;
-                    offerIx++;
+                    if (qty != 0) {
+                        if (!priceLevel.more(context, offerIx, qty)) return;
+                        seen++;
+                    }
                 }
                 break;
             default:
@@ -160,14 +266,13 @@ public class BookDirect implements OrderBook {
 
     /**
      * This duplicates the iteration loop,but it is, at least, garbage free
-     * Consider changing the api to support passed in state
      * An iterater is not garbage free
      * @param side
      * @param level - to decend to
      * @param outPrices - 0 based output prices
      * @param outQty - 0 based output quantities
      */
-    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) { // TODO Consolidate with BookUtils/forEach
+    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) {
         if (level < 0)
             throw new IllegalArgumentException("level not supported: " + level);
 
@@ -176,7 +281,8 @@ public class BookDirect implements OrderBook {
                 final int[] bids = slab.bids;
                 int bidIx = (int)topBidIx;
                 int outIx = 0;
-                while (level > 0 && bidIx >= 0) {
+                level = Math.min(level, bidLevels);
+                while (level > 0) {
                     final int qty = bids[bidIx];
                     if (qty != 0) {
                         outPrices[outIx] = bidIx;
@@ -193,7 +299,8 @@ public class BookDirect implements OrderBook {
                 final int[] offers = slab.offers;
                 int offerIx = (int)topOfferIx;
                 outIx = 0;
-                while (level > 0 && offerIx < depth) {
+                level = Math.min(level, offerLevels);
+                while (level > 0) {
                     final int qty = offers[offerIx];
                     if (qty != 0) {
                         outPrices[outIx] = offerIx;
@@ -238,6 +345,8 @@ public class BookDirect implements OrderBook {
         Arrays.fill(slab.bids, 0);
         Arrays.fill(slab.offers, 0);
         topBidIx = NO_BID; topOfferIx = NO_OFFER;
+        bidLevels = offerLevels = 0;
+        bidSize = offerSize = 0;
         return this;
     }
 
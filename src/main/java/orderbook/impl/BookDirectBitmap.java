@@ -0,0 +1,309 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.util.Arrays;
+
+/**
+ * A {@link BookDirect} with a hierarchical occupancy bitmap kept alongside each slab
+ * <p>
+ * Every price slot has a bit in a word (set if it holds a quantity) and every word has a bit in a
+ * summary word (set if the word is non zero). Finding the next best level after the head is removed
+ * and iterating then skip empty regions 64 slots at a time (4096 slots at a time through the summary)
+ * using {@link Long#numberOfLeadingZeros}/{@link Long#numberOfTrailingZeros} instead of stepping over
+ * every empty slot, which is what hurts a sparse book. Level counts are maintained on each add
+ * <p>
+ * The same argument checking tradeoff as {@link BookDirect} applies
+ */
+@Builder @ToString(onlyExplicitlyIncluded = true)
+public class BookDirectBitmap implements OrderBook {
+    /**
+     * A two level bitmap - a bit per slot, and a summary bit per word of slots
+     */
+    static final class Occupancy {
+        final long[] words;
+        final long[] summary;
+
+        Occupancy(final int n) {
+            words = new long[(n + 63) >>> 6];
+            summary = new long[(words.length + 63) >>> 6];
+        }
+
+        void set(final int ix) {
+            final int w = ix >>> 6;
+            words[w] |= 1L << ix;
+            summary[w >>> 6] |= 1L << w;
+        }
+
+        void clear(final int ix) {
+            final int w = ix >>> 6;
+            if ((words[w] &= ~(1L << ix)) == 0)
+                summary[w >>> 6] &= ~(1L << w);
+        }
+
+        /**
+         * @return the highest occupied slot at or below ix, -1 if none
+         */
+        int prev(final int ix) {
+            if (ix < 0) return -1;
+            int w = ix >>> 6;
+            final long bits = words[w] & (-1L >>> (63 - (ix & 63)));
+            if (bits != 0) return (w << 6) | (63 - Long.numberOfLeadingZeros(bits));
+            if (--w < 0) return -1;
+            int s = w >>> 6;
+            long summaryBits = summary[s] & (-1L >>> (63 - (w & 63)));
+            while (summaryBits == 0) {
+                if (--s < 0) return -1;
+                summaryBits = summary[s];
+            }
+            w = (s << 6) | (63 - Long.numberOfLeadingZeros(summaryBits));
+            return (w << 6) | (63 - Long.numberOfLeadingZeros(words[w]));
+        }
+
+        /**
+         * @return the lowest occupied slot at or above ix, -1 if none
+         */
+        int next(final int ix) {
+            int w = ix >>> 6;
+            if (w >= words.length) return -1;
+            final long bits = words[w] & (-1L << (ix & 63));
+            if (bits != 0) return (w << 6) | Long.numberOfTrailingZeros(bits);
+            if (++w >= words.length) return -1;
+            int s = w >>> 6;
+            long summaryBits = summary[s] & (-1L << (w & 63));
+            while (summaryBits == 0) {
+                if (++s >= summary.length) return -1;
+                summaryBits = summary[s];
+            }
+            w = (s << 6) | Long.numberOfTrailingZeros(summaryBits);
+            return (w << 6) | Long.numberOfTrailingZeros(words[w]);
+        }
+
+        void reset() {
+            Arrays.fill(words, 0);
+            Arrays.fill(summary, 0);
+        }
+    }
+
+    private static class Slab {
+        int n;
+
+        Slab(final int n) {
+            this.n = n;
+            bids = new int[n];
+            offers = new int[n];
+            bidBits = new Occupancy(n);
+            offerBits = new Occupancy(n);
+        }
+
+        int[] bids;
+        int[] offers;
+        Occupancy bidBits;
+        Occupancy offerBits;
+    }
+
+    public static final int NO_OFFER = Integer.MAX_VALUE, NO_BID = Integer.MIN_VALUE;
+
+    @Builder.Default @ToString.Include
+    private int depth = 10;
+
+    @Builder.Default @ToString.Include
+    private int topBidIx = NO_BID, topOfferIx = NO_OFFER;
+
+    @ToString.Include
+    private int bidLevels, offerLevels;     // Maintained on each add
+
+    @ToString.Include
+    private long bidSize, offerSize;        // Total quantity, maintained on each add
+
+    private Slab slab;
+
+    @Getter @ToString.Include
+    private long symbolId;
+
+    public BookDirectBitmap initialiseSlabs() {
+        if (symbolId == 0) throw new IllegalArgumentException("symbolId must be specified");
+        slab = new Slab(depth);
+        return this;
+    }
+
+    @Override
+    public OrderBook add(final Side side, final int price, final int quantity) {
+        switch (side) {
+            case BID:
+                final int oldBid = slab.bids[price];
+                slab.bids[price] = quantity;
+                bidSize += quantity - oldBid;
+                if (quantity != 0) {
+                    if (oldBid == 0) bidLevels++;
+                    slab.bidBits.set(price);
+                    if (price > topBidIx)
+                        topBidIx = price;
+                } else if (oldBid != 0) {
+                    bidLevels--;
+                    slab.bidBits.clear(price);
+                    if (price == topBidIx) { // removed head
+                        final int bidIx = slab.bidBits.prev(price - 1);
+                        topBidIx = bidIx < 0 ? NO_BID : bidIx;
+                    }
+                }
+                break;
+            case OFFER:
+                final int oldOffer = slab.offers[price];
+                slab.offers[price] = quantity;
+                offerSize += quantity - oldOffer;
+                if (quantity != 0) {
+                    if (oldOffer == 0) offerLevels++;
+                    slab.offerBits.set(price);
+                    if (price < topOfferIx)
+                        topOfferIx = price;
+                } else if (oldOffer != 0) {
+                    offerLevels--;
+                    slab.offerBits.clear(price);
+                    if (price == topOfferIx) { // removed head
+                        final int offerIx = slab.offerBits.next(price + 1);
+                        topOfferIx = offerIx < 0 ? NO_OFFER : offerIx;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return this;
+    }
+
+    @Override
+    public int depth(final Side side) {
+        switch (side) {
+            case BID:
+                return bidLevels;
+            case OFFER:
+                return offerLevels;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void forEach(final Side side, final PriceLevel priceLevel) {
+        switch (side) {
+            case BID:
+                final int[] bids = slab.bids;
+                final Occupancy bidBits = slab.bidBits;
+                for (int bidIx = topBidIx; bidIx >= 0; bidIx = bidBits.prev(bidIx - 1))
+                    if (!priceLevel.more(bidIx, bids[bidIx])) return;
+                break;
+            case OFFER:
+                if (topOfferIx == NO_OFFER) return;
+                final int[] offers = slab.offers;
+                final Occupancy offerBits = slab.offerBits;
+                for (int offerIx = topOfferIx; offerIx >= 0; offerIx = offerBits.next(offerIx + 1))
+                    if (!priceLevel.more(offerIx, offers[offerIx])) return;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
+        switch (side) {
+            case BID:
+                final int[] bids = slab.bids;
+                final Occupancy bidBits = slab.bidBits;
+                for (int bidIx = topBidIx; bidIx >= 0; bidIx = bidBits.prev(bidIx - 1))
+                    if (!priceLevel.more(context, bidIx, bids[bidIx])) return;
+                break;
+            case OFFER:
+                if (topOfferIx == NO_OFFER) return;
+                final int[] offers = slab.offers;
+                final Occupancy offerBits = slab.offerBits;
+                for (int offerIx = topOfferIx; offerIx >= 0; offerIx = offerBits.next(offerIx + 1))
+                    if (!priceLevel.more(context, offerIx, offers[offerIx])) return;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) {
+        if (level < 0)
+            throw new IllegalArgumentException("level not supported: " + level);
+
+        int outIx = 0;
+        switch (side) {
+            case BID:
+                final int[] bids = slab.bids;
+                final Occupancy bidBits = slab.bidBits;
+                for (int bidIx = topBidIx; level > 0 && bidIx >= 0; bidIx = bidBits.prev(bidIx - 1), level--) {
+                    outPrices[outIx] = bidIx;
+                    outQty[outIx++] = bids[bidIx];
+                }
+                break;
+            case OFFER:
+                if (topOfferIx == NO_OFFER) break;
+                final int[] offers = slab.offers;
+                final Occupancy offerBits = slab.offerBits;
+                for (int offerIx = topOfferIx; level > 0 && offerIx >= 0; offerIx = offerBits.next(offerIx + 1), level--) {
+                    outPrices[outIx] = offerIx;
+                    outQty[outIx++] = offers[offerIx];
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
+    }
+
+    @Override
+    public int getMidPrice() {
+        if (topBidIx == NO_BID || topOfferIx == NO_OFFER)
+            return NO_PRICE;
+
+        return (topBidIx + topOfferIx) / 2;
+    }
+
+    @Override
+    public int get(final Side side, final int price) {
+        switch (side) {
+            case BID:
+                int qty = slab.bids[price];
+                return qty == 0 ? NO_VALUE : qty;
+            case OFFER:
+                qty = slab.offers[price];
+                return qty == 0 ? NO_VALUE : qty;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public OrderBook clear() {
+        Arrays.fill(slab.bids, 0);
+        Arrays.fill(slab.offers, 0);
+        slab.bidBits.reset();
+        slab.offerBits.reset();
+        topBidIx = NO_BID; topOfferIx = NO_OFFER;
+        bidLevels = offerLevels = 0;
+        bidSize = offerSize = 0;
+        return this;
+    }
+}
@@ -0,0 +1,273 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import orderbook.OrderBookLong;
+import orderbook.Side;
+
+import java.util.Arrays;
+
+/**
+ * A {@link BookDirect} for long prices and quantities - the slab covers depth ticks from base, so a price
+ * maps to slot (price - base) / tick. An 8 decimal price can then be held directly, as long as the
+ * range around the market is a reasonable number of ticks
+ * <p>
+ * A price off the tick grid or outside the slab is rejected with an IllegalArgumentException, rather than
+ * being rounded to a neighbouring level. Otherwise the same argument checking tradeoff as
+ * {@link BookDirect} applies
+ */
+@Builder @ToString(onlyExplicitlyIncluded = true)
+public class BookDirectLong implements OrderBookLong {
+    private static final int NO_OFFER = Integer.MAX_VALUE, NO_BID = Integer.MIN_VALUE;
+
+    @Builder.Default @ToString.Include
+    private int depth = 10;
+    @Getter @ToString.Include
+    private long base;                          // Price of slot 0
+    @Builder.Default @Getter @ToString.Include
+    private long tick = 1;
+
+    @Builder.Default @ToString.Include
+    private int topBidIx = NO_BID, topOfferIx = NO_OFFER;
+
+    @ToString.Include
+    private int bidLevels, offerLevels;         // Maintained on each add
+
+    @ToString.Include
+    private long bidSize, offerSize;            // Total quantity, maintained on each add
+
+    private long[] bids, offers;
+
+    @Getter @ToString.Include
+    private long symbolId;
+
+    public BookDirectLong initialiseSlabs() {
+        if (symbolId == 0) throw new IllegalArgumentException("symbolId must be specified");
+        if (tick <= 0) throw new IllegalArgumentException("tick must be positive: " + tick);
+        bids = new long[depth];
+        offers = new long[depth];
+        return this;
+    }
+
+    /**
+     * @return the slot for price
+     * @throws IllegalArgumentException if price is not on a tick within the slab
+     */
+    private int slot(final long price) {
+        final long offset = price - base;
+        final long slot = offset / tick;
+        if (slot * tick != offset || slot < 0 || slot >= depth)
+            throw new IllegalArgumentException("Price not on a tick within the book: " + price);
+        return (int)slot;
+    }
+
+    private long price(final int slot) {
+        return base + slot * tick;
+    }
+
+    @Override
+    public OrderBookLong add(final Side side, final long price, final long quantity) {
+        final int ix = slot(price);
+        switch (side) {
+            case BID:
+                if (topBidIx != NO_BID || quantity != 0) { // Delete on an empty book not a good idea
+                    final long oldQty = bids[ix];
+                    bids[ix] = quantity;
+                    if (quantity != 0) {
+                        if (oldQty == 0) bidLevels++;
+                        bidSize += quantity - oldQty;
+                        if (ix > topBidIx)
+                            topBidIx = ix;
+                    } else if (oldQty != 0) {
+                        bidLevels--;
+                        bidSize -= oldQty;
+                        if (topBidIx == ix) { // removed head
+                            int bidIx = topBidIx;
+                            if (bidLevels == 0)
+                                bidIx = NO_BID;
+                            else
+                                while (bids[bidIx] == 0) bidIx--;    // Guaranteed to find one
+                            topBidIx = bidIx;
+                        }
+                    }
+                }
+                break;
+            case OFFER:
+                if (topOfferIx != NO_OFFER || quantity != 0) { // Delete on an empty book not a good idea
+                    final long oldQty = offers[ix];
+                    offers[ix] = quantity;
+                    if (quantity != 0) {
+                        if (oldQty == 0) offerLevels++;
+                        offerSize += quantity - oldQty;
+                        if (ix < topOfferIx)
+                            topOfferIx = ix;
+                    } else if (oldQty != 0) {
+                        offerLevels--;
+                        offerSize -= oldQty;
+                        if (topOfferIx == ix) { // removed head
+                            int offerIx = topOfferIx;
+                            if (offerLevels == 0)
+                                offerIx = NO_OFFER;
+                            else
+                                while (offers[offerIx] == 0) offerIx++;    // Guaranteed to find one
+                            topOfferIx = offerIx;
+                        }
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return this;
+    }
+
+    @Override
+    public int depth(final Side side) {
+        switch (side) {
+            case BID:
+                return bidLevels;
+            case OFFER:
+                return offerLevels;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void forEach(final Side side, final PriceLevel priceLevel) {
+        switch (side) {
+            case BID:
+                for (int bidIx = topBidIx, seen = 0; seen < bidLevels; bidIx--) {
+                    final long qty = bids[bidIx];
+                    if (qty != 0) {
+                        if (!priceLevel.more(price(bidIx), qty)) return;
+                        seen++;
+                    }
+                }
+                break;
+            case OFFER:
+                for (int offerIx = topOfferIx, seen = 0; seen < offerLevels; offerIx++) {
+                    final long qty = offers[offerIx];
+                    if (qty != 0) {
+                        if (!priceLevel.more(price(offerIx), qty)) return;
+                        seen++;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
+        switch (side) {
+            case BID:
+                for (int bidIx = topBidIx, seen = 0; seen < bidLevels; bidIx--) {
+                    final long qty = bids[bidIx];
+                    if (qty != 0) {
+                        if (!priceLevel.more(context, price(bidIx), qty)) return;
+                        seen++;
+                    }
+                }
+                break;
+            case OFFER:
+                for (int offerIx = topOfferIx, seen = 0; seen < offerLevels; offerIx++) {
+                    final long qty = offers[offerIx];
+                    if (qty != 0) {
+                        if (!priceLevel.more(context, price(offerIx), qty)) return;
+                        seen++;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void getLevels(final Side side, int level, final long[] outPrices, final long[] outQty) {
+        if (level < 0)
+            throw new IllegalArgumentException("level not supported: " + level);
+
+        int outIx = 0;
+        switch (side) {
+            case BID:
+                level = Math.min(level, bidLevels);
+                for (int bidIx = topBidIx; level > 0; bidIx--) {
+                    final long qty = bids[bidIx];
+                    if (qty != 0) {
+                        outPrices[outIx] = price(bidIx);
+                        outQty[outIx++] = qty;
+                        level--;
+                    }
+                }
+                break;
+            case OFFER:
+                level = Math.min(level, offerLevels);
+                for (int offerIx = topOfferIx; level > 0; offerIx++) {
+                    final long qty = offers[offerIx];
+                    if (qty != 0) {
+                        outPrices[outIx] = price(offerIx);
+                        outQty[outIx++] = qty;
+                        level--;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
+    }
+
+    /**
+     * The mid of the top prices, FLOOR rounded - not necessarily on a tick
+     */
+    @Override
+    public long getMidPriceLong() {
+        if (topBidIx == NO_BID || topOfferIx == NO_OFFER)
+            return NO_PRICE;
+
+        return base + ((long)topBidIx + topOfferIx) * tick / 2;
+    }
+
+    @Override
+    public long get(final Side side, final long price) {
+        final long qty;
+        switch (side) {
+            case BID:
+                qty = bids[slot(price)];
+                break;
+            case OFFER:
+                qty = offers[slot(price)];
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return qty == 0 ? NO_VALUE : qty;
+    }
+
+    @Override
+    public OrderBookLong clear() {
+        Arrays.fill(bids, 0);
+        Arrays.fill(offers, 0);
+        topBidIx = NO_BID; topOfferIx = NO_OFFER;
+        bidLevels = offerLevels = 0;
+        bidSize = offerSize = 0;
+        return this;
+    }
+}
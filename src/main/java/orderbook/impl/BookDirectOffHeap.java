@@ -0,0 +1,291 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A {@link BookDirect} whose slabs are native memory rather than int[] - the collector neither copies nor
+ * scans them, so thousands of deep books do not add to the heap or to pause times
+ * <p>
+ * Slabs are carved from a {@link SlabArena} if one is given, so a market's books can be allocated and freed
+ * together, otherwise each book allocates its own direct buffers. Access is through absolute ByteBuffer
+ * gets and puts, which the JIT reduces to plain loads and stores (bounds checked, as with an array)
+ * <p>
+ * The same argument checking tradeoff as {@link BookDirect} applies
+ */
+@Builder @ToString(onlyExplicitlyIncluded = true)
+public class BookDirectOffHeap implements OrderBook {
+    private static class Slab {
+        final int n;
+        final ByteBuffer bids;
+        final ByteBuffer offers;
+
+        Slab(final int n, final SlabArena arena) {
+            this.n = n;
+            bids = arena != null ? arena.allocate(n * 4) : BookDirectOffHeap.allocate(n * 4);
+            offers = arena != null ? arena.allocate(n * 4) : BookDirectOffHeap.allocate(n * 4);
+        }
+    }
+
+    public static final int NO_OFFER = Integer.MAX_VALUE, NO_BID = Integer.MIN_VALUE;
+
+    @Builder.Default @ToString.Include
+    private int depth = 10;
+
+    @Builder.Default @ToString.Include
+    private int topBidIx = NO_BID, topOfferIx = NO_OFFER;
+
+    @ToString.Include
+    private int bidLevels, offerLevels;     // Maintained on each add
+
+    @ToString.Include
+    private long bidSize, offerSize;        // Total quantity, maintained on each add
+
+    private SlabArena arena;                // Optional
+
+    private Slab slab;
+
+    @Getter @ToString.Include
+    private long symbolId;
+
+    public BookDirectOffHeap initialiseSlabs() {
+        if (symbolId == 0) throw new IllegalArgumentException("symbolId must be specified");
+        slab = new Slab(depth, arena);
+        return this;
+    }
+
+    private static ByteBuffer allocate(final int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public OrderBook add(final Side side, final int price, final int quantity) {
+        switch (side) {
+            case BID:
+                if (topBidIx != NO_BID || quantity != 0) { // Delete on an empty book not a good idea
+                    final ByteBuffer qty = slab.bids;
+                    final int oldQty = qty.getInt(price << 2);
+                    qty.putInt(price << 2, quantity);
+                    if (quantity != 0) {
+                        if (oldQty == 0) bidLevels++;
+                        bidSize += quantity - oldQty;
+                        if (price > topBidIx)
+                            topBidIx = price;
+                    } else if (oldQty != 0) {
+                        bidLevels--;
+                        bidSize -= oldQty;
+                        if (topBidIx == price) { // removed head
+                            int bidIx = topBidIx;
+                            if (bidLevels == 0)
+                                bidIx = NO_BID;
+                            else
+                                while (qty.getInt(bidIx << 2) == 0) bidIx--;    // Guaranteed to find one
+                            topBidIx = bidIx;
+                        }
+                    }
+                }
+                break;
+            case OFFER:
+                if (topOfferIx != NO_OFFER || quantity != 0) { // Delete on an empty book not a good idea
+                    final ByteBuffer qty = slab.offers;
+                    final int oldQty = qty.getInt(price << 2);
+                    qty.putInt(price << 2, quantity);
+                    if (quantity != 0) {
+                        if (oldQty == 0) offerLevels++;
+                        offerSize += quantity - oldQty;
+                        if (price < topOfferIx)
+                            topOfferIx = price;
+                    } else if (oldQty != 0) {
+                        offerLevels--;
+                        offerSize -= oldQty;
+                        if (topOfferIx == price) { // removed head
+                            int offerIx = topOfferIx;
+                            if (offerLevels == 0)
+                                offerIx = NO_OFFER;
+                            else
+                                while (qty.getInt(offerIx << 2) == 0) offerIx++;    // Guaranteed to find one
+                            topOfferIx = offerIx;
+                        }
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return this;
+    }
+
+    @Override
+    public int depth(final Side side) {
+        switch (side) {
+            case BID:
+                return bidLevels;
+            case OFFER:
+                return offerLevels;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void forEach(final Side side, final PriceLevel priceLevel) {
+        switch (side) {
+            case BID:
+                final ByteBuffer bids = slab.bids;
+                int bidIx = topBidIx;
+                for (int seen = 0; seen < bidLevels; bidIx--) {
+                    final int qty = bids.getInt(bidIx << 2);
+                    if (qty != 0) {
+                        if (!priceLevel.more(bidIx, qty)) return;
+                        seen++;
+                    }
+                }
+                break;
+            case OFFER:
+                final ByteBuffer offers = slab.offers;
+                int offerIx = topOfferIx;
+                for (int seen = 0; seen < offerLevels; offerIx++) {
+                    final int qty = offers.getInt(offerIx << 2);
+                    if (qty != 0) {
+                        if (!priceLevel.more(offerIx, qty)) return;
+                        seen++;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
+        switch (side) {
+            case BID:
+                final ByteBuffer bids = slab.bids;
+                int bidIx = topBidIx;
+                for (int seen = 0; seen < bidLevels; bidIx--) {
+                    final int qty = bids.getInt(bidIx << 2);
+                    if (qty != 0) {
+                        if (!priceLevel.more(context, bidIx, qty)) return;
+                        seen++;
+                    }
+                }
+                break;
+            case OFFER:
+                final ByteBuffer offers = slab.offers;
+                int offerIx = topOfferIx;
+                for (int seen = 0; seen < offerLevels; offerIx++) {
+                    final int qty = offers.getInt(offerIx << 2);
+                    if (qty != 0) {
+                        if (!priceLevel.more(context, offerIx, qty)) return;
+                        seen++;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) {
+        if (level < 0)
+            throw new IllegalArgumentException("level not supported: " + level);
+
+        int outIx = 0;
+        switch (side) {
+            case BID:
+                final ByteBuffer bids = slab.bids;
+                level = Math.min(level, bidLevels);
+                for (int bidIx = topBidIx; level > 0; bidIx--) {
+                    final int qty = bids.getInt(bidIx << 2);
+                    if (qty != 0) {
+                        outPrices[outIx] = bidIx;
+                        outQty[outIx++] = qty;
+                        level--;
+                    }
+                }
+                break;
+            case OFFER:
+                final ByteBuffer offers = slab.offers;
+                level = Math.min(level, offerLevels);
+                for (int offerIx = topOfferIx; level > 0; offerIx++) {
+                    final int qty = offers.getInt(offerIx << 2);
+                    if (qty != 0) {
+                        outPrices[outIx] = offerIx;
+                        outQty[outIx++] = qty;
+                        level--;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
+    }
+
+    @Override
+    public int getMidPrice() {
+        if (topBidIx == NO_BID || topOfferIx == NO_OFFER)
+            return NO_PRICE;
+
+        return (topBidIx + topOfferIx) / 2;
+    }
+
+    @Override
+    public int get(final Side side, final int price) {
+        switch (side) {
+            case BID:
+                int qty = slab.bids.getInt(price << 2);
+                return qty == 0 ? NO_VALUE : qty;
+            case OFFER:
+                qty = slab.offers.getInt(price << 2);
+                return qty == 0 ? NO_VALUE : qty;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    /**
+     * Only the occupied range of each side is zeroed - from the top to the last level
+     */
+    @Override
+    public OrderBook clear() {
+        final ByteBuffer bids = slab.bids;
+        for (int bidIx = topBidIx, seen = 0; seen < bidLevels; bidIx--)
+            if (bids.getInt(bidIx << 2) != 0) {
+                bids.putInt(bidIx << 2, 0);
+                seen++;
+            }
+        final ByteBuffer offers = slab.offers;
+        for (int offerIx = topOfferIx, seen = 0; seen < offerLevels; offerIx++)
+            if (offers.getInt(offerIx << 2) != 0) {
+                offers.putInt(offerIx << 2, 0);
+                seen++;
+            }
+        topBidIx = NO_BID; topOfferIx = NO_OFFER;
+        bidLevels = offerLevels = 0;
+        bidSize = offerSize = 0;
+        return this;
+    }
+}
@@ -0,0 +1,291 @@
+package orderbook.impl;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.util.Arrays;
+
+/**
+ * A {@link BookDirect} holding each quantity in a 16 bit slot rather than an int - 32 levels to a cache line
+ * rather than 16, so more of the active range of the book stays in L1/L2
+ * <p>
+ * Quantities up to 65534 are held in the slot. Anything larger is held in an overflow table for the side,
+ * keyed on price, with the slot set to ESCAPE - so quantities are exact, and a book that mostly trades
+ * small sizes rarely touches the table. A feed where most quantities are large (e.g. the SOLUSDT
+ * captures, scaled x 100) will do better with {@link BookDirect}. Quantities must not be negative
+ * <p>
+ * The same argument checking tradeoff as {@link BookDirect} applies
+ */
+@Builder @ToString(onlyExplicitlyIncluded = true)
+public class BookDirectShort implements OrderBook {
+    static final char ESCAPE = Character.MAX_VALUE;
+
+    private static class Slab {
+        int n;
+
+        Slab(final int n) {
+            this.n = n;
+            bids = new char[n];
+            offers = new char[n];
+        }
+
+        char[] bids;
+        char[] offers;
+        final Int2IntOpenHashMap bidOverflow = new Int2IntOpenHashMap();
+        final Int2IntOpenHashMap offerOverflow = new Int2IntOpenHashMap();
+    }
+
+    public static final int NO_OFFER = Integer.MAX_VALUE, NO_BID = Integer.MIN_VALUE;
+
+    @Builder.Default @ToString.Include
+    private int depth = 10;
+
+    @Builder.Default @ToString.Include
+    private int topBidIx = NO_BID, topOfferIx = NO_OFFER;
+
+    @ToString.Include
+    private int bidLevels, offerLevels;     // Maintained on each add
+
+    @ToString.Include
+    private long bidSize, offerSize;        // Total quantity, maintained on each add
+
+    private Slab slab;
+
+    @Getter @ToString.Include
+    private long symbolId;
+
+    public BookDirectShort initialiseSlabs() {
+        if (symbolId == 0) throw new IllegalArgumentException("symbolId must be specified");
+        slab = new Slab(depth);
+        return this;
+    }
+
+    private static int read(final char[] slots, final Int2IntOpenHashMap overflow, final int ix) {
+        final char slot = slots[ix];
+        return slot == ESCAPE ? overflow.get(ix) : slot;
+    }
+
+    private static void write(final char[] slots, final Int2IntOpenHashMap overflow, final int ix, final int quantity) {
+        if (slots[ix] == ESCAPE)
+            overflow.remove(ix);
+        if (quantity < ESCAPE) {
+            slots[ix] = (char)quantity;
+        } else {
+            slots[ix] = ESCAPE;
+            overflow.put(ix, quantity);
+        }
+    }
+
+    @Override
+    public OrderBook add(final Side side, final int price, final int quantity) {
+        switch (side) {
+            case BID:
+                if (topBidIx != NO_BID || quantity != 0) { // Delete on an empty book not a good idea
+                    final char[] qty = slab.bids;
+                    final int oldQty = read(qty, slab.bidOverflow, price);
+                    write(qty, slab.bidOverflow, price, quantity);
+                    if (quantity != 0) {
+                        if (oldQty == 0) bidLevels++;
+                        bidSize += quantity - oldQty;
+                        if (price > topBidIx)
+                            topBidIx = price;
+                    } else if (oldQty != 0) {
+                        bidLevels--;
+                        bidSize -= oldQty;
+                        if (topBidIx == price) { // removed head
+                            int bidIx = topBidIx;
+                            if (bidLevels == 0)
+                                bidIx = NO_BID;
+                            else
+                                while (qty[bidIx] == 0) bidIx--;    // Guaranteed to find one
+                            topBidIx = bidIx;
+                        }
+                    }
+                }
+                break;
+            case OFFER:
+                if (topOfferIx != NO_OFFER || quantity != 0) { // Delete on an empty book not a good idea
+                    final char[] qty = slab.offers;
+                    final int oldQty = read(qty, slab.offerOverflow, price);
+                    write(qty, slab.offerOverflow, price, quantity);
+                    if (quantity != 0) {
+                        if (oldQty == 0) offerLevels++;
+                        offerSize += quantity - oldQty;
+                        if (price < topOfferIx)
+                            topOfferIx = price;
+                    } else if (oldQty != 0) {
+                        offerLevels--;
+                        offerSize -= oldQty;
+                        if (topOfferIx == price) { // removed head
+                            int offerIx = topOfferIx;
+                            if (offerLevels == 0)
+                                offerIx = NO_OFFER;
+                            else
+                                while (qty[offerIx] == 0) offerIx++;    // Guaranteed to find one
+                            topOfferIx = offerIx;
+                        }
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return this;
+    }
+
+    @Override
+    public int depth(final Side side) {
+        switch (side) {
+            case BID:
+                return bidLevels;
+            case OFFER:
+                return offerLevels;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void forEach(final Side side, final PriceLevel priceLevel) {
+        switch (side) {
+            case BID:
+                final char[] bids = slab.bids;
+                int bidIx = topBidIx;
+                for (int seen = 0; seen < bidLevels; bidIx--) {
+                    if (bids[bidIx] != 0) {
+                        if (!priceLevel.more(bidIx, read(bids, slab.bidOverflow, bidIx))) return;
+                        seen++;
+                    }
+                }
+                break;
+            case OFFER:
+                final char[] offers = slab.offers;
+                int offerIx = topOfferIx;
+                for (int seen = 0; seen < offerLevels; offerIx++) {
+                    if (offers[offerIx] != 0) {
+                        if (!priceLevel.more(offerIx, read(offers, slab.offerOverflow, offerIx))) return;
+                        seen++;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
+        switch (side) {
+            case BID:
+                final char[] bids = slab.bids;
+                int bidIx = topBidIx;
+                for (int seen = 0; seen < bidLevels; bidIx--) {
+                    if (bids[bidIx] != 0) {
+                        if (!priceLevel.more(context, bidIx, read(bids, slab.bidOverflow, bidIx))) return;
+                        seen++;
+                    }
+                }
+                break;
+            case OFFER:
+                final char[] offers = slab.offers;
+                int offerIx = topOfferIx;
+                for (int seen = 0; seen < offerLevels; offerIx++) {
+                    if (offers[offerIx] != 0) {
+                        if (!priceLevel.more(context, offerIx, read(offers, slab.offerOverflow, offerIx))) return;
+                        seen++;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) {
+        if (level < 0)
+            throw new IllegalArgumentException("level not supported: " + level);
+
+        int outIx = 0;
+        switch (side) {
+            case BID:
+                final char[] bids = slab.bids;
+                level = Math.min(level, bidLevels);
+                for (int bidIx = topBidIx; level > 0; bidIx--) {
+                    if (bids[bidIx] != 0) {
+                        outPrices[outIx] = bidIx;
+                        outQty[outIx++] = read(bids, slab.bidOverflow, bidIx);
+                        level--;
+                    }
+                }
+                break;
+            case OFFER:
+                final char[] offers = slab.offers;
+                level = Math.min(level, offerLevels);
+                for (int offerIx = topOfferIx; level > 0; offerIx++) {
+                    if (offers[offerIx] != 0) {
+                        outPrices[outIx] = offerIx;
+                        outQty[outIx++] = read(offers, slab.offerOverflow, offerIx);
+                        level--;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
+    }
+
+    @Override
+    public int getMidPrice() {
+        if (topBidIx == NO_BID || topOfferIx == NO_OFFER)
+            return NO_PRICE;
+
+        return (topBidIx + topOfferIx) / 2;
+    }
+
+    @Override
+    public int get(final Side side, final int price) {
+        final int qty;
+        switch (side) {
+            case BID:
+                qty = read(slab.bids, slab.bidOverflow, price);
+                break;
+            case OFFER:
+                qty = read(slab.offers, slab.offerOverflow, price);
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return qty == 0 ? NO_VALUE : qty;
+    }
+
+    @Override
+    public OrderBook clear() {
+        Arrays.fill(slab.bids, (char)0);
+        Arrays.fill(slab.offers, (char)0);
+        slab.bidOverflow.clear();
+        slab.offerOverflow.clear();
+        topBidIx = NO_BID; topOfferIx = NO_OFFER;
+        bidLevels = offerLevels = 0;
+        bidSize = offerSize = 0;
+        return this;
+    }
+}
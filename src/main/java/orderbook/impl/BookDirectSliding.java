@@ -0,0 +1,422 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.util.Arrays;
+
+/**
+ * A Direct window over the "hot" area near the top of book, backed by a more general book (the ART
+ * by default) holding any price that falls outside that window
+ * <p>
+ * Each side has its own window of {@code window} slots (a power of 2) and a price is mapped to its slot
+ * with a mask, so the window wraps around the array as the activity moves rather than copying entries.
+ * The bid window covers [bidLo, bidLo + window) and every lower bid lives in the backing book. The offer
+ * window mirrors this - every offer at or above offerLo + window lives in the backing book. So the top of
+ * book is always in the window and the window is only empty when the backing side is empty too
+ * <p>
+ * A price arriving beyond the leading edge re-centres the window on it, paging the levels that fall off
+ * the trailing edge out to the backing book. When the head is removed and the new head drifts into the
+ * trailing quarter of the window (or the window empties) the window re-centres the other way and pages
+ * levels back in from the backing book. Both are rare compared to updates inside the window
+ * <p>
+ * The same argument checking tradeoff as {@link BookDirect} applies
+ */
+@Builder @ToString(onlyExplicitlyIncluded = true)
+public class BookDirectSliding implements OrderBook {
+    private static final class Collector implements PriceLevel {
+        int[] outPrices, outQty;
+        int outIx, remaining;
+
+        @Override
+        public boolean more(final int entryPx, final int entrySize) {
+            outPrices[outIx] = entryPx;
+            outQty[outIx++] = entrySize;
+            return --remaining > 0;
+        }
+    }
+
+    public static final int NO_OFFER = Integer.MAX_VALUE, NO_BID = Integer.MIN_VALUE;
+
+    @Builder.Default @ToString.Include
+    private int window = 1024;
+
+    @Builder.Default
+    private OrderBook backing = BookArt.builder().build().init();
+
+    @Getter @ToString.Include
+    private long symbolId;
+
+    @Builder.Default @ToString.Include
+    private int topBidIx = NO_BID, topOfferIx = NO_OFFER;
+
+    @ToString.Include
+    private int bidLo, offerLo;                 // Lowest price covered by each window
+    @ToString.Include
+    private int bidLevels, offerLevels;         // Non zero levels held in each window
+    @ToString.Include
+    private int bidBacked, offerBacked;         // Non zero levels held in the backing book
+    @ToString.Include
+    private long bidSize, offerSize;            // Total quantity across the window and backing book
+
+    private int mask;
+    private int[] bids, offers;
+    private int[] pagePx, pageQty;              // Scratch for paging in from the backing book
+    private int[] topPx, topQty;
+    private Collector collector;
+
+    public BookDirectSliding initialiseSlabs() {
+        if (window <= 0 || Integer.bitCount(window) != 1)
+            throw new IllegalArgumentException("window must be a power of 2: " + window);
+        mask = window - 1;
+        bids = new int[window];
+        offers = new int[window];
+        pagePx = new int[window];
+        pageQty = new int[window];
+        topPx = new int[1];
+        topQty = new int[1];
+        collector = new Collector();
+        return this;
+    }
+
+    @Override
+    public OrderBook add(final Side side, final int price, final int quantity) {
+        switch (side) {
+            case BID:
+                addBid(price, quantity);
+                break;
+            case OFFER:
+                addOffer(price, quantity);
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return this;
+    }
+
+    private void addBid(final int price, final int quantity) {
+        if (bidLevels == 0 || price >= bidLo + window) {
+            if (quantity == 0) // Delete on an empty window or above it - nothing to do
+                return;
+            slideBids(price - window + (window >> 2));  // Head sits a quarter from the leading edge
+        } else if (price < bidLo) {
+            bidSize += quantity - Math.max(backing.get(Side.BID, price), 0);
+            addBacking(Side.BID, price, quantity);
+            return;
+        }
+        final int ix = price & mask;
+        final int old = bids[ix];
+        bids[ix] = quantity;
+        bidSize += quantity - old;
+        if (quantity != 0) {
+            if (old == 0) bidLevels++;
+            if (price > topBidIx) topBidIx = price;
+        } else if (old != 0) {
+            bidLevels--;
+            if (price == topBidIx) { // removed head
+                topBidIx = nextBid(price - 1);
+                if (bidBacked > 0 && (bidLevels == 0 || topBidIx < bidLo + (window >> 2))) {
+                    final int head = bidLevels == 0 ? bestBacked(Side.BID) : topBidIx;
+                    slideBids(head - window + (window >> 2));
+                }
+            }
+        }
+    }
+
+    private void addOffer(final int price, final int quantity) {
+        if (offerLevels == 0 || price < offerLo) {
+            if (quantity == 0) // Delete on an empty window or below it - nothing to do
+                return;
+            slideOffers(price - (window >> 2));        // Head sits a quarter from the leading edge
+        } else if (price >= offerLo + window) {
+            offerSize += quantity - Math.max(backing.get(Side.OFFER, price), 0);
+            addBacking(Side.OFFER, price, quantity);
+            return;
+        }
+        final int ix = price & mask;
+        final int old = offers[ix];
+        offers[ix] = quantity;
+        offerSize += quantity - old;
+        if (quantity != 0) {
+            if (old == 0) offerLevels++;
+            if (price < topOfferIx) topOfferIx = price;
+        } else if (old != 0) {
+            offerLevels--;
+            if (price == topOfferIx) { // removed head
+                topOfferIx = nextOffer(price + 1);
+                if (offerBacked > 0 && (offerLevels == 0 || topOfferIx >= offerLo + window - (window >> 2))) {
+                    final int head = offerLevels == 0 ? bestBacked(Side.OFFER) : topOfferIx;
+                    slideOffers(head - (window >> 2));
+                }
+            }
+        }
+    }
+
+    private int nextBid(final int from) {
+        if (bidLevels == 0) return NO_BID;
+        for (int price = from; price >= bidLo; price--)
+            if (bids[price & mask] != 0) return price;
+        return NO_BID;
+    }
+
+    private int nextOffer(final int from) {
+        if (offerLevels == 0) return NO_OFFER;
+        final int hi = offerLo + window;
+        for (int price = from; price < hi; price++)
+            if (offers[price & mask] != 0) return price;
+        return NO_OFFER;
+    }
+
+    /**
+     * Moves the bid window to [newLo, newLo + window) - pages out whatever it no longer covers, and
+     * pages in any backing levels it now covers. Callers guarantee nothing is left above the new window
+     */
+    private void slideBids(final int newLo) {
+        final int newHi = newLo + window;
+        if (bidLevels > 0) {
+            final int hi = bidLo + window;
+            for (int price = bidLo; price < hi; price++) {
+                final int ix = price & mask;
+                final int qty = bids[ix];
+                if (qty != 0 && (price < newLo || price >= newHi)) {
+                    bids[ix] = 0;
+                    bidLevels--;
+                    addBacking(Side.BID, price, qty);
+                }
+            }
+        }
+        if (topBidIx < newLo || bidLevels == 0) topBidIx = NO_BID;
+        if (bidBacked > 0 && newLo < bidLo) {
+            backing.getLevels(Side.BID, window, pagePx, pageQty);
+            for (int pageIx = 0; pageIx < window; pageIx++) {
+                final int price = pagePx[pageIx];
+                if (price == NO_PRICE || price < newLo) break;
+                bids[price & mask] = pageQty[pageIx];
+                bidLevels++;
+                addBacking(Side.BID, price, 0);
+                if (price > topBidIx) topBidIx = price;
+            }
+        }
+        bidLo = newLo;
+    }
+
+    /**
+     * Moves the offer window to [newLo, newLo + window) - pages out whatever it no longer covers, and
+     * pages in any backing levels it now covers. Callers guarantee nothing is left below the new window
+     */
+    private void slideOffers(final int newLo) {
+        final int newHi = newLo + window;
+        final int hi = offerLo + window;
+        if (offerLevels > 0) {
+            for (int price = offerLo; price < hi; price++) {
+                final int ix = price & mask;
+                final int qty = offers[ix];
+                if (qty != 0 && (price < newLo || price >= newHi)) {
+                    offers[ix] = 0;
+                    offerLevels--;
+                    addBacking(Side.OFFER, price, qty);
+                }
+            }
+        }
+        if (topOfferIx >= newHi || offerLevels == 0) topOfferIx = NO_OFFER;
+        if (offerBacked > 0 && newHi > hi) {
+            backing.getLevels(Side.OFFER, window, pagePx, pageQty);
+            for (int pageIx = 0; pageIx < window; pageIx++) {
+                final int price = pagePx[pageIx];
+                if (price == NO_PRICE || price >= newHi) break;
+                offers[price & mask] = pageQty[pageIx];
+                offerLevels++;
+                addBacking(Side.OFFER, price, 0);
+                if (price < topOfferIx) topOfferIx = price;
+            }
+        }
+        offerLo = newLo;
+    }
+
+    private void addBacking(final Side side, final int price, final int quantity) {
+        final boolean existed = backing.get(side, price) != NO_VALUE;
+        backing.add(side, price, quantity);
+        final int delta = quantity == 0 ?
+            (existed ? -1 : 0) :
+            (existed ? 0 : 1);
+        if (side == Side.BID)
+            bidBacked += delta;
+        else
+            offerBacked += delta;
+    }
+
+    private int bestBacked(final Side side) {
+        backing.getLevels(side, 1, topPx, topQty);
+        return topPx[0];
+    }
+
+    @Override
+    public int depth(final Side side) {
+        switch (side) {
+            case BID:
+                return bidLevels + bidBacked;
+            case OFFER:
+                return offerLevels + offerBacked;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void forEach(final Side side, final PriceLevel priceLevel) {
+        switch (side) {
+            case BID:
+                for (int price = topBidIx, seen = 0; seen < bidLevels; price--) {
+                    final int qty = bids[price & mask];
+                    if (qty != 0) {
+                        if (!priceLevel.more(price, qty)) return;
+                        seen++;
+                    }
+                }
+                if (bidBacked > 0) backing.forEach(side, priceLevel);
+                break;
+            case OFFER:
+                for (int price = topOfferIx, seen = 0; seen < offerLevels; price++) {
+                    final int qty = offers[price & mask];
+                    if (qty != 0) {
+                        if (!priceLevel.more(price, qty)) return;
+                        seen++;
+                    }
+                }
+                if (offerBacked > 0) backing.forEach(side, priceLevel);
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
+        switch (side) {
+            case BID:
+                for (int price = topBidIx, seen = 0; seen < bidLevels; price--) {
+                    final int qty = bids[price & mask];
+                    if (qty != 0) {
+                        if (!priceLevel.more(context, price, qty)) return;
+                        seen++;
+                    }
+                }
+                if (bidBacked > 0) backing.forEach(side, context, priceLevel);
+                break;
+            case OFFER:
+                for (int price = topOfferIx, seen = 0; seen < offerLevels; price++) {
+                    final int qty = offers[price & mask];
+                    if (qty != 0) {
+                        if (!priceLevel.more(context, price, qty)) return;
+                        seen++;
+                    }
+                }
+                if (offerBacked > 0) backing.forEach(side, context, priceLevel);
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) {
+        if (level < 0)
+            throw new IllegalArgumentException("level not supported: " + level);
+
+        int outIx = 0, backed;
+        switch (side) {
+            case BID:
+                for (int price = topBidIx, seen = 0; level > 0 && seen < bidLevels; price--) {
+                    final int qty = bids[price & mask];
+                    if (qty != 0) {
+                        outPrices[outIx] = price;
+                        outQty[outIx++] = qty;
+                        level--;
+                        seen++;
+                    }
+                }
+                backed = bidBacked;
+                break;
+            case OFFER:
+                for (int price = topOfferIx, seen = 0; level > 0 && seen < offerLevels; price++) {
+                    final int qty = offers[price & mask];
+                    if (qty != 0) {
+                        outPrices[outIx] = price;
+                        outQty[outIx++] = qty;
+                        level--;
+                        seen++;
+                    }
+                }
+                backed = offerBacked;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        if (level > 0 && backed > 0) {
+            final Collector collector = this.collector;
+            collector.outPrices = outPrices;
+            collector.outQty = outQty;
+            collector.outIx = outIx;
+            collector.remaining = level;
+            backing.forEach(side, collector);
+            outIx = collector.outIx;
+            collector.outPrices = collector.outQty = null;
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
+    }
+
+    @Override
+    public int getMidPrice() {
+        if (topBidIx == NO_BID || topOfferIx == NO_OFFER)
+            return NO_PRICE;
+
+        return (topBidIx + topOfferIx) / 2;
+    }
+
+    @Override
+    public int get(final Side side, final int price) {
+        final int qty;
+        switch (side) {
+            case BID:
+                if (price < bidLo || price >= bidLo + window)
+                    return backing.get(side, price);
+                qty = bids[price & mask];
+                break;
+            case OFFER:
+                if (price < offerLo || price >= offerLo + window)
+                    return backing.get(side, price);
+                qty = offers[price & mask];
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return qty == 0 ? NO_VALUE : qty;
+    }
+
+    @Override
+    public OrderBook clear() {
+        Arrays.fill(bids, 0);
+        Arrays.fill(offers, 0);
+        backing.clear();
+        topBidIx = NO_BID; topOfferIx = NO_OFFER;
+        bidLevels = offerLevels = bidBacked = offerBacked = 0;
+        bidSize = offerSize = 0;
+        return this;
+    }
+}
@@ -0,0 +1,350 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.util.Arrays;
+
+/**
+ * A Direct book indexed by tick rather than by raw price
+ *
+ * The slab holds depth ticks from base - slot (price - base) / tick - so a symbol quoted at 25000.00 with a
+ * 0.10 tick needs one slot per 10 price units, and only as many as the range it trades in, rather than a
+ * slab reaching up from 0. Prices off the tick grid, or outside the slab, are rare and go to a small sorted
+ * overflow per side. Iteration merges the slab and the overflow, so the book reads as one ordered side
+ *
+ * As with {@link BookDirect}, most arguments are not checked - the overflow is only cheap while it is small,
+ * so a symbol that trades away from its slab should be rebased or given a {@link BookDirectSliding}
+ */
+@Builder @ToString(onlyExplicitlyIncluded = true)
+public class BookDirectTick implements OrderBook {
+    /**
+     * Off grid levels for one side, ascending by price
+     */
+    private static final class Overflow {
+        int[] prices = new int[8], qty = new int[8];
+        int n;
+
+        int get(final int price) {
+            final int ix = Arrays.binarySearch(prices, 0, n, price);
+            return ix >= 0 ? qty[ix] : 0;
+        }
+
+        /**
+         * @return the previous quantity, 0 if there was none
+         */
+        int put(final int price, final int quantity) {
+            int ix = Arrays.binarySearch(prices, 0, n, price);
+            if (ix >= 0) {
+                final int old = qty[ix];
+                if (quantity != 0)
+                    qty[ix] = quantity;
+                else {
+                    System.arraycopy(prices, ix + 1, prices, ix, n - ix - 1);
+                    System.arraycopy(qty, ix + 1, qty, ix, n - ix - 1);
+                    n--;
+                }
+                return old;
+            }
+            if (quantity == 0)
+                return 0;
+            if (n == prices.length) {
+                prices = Arrays.copyOf(prices, n * 2);
+                qty = Arrays.copyOf(qty, n * 2);
+            }
+            ix = -ix - 1;
+            System.arraycopy(prices, ix, prices, ix + 1, n - ix);
+            System.arraycopy(qty, ix, qty, ix + 1, n - ix);
+            prices[ix] = price;
+            qty[ix] = quantity;
+            n++;
+            return 0;
+        }
+    }
+
+    /**
+     * Fills getLevels from the merged walk
+     */
+    private static final class Levels {
+        int[] prices, qty;
+        int ix, remaining;
+    }
+
+    private static final PriceLevelWithContext<Levels> FILL = (levels, price, quantity) -> {
+        levels.prices[levels.ix] = price;
+        levels.qty[levels.ix++] = quantity;
+        return --levels.remaining > 0;
+    };
+
+    public static final int NO_OFFER = Integer.MAX_VALUE, NO_BID = Integer.MIN_VALUE;
+
+    @Builder.Default @ToString.Include
+    private int depth = 10;             // Ticks in the slab
+    @Builder.Default @ToString.Include
+    private int base = 0;               // Price of slot 0
+    @Builder.Default @ToString.Include
+    private int tick = 1;
+
+    @Builder.Default @ToString.Include
+    private int topBidIx = NO_BID, topOfferIx = NO_OFFER;     // Slots, the overflow is not included
+
+    @ToString.Include
+    private int bidSlots, offerSlots;   // Levels in the slab, maintained on each add
+
+    @ToString.Include
+    private long bidSize, offerSize;    // Total quantity including the overflow, maintained on each add
+
+    private int[] bids, offers;
+    private Overflow bidOverflow, offerOverflow;
+    private Levels levels;
+
+    @Getter @ToString.Include
+    private long symbolId;
+
+    public BookDirectTick initialiseSlabs() {
+        if (symbolId == 0) throw new IllegalArgumentException("symbolId must be specified");
+        if (tick <= 0) throw new IllegalArgumentException("tick must be positive: " + tick);
+        bids = new int[depth];
+        offers = new int[depth];
+        bidOverflow = new Overflow();
+        offerOverflow = new Overflow();
+        levels = new Levels();
+        return this;
+    }
+
+    /**
+     * @return the slot for price, -1 if it is off the grid or outside the slab
+     */
+    private int slot(final int price) {
+        final long offset = (long)price - base;
+        if (offset < 0 || offset >= (long)depth * tick)
+            return -1;
+        final int ix = (int)offset / tick;
+        return ix * tick == offset ? ix : -1;
+    }
+
+    private int price(final int slot) {
+        return base + slot * tick;
+    }
+
+    /**
+     * @return the number of levels on side held in the overflow rather than the slab
+     */
+    public int overflowLevels(final Side side) {
+        switch (side) {
+            case BID:
+                return bidOverflow.n;
+            case OFFER:
+                return offerOverflow.n;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public OrderBook add(final Side side, final int price, final int quantity) {
+        final int ix = slot(price);
+        switch (side) {
+            case BID:
+                if (ix < 0) {
+                    bidSize += quantity - bidOverflow.put(price, quantity);
+                    break;
+                }
+                final int[] bidQty = bids;
+                final int oldBid = bidQty[ix];
+                bidQty[ix] = quantity;
+                if (quantity != 0) {
+                    if (oldBid == 0) bidSlots++;
+                    bidSize += quantity - oldBid;
+                    if (ix > topBidIx)
+                        topBidIx = ix;
+                } else if (oldBid != 0) {
+                    bidSlots--;
+                    bidSize -= oldBid;
+                    if (topBidIx == ix) { // removed head
+                        int bidIx = ix;
+                        if (bidSlots == 0)
+                            bidIx = NO_BID;
+                        else
+                            while (bidQty[bidIx] == 0) bidIx--;    // Guaranteed to find one
+                        topBidIx = bidIx;
+                    }
+                }
+                break;
+            case OFFER:
+                if (ix < 0) {
+                    offerSize += quantity - offerOverflow.put(price, quantity);
+                    break;
+                }
+                final int[] offerQty = offers;
+                final int oldOffer = offerQty[ix];
+                offerQty[ix] = quantity;
+                if (quantity != 0) {
+                    if (oldOffer == 0) offerSlots++;
+                    offerSize += quantity - oldOffer;
+                    if (ix < topOfferIx)
+                        topOfferIx = ix;
+                } else if (oldOffer != 0) {
+                    offerSlots--;
+                    offerSize -= oldOffer;
+                    if (topOfferIx == ix) { // removed head
+                        int offerIx = ix;
+                        if (offerSlots == 0)
+                            offerIx = NO_OFFER;
+                        else
+                            while (offerQty[offerIx] == 0) offerIx++;    // Guaranteed to find one
+                        topOfferIx = offerIx;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return this;
+    }
+
+    @Override
+    public int depth(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSlots + bidOverflow.n;
+            case OFFER:
+                return offerSlots + offerOverflow.n;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public long totalSize(final Side side) {
+        switch (side) {
+            case BID:
+                return bidSize;
+            case OFFER:
+                return offerSize;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void forEach(final Side side, final PriceLevel priceLevel) {
+        forEach(side, priceLevel, (consumer, price, quantity) -> consumer.more(price, quantity));
+    }
+
+    /**
+     * Merges the slab, walked from the top slot, with the overflow - a price is in one or the other
+     */
+    @Override
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
+        switch (side) {
+            case BID: {
+                final int[] qty = bids, overPrices = bidOverflow.prices, overQty = bidOverflow.qty;
+                int ix = topBidIx, slots = bidSlots, over = bidOverflow.n - 1;
+                while (slots > 0 || over >= 0) {
+                    if (slots > 0) {
+                        while (qty[ix] == 0) ix--;
+                        final int slotPrice = price(ix);
+                        if (over < 0 || slotPrice > overPrices[over]) {
+                            if (!priceLevel.more(context, slotPrice, qty[ix])) return;
+                            ix--;
+                            slots--;
+                            continue;
+                        }
+                    }
+                    if (!priceLevel.more(context, overPrices[over], overQty[over])) return;
+                    over--;
+                }
+                break;
+            }
+            case OFFER: {
+                final int[] qty = offers, overPrices = offerOverflow.prices, overQty = offerOverflow.qty;
+                final int overN = offerOverflow.n;
+                int ix = topOfferIx, slots = offerSlots, over = 0;
+                while (slots > 0 || over < overN) {
+                    if (slots > 0) {
+                        while (qty[ix] == 0) ix++;
+                        final int slotPrice = price(ix);
+                        if (over == overN || slotPrice < overPrices[over]) {
+                            if (!priceLevel.more(context, slotPrice, qty[ix])) return;
+                            ix++;
+                            slots--;
+                            continue;
+                        }
+                    }
+                    if (!priceLevel.more(context, overPrices[over], overQty[over])) return;
+                    over++;
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+    }
+
+    @Override
+    public void getLevels(final Side side, final int level, final int[] outPrices, final int[] outQty) {
+        if (level < 0)
+            throw new IllegalArgumentException("level not supported: " + level);
+        final Levels fill = levels;
+        fill.prices = outPrices;
+        fill.qty = outQty;
+        fill.ix = 0;
+        fill.remaining = level;
+        if (level > 0)
+            forEach(side, fill, FILL);
+        Arrays.fill(outPrices, fill.ix, outPrices.length, NO_PRICE);
+        Arrays.fill(outQty, fill.ix, outQty.length, 0);
+        fill.prices = fill.qty = null;
+    }
+
+    @Override
+    public int getMidPrice() {
+        final int bid, offer;
+        if (topBidIx != NO_BID)
+            bid = bidOverflow.n == 0 ? price(topBidIx) : Math.max(price(topBidIx), bidOverflow.prices[bidOverflow.n - 1]);
+        else if (bidOverflow.n != 0)
+            bid = bidOverflow.prices[bidOverflow.n - 1];
+        else
+            return NO_PRICE;
+        if (topOfferIx != NO_OFFER)
+            offer = offerOverflow.n == 0 ? price(topOfferIx) : Math.min(price(topOfferIx), offerOverflow.prices[0]);
+        else if (offerOverflow.n != 0)
+            offer = offerOverflow.prices[0];
+        else
+            return NO_PRICE;
+
+        return (bid + offer) / 2;
+    }
+
+    @Override
+    public int get(final Side side, final int price) {
+        final int ix = slot(price);
+        final int qty;
+        switch (side) {
+            case BID:
+                qty = ix < 0 ? bidOverflow.get(price) : bids[ix];
+                break;
+            case OFFER:
+                qty = ix < 0 ? offerOverflow.get(price) : offers[ix];
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        return qty == 0 ? NO_VALUE : qty;
+    }
+
+    @Override
+    public OrderBook clear() {
+        Arrays.fill(bids, 0);
+        Arrays.fill(offers, 0);
+        bidOverflow.n = offerOverflow.n = 0;
+        topBidIx = NO_BID; topOfferIx = NO_OFFER;
+        bidSlots = offerSlots = 0;
+        bidSize = offerSize = 0;
+        return this;
+    }
+}
@@ -1,10 +1,11 @@
 package orderbook.impl;
 
 import orderbook.OrderBook;
+import orderbook.OrderBookLong;
 import orderbook.Side;
-import it.unimi.dsi.fastutil.ints.Int2IntRBTreeMap;
-import it.unimi.dsi.fastutil.ints.Int2IntSortedMap;
-import it.unimi.dsi.fastutil.ints.IntComparators;
+import it.unimi.dsi.fastutil.longs.Long2LongRBTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2LongSortedMap;
+import it.unimi.dsi.fastutil.longs.LongComparators;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.val;
@@ -12,19 +13,25 @@ import lombok.val;
 import java.util.Arrays;
 
 /**
- * An implementation of an Order Book using a FastUtil Int2IntRBTreeMap collection
- * This is an Int2Int collection mapping prices to a quantity at that price
+ * An implementation of an Order Book using a FastUtil Long2LongRBTreeMap collection
+ * This is a Long2Long collection mapping prices to a quantity at that price
  * fastutil has anothe rcollection that has very similar characteristics
+ *
+ * Being keyed on long, the same book is also an {@link OrderBookLong} - the int methods widen on the way in
+ * and narrow on the way out, so read a book through the interface it was filled through
  */
 @Builder @AllArgsConstructor
-public class BookFastUtil implements OrderBook {
+public class BookFastUtil implements OrderBook, OrderBookLong {
 //    public int symbolId;
 //    String symbol;
 
     private @Builder.Default
-        Int2IntRBTreeMap bids = new Int2IntRBTreeMap(IntComparators.OPPOSITE_COMPARATOR);
+        Long2LongRBTreeMap bids = new Long2LongRBTreeMap(LongComparators.OPPOSITE_COMPARATOR);
     private @Builder.Default
-        Int2IntRBTreeMap offers = new Int2IntRBTreeMap(IntComparators.NATURAL_COMPARATOR);
+        Long2LongRBTreeMap offers = new Long2LongRBTreeMap(LongComparators.NATURAL_COMPARATOR);
+
+    // Total quantity per side, maintained on each add. The maps already track their own size and first key
+    private long bidSize, offerSize;
 
 //    public Histogram histogram;
 //    int minDelta = Integer.MAX_VALUE;
@@ -33,18 +40,30 @@ public class BookFastUtil implements OrderBook {
 
     @Override
     public int get(final Side side, final int price) {
-        final val levels = getLevels(side);
-        final int oldSize = levels.get(price);
+        final long oldSize = getLevels(side).get(price);
 
-        return oldSize > 0 ? oldSize : NO_VALUE;
+        return oldSize > 0 ? (int)oldSize : OrderBook.NO_VALUE;
+    }
+
+    @Override
+    public long get(final Side side, final long price) {
+        final long oldSize = getLevels(side).get(price);
+
+        return oldSize > 0 ? oldSize : OrderBookLong.NO_VALUE;
     }
 
     @Override
     public OrderBook add(final Side side, final int price, final int quantity) {
+        add(side, (long)price, (long)quantity);
+        return this;
+    }
+
+    @Override
+    public OrderBookLong add(final Side side, final long price, final long quantity) {
         final val levels = getLevels(side);
 
-        final int oldSize = levels.get(price);
-        final int newSize = quantity;    // This is a replacement book - some are incremental
+        final long oldSize = levels.get(price);
+        final long newSize = quantity;    // This is a replacement book - some are incremental
 
         // TODO Ongoing implementation of tracking of price proximity to top distribution
 //        if (trackingDelta && levels.size()>0) {
@@ -61,6 +80,32 @@ public class BookFastUtil implements OrderBook {
         } else {
             levels.remove(price);
         }
+        if (side == Side.BID)
+            bidSize += newSize - oldSize;
+        else
+            offerSize += newSize - oldSize;
+        return this;
+    }
+
+    /**
+     * As add, with the old quantity returned by the put or remove itself - one tree operation per update
+     * rather than a get and then a put
+     */
+    @Override
+    public OrderBook addBatch(final Side[] sides, final int[] prices, final int[] quantities, final int offset, final int len) {
+        for (int ix = offset; ix < offset + len; ix++) {
+            final int price = prices[ix], quantity = quantities[ix];
+            switch (sides[ix]) {
+                case BID:
+                    bidSize += quantity - (quantity > 0 ? bids.put(price, quantity) : bids.remove(price));
+                    break;
+                case OFFER:
+                    offerSize += quantity - (quantity > 0 ? offers.put(price, quantity) : offers.remove(price));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Side not supported: " + sides[ix]);
+            }
+        }
         return this;
     }
 
@@ -72,64 +117,117 @@ public class BookFastUtil implements OrderBook {
     }
 
     @Override
-    public void forEach(final Side side, final PriceLevel priceLevel) {
-        int price, quantity;
-        switch (side) {
-            case BID:
-                final var bidIter = bids.entrySet().iterator();
-                do {
-                    final var bid = bidIter.next();
-                    price = bid.getKey();
-                    quantity = bid.getValue();
-                } while (priceLevel.more(price, quantity) && bidIter.hasNext());
-                break;
-            case OFFER:
-                final var offerIter = offers.entrySet().iterator();
-                do {
-                    final var offer = offerIter.next();
-                    price = offer.getKey();
-                    quantity = offer.getValue();
-                } while (priceLevel.more(price, quantity) && offerIter.hasNext());
-                break;
-            default:
-                throw new IllegalArgumentException("Side not supported: " + side);
+    public long totalSize(final Side side) {
+        return side.equals(Side.BID) ?
+                bidSize :
+                offerSize;
+    }
+
+    /**
+     * Allocates an entry iterator per call - the tree map has no allocation free way to step from one key
+     * to the next, so this is the one book whose iteration is not allocation free
+     */
+    @Override
+    public void forEach(final Side side, final OrderBook.PriceLevel priceLevel) {
+        final var iter = getLevels(side).long2LongEntrySet().iterator();
+        while (iter.hasNext()) {
+            final var entry = iter.next();
+            if (!priceLevel.more((int)entry.getLongKey(), (int)entry.getLongValue())) return;
+        }
+    }
+
+    /**
+     * Allocates an entry iterator per call, as forEach above
+     */
+    @Override
+    public <C> void forEach(final Side side, final C context, final OrderBook.PriceLevelWithContext<C> priceLevel) {
+        final var iter = getLevels(side).long2LongEntrySet().iterator();
+        while (iter.hasNext()) {
+            final var entry = iter.next();
+            if (!priceLevel.more(context, (int)entry.getLongKey(), (int)entry.getLongValue())) return;
+        }
+    }
+
+    /**
+     * Allocates an entry iterator per call, as forEach above
+     */
+    @Override
+    public void forEach(final Side side, final OrderBookLong.PriceLevel priceLevel) {
+        final var iter = getLevels(side).long2LongEntrySet().iterator();
+        while (iter.hasNext()) {
+            final var entry = iter.next();
+            if (!priceLevel.more(entry.getLongKey(), entry.getLongValue())) return;
+        }
+    }
+
+    /**
+     * Allocates an entry iterator per call, as forEach above
+     */
+    @Override
+    public <C> void forEach(final Side side, final C context, final OrderBookLong.PriceLevelWithContext<C> priceLevel) {
+        final var iter = getLevels(side).long2LongEntrySet().iterator();
+        while (iter.hasNext()) {
+            final var entry = iter.next();
+            if (!priceLevel.more(context, entry.getLongKey(), entry.getLongValue())) return;
         }
     }
 
     @Override
     public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) {
         int outIx = 0;
-        final var sideMap = side.equals(Side.BID) ?
-            bids :
-            offers;
-        final var iter = sideMap.entrySet().iterator();
+        final var iter = getLevels(side).long2LongEntrySet().iterator();
         while (iter.hasNext() && level > 0) {
             final var entry = iter.next();
-            outPrices[outIx] = entry.getKey();
-            outQty[outIx] = entry.getValue();
+            outPrices[outIx] = (int)entry.getLongKey();
+            outQty[outIx] = (int)entry.getLongValue();
             outIx++;
             level--;
         }
         // Fill any entries left unfilled so far
-        Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
+        Arrays.fill(outPrices, outIx, outPrices.length, OrderBook.NO_PRICE);
+        Arrays.fill(outQty, outIx, outQty.length, 0);
+    }
+
+    @Override
+    public void getLevels(final Side side, int level, final long[] outPrices, final long[] outQty) {
+        int outIx = 0;
+        final var iter = getLevels(side).long2LongEntrySet().iterator();
+        while (iter.hasNext() && level > 0) {
+            final var entry = iter.next();
+            outPrices[outIx] = entry.getLongKey();
+            outQty[outIx] = entry.getLongValue();
+            outIx++;
+            level--;
+        }
+        Arrays.fill(outPrices, outIx, outPrices.length, OrderBookLong.NO_PRICE);
         Arrays.fill(outQty, outIx, outQty.length, 0);
     }
 
     @Override
     public int getMidPrice() {
-        final var bidTop = getLevels(Side.BID).firstIntKey();
-        final var bidOffer = getLevels(Side.OFFER).firstIntKey();
-        return (bidTop + bidOffer) / 2;
+        if (bids.isEmpty() || offers.isEmpty())
+            return OrderBook.NO_PRICE;
+
+        return (int)((bids.firstLongKey() + offers.firstLongKey()) / 2);
+    }
+
+    @Override
+    public long getMidPriceLong() {
+        if (bids.isEmpty() || offers.isEmpty())
+            return OrderBookLong.NO_PRICE;
+
+        return (bids.firstLongKey() + offers.firstLongKey()) >>> 1;
     }
 
-    private Int2IntSortedMap getLevels(final Side side) {
+    private Long2LongSortedMap getLevels(final Side side) {
         return side == Side.BID ? bids : offers;
     }
 
     @Override
-    public OrderBook clear() {
+    public BookFastUtil clear() {
         bids.clear();
         offers.clear();
+        bidSize = offerSize = 0;
         return this;
     }
 }
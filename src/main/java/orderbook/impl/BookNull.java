@@ -23,10 +23,19 @@ public class BookNull implements OrderBook {
         return 0;
     }
 
+    @Override
+    public long totalSize(final Side side) {
+        return 0;
+    }
+
     @Override
     public void forEach(Side side, PriceLevel priceLevel) {
     }
 
+    @Override
+    public <C> void forEach(final Side side, final C context, final PriceLevelWithContext<C> priceLevel) {
+    }
+
     @Override
     public void getLevels(final Side side, final int level, final int[] outPrices, final int[] outQty) {
     }
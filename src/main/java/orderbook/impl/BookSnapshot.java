@@ -0,0 +1,88 @@
+package orderbook.impl;
+
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * The top levels of a book, published by the thread that owns the book for any number of other threads to read
+ *
+ * A seqlock - the owner bumps the sequence to odd, copies the levels in, and bumps it back to even. A reader
+ * copies the levels out between two reads of the sequence and retries if they differ (or were odd), so it
+ * never sees a torn view. Neither side locks or allocates, and the owner never waits for readers - a reader
+ * racing a busy owner simply retries
+ */
+public class BookSnapshot {
+    private static final VarHandle SEQUENCE;
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(BookSnapshot.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final OrderBook book;
+    private final int levels;
+    private final int[] bidPrices, bidQty, offerPrices, offerQty;
+    private long sequence;      // Odd while the owner is copying
+    boolean dirty;              // Owner only - updated since last published
+
+    public BookSnapshot(final OrderBook book, final int levels) {
+        this.book = book;
+        this.levels = levels;
+        bidPrices = new int[levels];
+        bidQty = new int[levels];
+        offerPrices = new int[levels];
+        offerQty = new int[levels];
+        Arrays.fill(bidPrices, OrderBook.NO_PRICE);
+        Arrays.fill(offerPrices, OrderBook.NO_PRICE);
+    }
+
+    /**
+     * Owner only - copies the top levels of the book
+     */
+    public void publish() {
+        final long s = (long)SEQUENCE.getOpaque(this);
+        SEQUENCE.setOpaque(this, s + 1);
+        VarHandle.storeStoreFence();
+        book.getLevels(Side.BID, levels, bidPrices, bidQty);
+        book.getLevels(Side.OFFER, levels, offerPrices, offerQty);
+        SEQUENCE.setRelease(this, s + 2);
+    }
+
+    /**
+     * Copies the last published levels - as {@link OrderBook#getLevels}, missing levels are NO_PRICE. Each
+     * array must hold at least {@link #levels()}
+     * @return the version copied, the number of publications - 0 if nothing has been published yet
+     */
+    public long read(final int[] outBidPrices, final int[] outBidQty, final int[] outOfferPrices, final int[] outOfferQty) {
+        for (;;) {
+            final long before = (long)SEQUENCE.getAcquire(this);
+            if ((before & 1) == 0) {
+                System.arraycopy(bidPrices, 0, outBidPrices, 0, levels);
+                System.arraycopy(bidQty, 0, outBidQty, 0, levels);
+                System.arraycopy(offerPrices, 0, outOfferPrices, 0, levels);
+                System.arraycopy(offerQty, 0, outOfferQty, 0, levels);
+                VarHandle.loadLoadFence();
+                if ((long)SEQUENCE.getOpaque(this) == before)
+                    return before >>> 1;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return the number of publications so far - a reader can skip a copy if it has not changed
+     */
+    public long version() {
+        return (long)SEQUENCE.getAcquire(this) >>> 1;
+    }
+
+    public int levels() {
+        return levels;
+    }
+}
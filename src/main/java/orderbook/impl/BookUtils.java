@@ -8,48 +8,63 @@ import java.util.Arrays;
 
 /**
  * General algorithms to traverse the book according to some criteria
- * Unfortunately, because they use lambda, they cannot easily keep state without
- * allocating so they are not garbage free.
- * One way to avoid this might be to implement delegate management to the caller but it
- * leads to a more awkward API
+ * Each keeps its state, including its limit, in a caller supplied Working object which is passed
+ * through {@link OrderBook#forEach(Side, Object, OrderBook.PriceLevelWithContext)} to a static,
+ * non capturing visitor - so, given a reused Working object, a query does not allocate.
+ * The overloads without a Working object allocate one per call for convenience
  */
 public class BookUtils {
-    private static final int CT = 0;
-    private static final int SIZE = 1;
 
     @ToString
     public static class WorkingSizeUpToLevel {
-        int ct, size;
+        int ct, size, level;
     }
+
+    private static final OrderBook.PriceLevelWithContext<WorkingSizeUpToLevel> SIZE_UP_TO_LEVEL =
+        (working, price, size) -> {
+            working.size += size; working.ct++;
+            return working.ct < working.level;
+        };
+
+    /**
+     * Gets the total size available up to the specified level on that side of the book
+     * An empty price level does not count to the levels consumed
+     * If the side is exhausted, no error will be emitted and no further size will be accumulated
+     * Two version, one with passed in working space to avoid allocation
+     *
+     * @param side  to access
+     * @param level to decend to
+     * @return the total size available - 0 if none
+     */
     public static int getSizeUpToLevel(final OrderBook book, final Side side, final int level) {
         return getSizeUpToLevel(book, side, level, new WorkingSizeUpToLevel());
     }
     public static int getSizeUpToLevel(final OrderBook book, final Side side, final int level, final WorkingSizeUpToLevel working) {
-        // TODO How do we avoid allocating a closure to access WorkingSizeUpToLevel
         working.ct = working.size = 0;
-        book.forEach(side, (price, size) -> {
-            //System.out.printf(" %s %d %d\n", side, price, size);
-            working.size += size; working.ct++;
-            return working.ct < level;
-        });
+        working.level = level;
+        book.forEach(side, working, SIZE_UP_TO_LEVEL);
         return working.size;
     }
 
     @ToString
     public static class WorkingLevelSatisfyingSize {
-        int ct, size;
+        int ct, size, quantity;
     }
 
+    private static final OrderBook.PriceLevelWithContext<WorkingLevelSatisfyingSize> LEVEL_SATISFYING_SIZE =
+        (working, price, size) -> {
+            working.size += size; working.ct++;
+            return working.size < working.quantity;
+        };
+
     /**
-     * Gets the total size available up to the specified level on that side of the book
-     * An empty price level count as 0 size
-     * An empty price level does not count to the levels consumed
-     * If the side is exhausted, no error will lbe emitted and no further size will be accumulated
+     * Gets the number of levels needed, from the top, to accumulate at least quantity on that side
+     * If the side is exhausted, the number of levels available is returned
      * Two version, one with passed in working space to avoid allocation
      *
-     * @param side  to access
-     * @param level to decend to
-     * @return the total size available - 0 if none
+     * @param side     to access
+     * @param quantity to satisfy
+     * @return the number of levels consumed - 0 if none
      */
     public static int getLevelSatisfyingSize(final OrderBook book, final Side side, final int quantity) {
         return getLevelSatisfyingSize(book, side, quantity, new WorkingLevelSatisfyingSize());
@@ -57,62 +72,44 @@ public class BookUtils {
     public static int getLevelSatisfyingSize(final OrderBook book, final Side side, final int quantity,
             final WorkingLevelSatisfyingSize working) {
         working.ct = working.size = 0;
-        book.forEach(side, (price, size) -> {
-            //System.out.printf(" %s %d %d\n", side, price, size);
-            working.size += size; working.ct++;
-            return working.size < quantity;
-        });
+        working.quantity = quantity;
+        book.forEach(side, working, LEVEL_SATISFYING_SIZE);
         return working.ct;
     }
 
-
-
+    @ToString
     public static class WorkingLevels {
-        int ct, size;
+        int ct, level;
+        int[] outPrices, outQty;
     }
-//    public void getLevels(final Side side, int level, final int[] outPrices, final int[] outQty) { // TODO Consolidate with BookUtils/forEach
-//        if (level < 0)
-//            throw new IllegalArgumentException("level not supported: " + level);
-//
-//        switch (side) {
-//            case BID:
-//                final int[] bids = slab.bids;
-//                int bidIx = (int)topBidIx;
-//                int outIx = 0;
-//                while (level > 0 && bidIx >= 0) {
-//                    final int qty = bids[bidIx];
-//                    if (qty != 0) {
-//                        outPrices[outIx] = bidIx;
-//                        outQty[outIx] = qty;
-//                        outIx++;
-//                        level--;
-//                    }
-//                    bidIx--;
-//                }
-//                Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
-//                Arrays.fill(outQty, outIx, outQty.length, 0);
-//                break;
-//            case OFFER:
-//                final int[] offers = slab.offers;
-//                int offerIx = (int)topOfferIx;
-//                outIx = 0;
-//                while (level > 0 && offerIx < depth) {
-//                    final int qty = offers[offerIx];
-//                    if (qty != 0) {
-//                        outPrices[outIx] = offerIx;
-//                        outQty[outIx] = qty;
-//                        outIx++;
-//                        level--;
-//                    }
-//                    offerIx++;
-//                }
-//                Arrays.fill(outPrices, outIx, outPrices.length, NO_PRICE);
-//                Arrays.fill(outQty, outIx, outQty.length, 0);
-//                break;
-//            default:
-//                throw new IllegalArgumentException("Side not supported: " + side);
-//        }
-//    }
 
-}
+    private static final OrderBook.PriceLevelWithContext<WorkingLevels> LEVELS =
+        (working, price, size) -> {
+            working.outPrices[working.ct] = price;
+            working.outQty[working.ct++] = size;
+            return working.ct < working.level;
+        };
 
+    /**
+     * A generic {@link OrderBook#getLevels} for any book, built on forEach
+     * Entries beyond the levels available are filled with NO_PRICE and 0
+     *
+     * @param side  to access
+     * @param level to decend to
+     */
+    public static void getLevels(final OrderBook book, final Side side, final int level,
+            final int[] outPrices, final int[] outQty, final WorkingLevels working) {
+        if (level < 0)
+            throw new IllegalArgumentException("level not supported: " + level);
+
+        working.ct = 0;
+        working.level = level;
+        working.outPrices = outPrices;
+        working.outQty = outQty;
+        if (level > 0)
+            book.forEach(side, working, LEVELS);
+        working.outPrices = working.outQty = null;    // Don't hold on to the caller's arrays
+        Arrays.fill(outPrices, working.ct, outPrices.length, OrderBook.NO_PRICE);
+        Arrays.fill(outQty, working.ct, outQty.length, 0);
+    }
+}
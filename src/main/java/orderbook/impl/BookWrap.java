@@ -49,6 +49,14 @@ public class BookWrap implements OrderBook {
         orderBook.forEach(side, priceLevel);
     }
 
+    @Override
+    public <C> void forEach(Side side, C context, PriceLevelWithContext<C> priceLevel) {
+        if (priceLevel == null)
+            throw new IllegalArgumentException("Null priceLevel");
+        checkSide(side);
+        orderBook.forEach(side, context, priceLevel);
+    }
+
     @Override
     public OrderBook add(final Side side, final int price, final int quantity) {
         if (price < 0 || price > maxPrice)
@@ -70,6 +78,12 @@ public class BookWrap implements OrderBook {
         return orderBook.depth(side);
     }
 
+    @Override
+    public long totalSize(final Side side) {
+        checkSide(side);
+        return orderBook.totalSize(side);
+    }
+
     @Override
     public void getLevels(final Side side, final int level, final int[] outPrices, final int[] outQty) {
         if (level < 1 || level > maxLevel)
@@ -0,0 +1,198 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import orderbook.Instrument;
+import orderbook.Market;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact snapshots of every book in a {@link Market}, each as at a {@link Journal} sequence
+ *
+ * A checkpoint holds each instrument and only the non zero levels of its book, little endian
+ * <pre>
+ *   header  int magic, int version, int books, long sequence
+ *   book    long symbolId, byte bookType, int tickSize, int priceScale, int quantityScale, int depth, int window,
+ *           int basePrice, int bids, int offers, then (int price, int quantity) per bid then per offer, best first
+ * </pre>
+ * The version changes with every change to the layout, and a checkpoint of any other version is rejected
+ * rather than misread. It is written to a temporary file and moved into place, so a crash mid write leaves the previous
+ * checkpoint as the latest. Recovery loads the latest checkpoint then replays the journal from its
+ * sequence - the journal up to then is no longer needed
+ */
+@Builder
+public class Checkpoint {
+    public static final int MAGIC = 0x564B4350;     // "PCKV" little endian
+    public static final int VERSION = 1;
+    static final int HEADER = 20;
+    static final int BOOK = 8 + 1 + 4 * 6 + 4 * 2;
+    static final String PREFIX = "checkpoint-", SUFFIX = ".ckp";
+
+    private Path dir;
+    @Builder.Default
+    private int keep = 2;           // Checkpoints kept - older ones are deleted on writing a new one
+
+    /**
+     * Where a book's levels are written to, for the forEach visitor
+     */
+    private static final class Cursor {
+        ByteBuffer out;
+        int offset, ct;
+    }
+
+    private static final OrderBook.PriceLevelWithContext<Cursor> WRITE_LEVEL = (cursor, price, qty) -> {
+        cursor.out.putInt(cursor.offset, price);
+        cursor.out.putInt(cursor.offset + 4, qty);
+        cursor.offset += 8;
+        cursor.ct++;
+        return true;
+    };
+
+    /**
+     * Writes every book in market as at sequence - only while nothing is updating the market
+     * @return the checkpoint written
+     */
+    public Path write(final Market market, final long sequence) throws IOException {
+        final long[] size = {HEADER};
+        market.forEach((instrument, book) ->
+            size[0] += BOOK + 8L * (book.depth(Side.BID) + book.depth(Side.OFFER)));
+        if (size[0] > Integer.MAX_VALUE)
+            throw new IOException("Market too large for a checkpoint: " + size[0]);
+
+        Files.createDirectories(dir);
+        final Path tmp = dir.resolve(PREFIX + sequence + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size[0]);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(0, MAGIC);
+            out.putInt(4, VERSION);
+            out.putInt(8, market.size());
+            out.putLong(12, sequence);
+            final Cursor cursor = new Cursor();
+            cursor.out = out;
+            cursor.offset = HEADER;
+            market.forEach((instrument, book) -> {
+                final int at = cursor.offset;
+                out.putLong(at, instrument.getSymbolId());
+                out.put(at + 8, (byte)instrument.getBookType().ordinal());
+                out.putInt(at + 9, instrument.getTickSize());
+                out.putInt(at + 13, instrument.getPriceScale());
+                out.putInt(at + 17, instrument.getQuantityScale());
+                out.putInt(at + 21, instrument.getDepth());
+                out.putInt(at + 25, instrument.getWindow());
+                out.putInt(at + 29, instrument.getBasePrice());
+                cursor.offset = at + BOOK;
+                cursor.ct = 0;
+                book.forEach(Side.BID, cursor, WRITE_LEVEL);
+                out.putInt(at + 33, cursor.ct);
+                cursor.ct = 0;
+                book.forEach(Side.OFFER, cursor, WRITE_LEVEL);
+                out.putInt(at + 37, cursor.ct);
+            });
+            out.force();
+        }
+        final Path file = dir.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        final List<Path> all = list();
+        for (int ix = 0; ix < all.size() - keep; ix++)
+            Files.delete(all.get(ix));
+        return file;
+    }
+
+    /**
+     * Registers and fills the books of the latest checkpoint into market, which should be empty
+     * @return the sequence of the checkpoint, 0 if there is none
+     * @throws IOException if the latest checkpoint is not one, or of a version not supported
+     */
+    public long load(final Market market) throws IOException {
+        final List<Path> all = list();
+        if (all.isEmpty())
+            return 0;
+        final Instrument.BookType[] types = Instrument.BookType.values();
+        try (FileChannel channel = FileChannel.open(all.get(all.size() - 1), StandardOpenOption.READ)) {
+            final MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if (in.limit() < HEADER || in.getInt(0) != MAGIC)
+                throw new IOException("Not a checkpoint: " + all.get(all.size() - 1));
+            if (in.getInt(4) != VERSION)
+                throw new IOException("Checkpoint version not supported: " + in.getInt(4) + " in " + all.get(all.size() - 1));
+            final int books = in.getInt(8);
+            int at = HEADER;
+            for (int bookIx = 0; bookIx < books; bookIx++) {
+                final long symbolId = in.getLong(at);
+                final OrderBook book = market.register(Instrument.builder()
+                    .symbolId(symbolId)
+                    .symbol(Decoders.fromLongChar8(symbolId))
+                    .bookType(types[in.get(at + 8)])
+                    .tickSize(in.getInt(at + 9))
+                    .priceScale(in.getInt(at + 13))
+                    .quantityScale(in.getInt(at + 17))
+                    .depth(in.getInt(at + 21))
+                    .window(in.getInt(at + 25))
+                    .basePrice(in.getInt(at + 29))
+                    .build());
+                final int bids = in.getInt(at + 33), offers = in.getInt(at + 37);
+                at += BOOK;
+                // Best first, so a windowed book settles on its top before the deeper levels arrive
+                for (int ix = 0; ix < bids; ix++, at += 8)
+                    book.add(Side.BID, in.getInt(at), in.getInt(at + 4));
+                for (int ix = 0; ix < offers; ix++, at += 8)
+                    book.add(Side.OFFER, in.getInt(at), in.getInt(at + 4));
+            }
+            return in.getLong(12);
+        }
+    }
+
+    /**
+     * Loads the latest checkpoint into market, which should be empty, then replays journal from it
+     * @return the journal sequence recovered to
+     */
+    public long recover(final Market market, final Path journal) throws IOException {
+        final long sequence = load(market);
+        if (!Files.exists(journal))
+            return sequence;
+        return sequence + Journal.replay(journal, sequence, (stamp, symbolId, side, price, qty) -> {
+            final OrderBook book = market.bookOrRegister(symbolId);
+            switch (side) {
+                case BID:
+                case OFFER:
+                    book.add(side, price, qty);
+                    break;
+                case CLEAR:
+                    book.clear();
+                    break;
+            }
+        });
+    }
+
+    /**
+     * @return the checkpoints in dir, oldest first
+     */
+    private List<Path> list() throws IOException {
+        final List<Path> all = new ArrayList<>();
+        if (!Files.isDirectory(dir))
+            return all;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (final Path file : stream)
+                all.add(file);
+        }
+        Collections.sort(all);
+        return all;
+    }
+}
@@ -0,0 +1,163 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import orderbook.Decoder;
+import orderbook.Side;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Coalesces updates to the same level (symbol, side, price) between flushes, keeping only the last quantity
+ *
+ * Sits between a decoder and the {@link Decoder.Add} that applies to the books. An L2 update sets a level's
+ * quantity outright, so only the last update to a level matters - a burst of updates to a few levels reaches
+ * the books as one write per level, and the books end in the same state as if every update had been applied.
+ * Levels are flushed in the order they were last updated, each with the stamp of its last update, so stamps
+ * downstream keep the order they arrived in - a {@link Journal} behind a Conflater stays in stamp order
+ *
+ * Pending levels are held in an open addressed table of primitive arrays, reset level by level after each
+ * flush, so nothing is allocated. A flush happens when flush() is called, when maxLevels are pending, or
+ * (maxDelayNanos set) once the first pending update is older than that - checked on each update and by poll(),
+ * which a reader can call between batches. A CLEAR flushes what is pending then passes straight through, so
+ * updates are never applied across a clear out of order
+ */
+@Builder
+public class Conflater implements Decoder.Add {
+    private static final int NONE = -1;
+
+    private Decoder.Add downstream;
+    @Builder.Default
+    private int maxLevels = 1024;           // Pending before a flush
+    @Builder.Default
+    private long maxDelayNanos = 0;         // Since the first pending update - 0 for no limit
+    @Builder.Default
+    private LongSupplier clock = System::nanoTime;
+
+    private long[] symbolIds, stamps;       // Per slot
+    private int[] prices, quantities;
+    private Side[] sides;                   // null for an empty slot
+    private int[] before, after;            // Per slot - the pending slots as a list, in the order last updated
+    private int first, last;                // Ends of the list, NONE if empty
+    private int pending, shift;
+    private long since;                     // When the first pending update arrived, with maxDelayNanos
+
+    @Getter
+    private long updates, writes, flushes;  // Running totals - updates in, writes out
+
+    public Conflater init() {
+        if (downstream == null) throw new IllegalArgumentException("downstream must be specified");
+        if (maxLevels <= 0) throw new IllegalArgumentException("maxLevels must be positive: " + maxLevels);
+        final int n = Integer.highestOneBit(Math.max(maxLevels, 2) * 4 - 1);     // At most half full
+        symbolIds = new long[n];
+        stamps = new long[n];
+        prices = new int[n];
+        quantities = new int[n];
+        sides = new Side[n];
+        before = new int[n];
+        after = new int[n];
+        first = last = NONE;
+        shift = 64 - Integer.numberOfTrailingZeros(n);
+        pending = 0;
+        return this;
+    }
+
+    @Override
+    public void apply(final long stamp, final long symbolId, final Side side, final int entryPx, final int entrySize) {
+        updates++;
+        switch (side) {
+            case BID:
+            case OFFER:
+                put(stamp, symbolId, side, entryPx, entrySize);
+                break;
+            case CLEAR:
+                flush();
+                writes++;
+                downstream.apply(stamp, symbolId, side, entryPx, entrySize);
+                return;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        if (pending == maxLevels || maxDelayNanos > 0 && clock.getAsLong() - since >= maxDelayNanos)
+            flush();
+    }
+
+    /**
+     * Flushes if the first pending update is older than maxDelayNanos
+     * @return true if it flushed
+     */
+    public boolean poll() {
+        if (pending == 0 || maxDelayNanos <= 0 || clock.getAsLong() - since < maxDelayNanos)
+            return false;
+        flush();
+        return true;
+    }
+
+    /**
+     * Passes the last update to each pending level downstream
+     */
+    public void flush() {
+        if (pending == 0) return;
+        for (int slot = first; slot != NONE; slot = after[slot]) {
+            downstream.apply(stamps[slot], symbolIds[slot], sides[slot], prices[slot], quantities[slot]);
+            sides[slot] = null;
+        }
+        first = last = NONE;
+        writes += pending;
+        pending = 0;
+        flushes++;
+    }
+
+    /**
+     * @return the levels waiting to be flushed
+     */
+    public int pending() {
+        return pending;
+    }
+
+    private void put(final long stamp, final long symbolId, final Side side, final int price, final int quantity) {
+        final int mask = sides.length - 1;
+        int slot = (int)(((symbolId + price * 0x9E3779B97F4A7C15L + side.ordinal()) * 0xC2B2AE3D27D4EB4FL) >>> shift);
+        for (Side at; (at = sides[slot]) != null; slot = (slot + 1) & mask) {
+            if (at == side && prices[slot] == price && symbolIds[slot] == symbolId) {
+                stamps[slot] = stamp;
+                quantities[slot] = quantity;
+                if (slot != last) {     // Moves to the back of the list
+                    unlink(slot);
+                    append(slot);
+                }
+                return;
+            }
+        }
+        if (pending == 0 && maxDelayNanos > 0)
+            since = clock.getAsLong();
+        sides[slot] = side;
+        symbolIds[slot] = symbolId;
+        prices[slot] = price;
+        stamps[slot] = stamp;
+        quantities[slot] = quantity;
+        append(slot);
+        pending++;
+    }
+
+    private void append(final int slot) {
+        before[slot] = last;
+        after[slot] = NONE;
+        if (last == NONE)
+            first = slot;
+        else
+            after[last] = slot;
+        last = slot;
+    }
+
+    private void unlink(final int slot) {
+        if (before[slot] == NONE)
+            first = after[slot];
+        else
+            after[before[slot]] = after[slot];
+        if (after[slot] == NONE)
+            last = before[slot];
+        else
+            before[after[slot]] = before[slot];
+    }
+}
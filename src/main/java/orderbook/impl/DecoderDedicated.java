@@ -1,5 +1,7 @@
 package orderbook.impl;
 
+import orderbook.ByteDecoder;
+import orderbook.ByteSplitter;
 import orderbook.Decoder;
 import orderbook.Side;
 import orderbook.Splitter;
@@ -8,9 +10,10 @@ import lombok.Builder;
 /**
  * A faster decoder, using converters dedicate to the format
  * Brings better performance than a generalised converter
+ * The same fields can be decoded from a {@link ByteSplitter}, straight from the raw bytes
  */
 @Builder
-public class DecoderDedicated implements Decoder {
+public class DecoderDedicated implements Decoder, ByteDecoder {
 
     public static final int STAMP = 1;
     public static final int ENTRY_SIZE = 7;
@@ -27,4 +30,14 @@ public class DecoderDedicated implements Decoder {
         final long symbolId = split.toLong(SYMBOL, Decoders::toLongChar8);
         if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
     }
+
+    @Override
+    public void decode(final ByteSplitter split, final Add add) {
+        final Side side = Decoders.toSide(split.toChar(SIDE, Decoders::toChar));
+        final int entrySize = (int)split.toLong(ENTRY_SIZE, Decoders::toLongChar2);
+        final int entryPx = (int)split.toLong(ENTRY_PX, Decoders::toLongChar2);
+        final long stamp = split.toLong(STAMP, Decoders::toLongStamp10);
+        final long symbolId = split.toLong(SYMBOL, Decoders::toLongChar8);
+        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
+    }
 }
@@ -0,0 +1,50 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import orderbook.ByteDecoder;
+import orderbook.ByteSplitter;
+import orderbook.Decoder;
+import orderbook.Side;
+import orderbook.Splitter;
+
+/**
+ * {@link DecoderDedicated}, with the symbol interned by a {@link SymbolDictionary} rather than packed into a long
+ *
+ * The symbolId handed on is the symbol's dense id in the dictionary, so the consumer routes with
+ * dictionary.book((int)symbolId) - an array index. Symbols of any length are told apart, and symbols not
+ * yet in the dictionary are registered on first sight
+ */
+@Builder
+public class DecoderInterned implements Decoder, ByteDecoder {
+    private SymbolDictionary dictionary;
+
+    private Splitter.ToLongFunction internChars;        // Bound once, so decoding does not allocate
+    private ByteSplitter.ToLongFunction internBytes;
+
+    public DecoderInterned init() {
+        if (dictionary == null) throw new IllegalArgumentException("dictionary must be specified");
+        internChars = dictionary::idOrRegister;
+        internBytes = dictionary::idOrRegister;
+        return this;
+    }
+
+    @Override
+    public void decode(final Splitter split, final Add add) {
+        final Side side = Decoders.toSide(split.toChar(DecoderDedicated.SIDE, Decoders::toChar));
+        final int entrySize = (int)split.toLong(DecoderDedicated.ENTRY_SIZE, Decoders::toLongChar2);
+        final int entryPx = (int)split.toLong(DecoderDedicated.ENTRY_PX, Decoders::toLongChar2);
+        final long stamp = split.toLong(DecoderDedicated.STAMP, Decoders::toLongStamp10);
+        final long symbolId = split.toLong(DecoderDedicated.SYMBOL, internChars);
+        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
+    }
+
+    @Override
+    public void decode(final ByteSplitter split, final Add add) {
+        final Side side = Decoders.toSide(split.toChar(DecoderDedicated.SIDE, Decoders::toChar));
+        final int entrySize = (int)split.toLong(DecoderDedicated.ENTRY_SIZE, Decoders::toLongChar2);
+        final int entryPx = (int)split.toLong(DecoderDedicated.ENTRY_PX, Decoders::toLongChar2);
+        final long stamp = split.toLong(DecoderDedicated.STAMP, Decoders::toLongStamp10);
+        final long symbolId = split.toLong(DecoderDedicated.SYMBOL, internBytes);
+        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
+    }
+}
@@ -0,0 +1,50 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import orderbook.ByteSplitter;
+import orderbook.DecoderLong;
+import orderbook.Instrument;
+import orderbook.Market;
+import orderbook.Side;
+import orderbook.Splitter;
+
+/**
+ * Decodes the same fields as {@link DecoderDedicated} to long prices and quantities, each scaled to its
+ * symbol's {@link Instrument} priceScale and quantityScale (or the defaults, for symbols the market does not
+ * know). Up to 18 decimal places are accepted - more, a value that does not fit the scale exactly, or one
+ * that overflows, is an exception rather than a silently different price
+ */
+@Builder
+public class DecoderScaled implements DecoderLong {
+    private Market market;          // Optional - for per symbol scales
+    @Builder.Default
+    private int priceScale = 8;
+    @Builder.Default
+    private int quantityScale = 8;
+
+    @Override
+    public void decode(final Splitter split, final AddLong add) {
+        final Side side = Decoders.toSide(split.toChar(DecoderDedicated.SIDE, Decoders::toChar));
+        final long stamp = split.toLong(DecoderDedicated.STAMP, Decoders::toLongStamp10);
+        final long symbolId = split.toLong(DecoderDedicated.SYMBOL, Decoders::toLongChar8);
+        final Instrument instrument = market != null ? market.instrument(symbolId) : null;
+        final long entryPx = Decoders.rescale(split.toLong(DecoderDedicated.ENTRY_PX, Decoders::toLongDecimal),
+            instrument != null ? instrument.getPriceScale() : priceScale);
+        final long entrySize = Decoders.rescale(split.toLong(DecoderDedicated.ENTRY_SIZE, Decoders::toLongDecimal),
+            instrument != null ? instrument.getQuantityScale() : quantityScale);
+        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
+    }
+
+    @Override
+    public void decode(final ByteSplitter split, final AddLong add) {
+        final Side side = Decoders.toSide(split.toChar(DecoderDedicated.SIDE, Decoders::toChar));
+        final long stamp = split.toLong(DecoderDedicated.STAMP, Decoders::toLongStamp10);
+        final long symbolId = split.toLong(DecoderDedicated.SYMBOL, Decoders::toLongChar8);
+        final Instrument instrument = market != null ? market.instrument(symbolId) : null;
+        final long entryPx = Decoders.rescale(split.toLong(DecoderDedicated.ENTRY_PX, Decoders::toLongDecimal),
+            instrument != null ? instrument.getPriceScale() : priceScale);
+        final long entrySize = Decoders.rescale(split.toLong(DecoderDedicated.ENTRY_SIZE, Decoders::toLongDecimal),
+            instrument != null ? instrument.getQuantityScale() : quantityScale);
+        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
+    }
+}
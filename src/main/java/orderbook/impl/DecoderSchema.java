@@ -0,0 +1,160 @@
+package orderbook.impl;
+
+import orderbook.ByteDecoder;
+import orderbook.Decoder;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A decoder generated from a {@link Schema} - each field is read from its own index with its own converter,
+ * just as {@link DecoderDedicated} is written by hand for its layout
+ *
+ * {@link #compile(Schema)} writes the source for the schema, compiles it in memory and defines it as a hidden
+ * class in this package. The converters are constant method references at their own call sites, so they
+ * inline as in DecoderDedicated - there is no table of converters or dispatch per field. Compiling takes
+ * a moment and needs a JDK (the java.compiler module), so decoders are best generated once, at startup
+ */
+public abstract class DecoderSchema implements Decoder, ByteDecoder {
+    static final String NAME = "DecoderSchemaGenerated";
+
+    private Schema schema;
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @throws IllegalStateException if there is no compiler or the generated source does not compile to one class
+     */
+    public static DecoderSchema compile(final Schema schema) {
+        final String source = source(schema);
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IllegalStateException("No Java compiler - decoders can only be generated on a JDK");
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        final List<String> outputs = new ArrayList<>();     // Every class shares classBytes, so there must be one
+        final JavaFileManager files = new ForwardingJavaFileManager<>(compiler.getStandardFileManager(diagnostics, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(final Location location, final String className,
+                                                       final JavaFileObject.Kind kind, final FileObject sibling) {
+                outputs.add(className);
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return classBytes;
+                    }
+                };
+            }
+        };
+        final JavaFileObject unit = new SimpleJavaFileObject(URI.create("string:///" + NAME + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        final List<String> options = List.of("-proc:none", "-classpath", classPath());
+        if (!compiler.getTask(null, files, diagnostics, options, null, List.of(unit)).call())
+            throw new IllegalStateException("Generated decoder does not compile: " + diagnostics.getDiagnostics() + "\n" + source);
+        if (outputs.size() != 1)
+            throw new IllegalStateException("Generated decoder must compile to one class: " + outputs);
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup()
+                .defineHiddenClass(classBytes.toByteArray(), true);
+            final DecoderSchema decoder = (DecoderSchema)lookup.findConstructor(lookup.lookupClass(),
+                MethodType.methodType(void.class)).invoke();
+            decoder.schema = schema;
+            return decoder;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Generated decoder could not be defined", e);
+        }
+    }
+
+    /**
+     * The classes the generated source refers to, wherever they were loaded from, ahead of the JVM classpath
+     */
+    private static String classPath() {
+        try {
+            final String own = Path.of(DecoderSchema.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+            final String api = Path.of(Decoder.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+            return own + File.pathSeparator + api + File.pathSeparator + System.getProperty("java.class.path");
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the source of the decoder for schema
+     */
+    static String source(final Schema schema) {
+        // The same statements serve both splitters - each method reference resolves to the CharSequence or
+        // ByteBuffer converter its splitter takes
+        final StringBuilder body = new StringBuilder();
+        for (final Schema.Field field : new Schema.Field[]{Schema.Field.SIDE, Schema.Field.QUANTITY,
+            Schema.Field.PRICE, Schema.Field.STAMP, Schema.Field.SYMBOL})
+            body.append("        ").append(field(field, schema.tag(field))).append('\n');
+        body.append("        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);\n");
+        return "package orderbook.impl;\n"
+            + "\n"
+            + "import orderbook.ByteSplitter;\n"
+            + "import orderbook.Decoder;\n"
+            + "import orderbook.Side;\n"
+            + "import orderbook.Splitter;\n"
+            + "\n"
+            + "// " + schema.getTags() + "\n"
+            + "final class " + NAME + " extends DecoderSchema {\n"
+            + "    @Override\n"
+            + "    public void decode(final Splitter split, final Decoder.Add add) {\n"
+            + body
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public void decode(final ByteSplitter split, final Decoder.Add add) {\n"
+            + body
+            + "    }\n"
+            + "}\n";
+    }
+
+    private static String field(final Schema.Field field, final Schema.Tag tag) {
+        switch (field) {
+            case SIDE:
+                return "final Side side = Decoders.toSide(split.toChar(" + tag.getIndex() + ", Decoders::toChar));";
+            case QUANTITY:
+                return "final int entrySize = " + decimal(tag) + ";";
+            case PRICE:
+                return "final int entryPx = " + decimal(tag) + ";";
+            case STAMP:
+                return "final long stamp = " + (tag == null ? "0L" : "split.toLong(" + tag.getIndex() + ", Decoders::toLongStamp10)") + ";";
+            case SYMBOL:
+                return "final long symbolId = " + (tag == null ? "0L" : "split.toLong(" + tag.getIndex() + ", Decoders::toLongChar8)") + ";";
+            default:
+                throw new IllegalArgumentException("Field not supported: " + field);
+        }
+    }
+
+    /**
+     * 2 places have a dedicated converter, any other scale is parsed exactly and rescaled
+     */
+    private static String decimal(final Schema.Tag tag) {
+        if (tag.getScale() == 2)
+            return "(int)split.toLong(" + tag.getIndex() + ", Decoders::toLongChar2)";
+        return "Math.toIntExact(Decoders.rescale(split.toLong(" + tag.getIndex() + ", Decoders::toLongDecimal), " + tag.getScale() + "))";
+    }
+}
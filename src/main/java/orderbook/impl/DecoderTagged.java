@@ -0,0 +1,114 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import orderbook.ByteDecoder;
+import orderbook.ByteSplitter;
+import orderbook.Decoder;
+import orderbook.Side;
+import orderbook.Splitter;
+import orderbook.TagIndex;
+
+/**
+ * A decoder that finds each field by its tag, through the index a {@link TagIndex} splitter
+ * ({@link SplitterTagged}, {@link SplitterBytesTagged}) builds as it splits
+ *
+ * Where {@link DecoderDedicated} and {@link DecoderSchema} read fixed positions, this decodes any order of
+ * the schema's tags, and ignores tags it does not know - so one decoder serves venues whose layouts differ
+ * in order or in extra tags. The order of the schema does not matter, only which tag carries which field
+ * and at what scale. Every tag must be a single character
+ *
+ * Stamp and symbol decode as 0 when absent. A message without a price, quantity or side is not applied,
+ * and is counted as rejected
+ */
+@Builder
+public class DecoderTagged implements Decoder, ByteDecoder {
+    @Builder.Default
+    private Schema schema = Schema.DEFAULT;
+
+    private char stamp, symbol, price, quantity, side;     // Tags - 0 for a field the schema leaves out
+    private int priceScale, quantityScale;
+
+    @Getter
+    private long rejected;
+
+    /**
+     * @throws IllegalArgumentException if a tag of the schema is not a single ASCII character
+     */
+    public DecoderTagged init() {
+        for (final Schema.Tag tag : schema.getTags()) {
+            if (tag.getTag().length() != 1 || tag.getTag().charAt(0) >= 128)
+                throw new IllegalArgumentException("Tag must be a single ASCII character: " + tag.getTag());
+        }
+        stamp = tag(Schema.Field.STAMP);
+        symbol = tag(Schema.Field.SYMBOL);
+        price = tag(Schema.Field.PRICE);
+        quantity = tag(Schema.Field.QUANTITY);
+        side = tag(Schema.Field.SIDE);
+        priceScale = schema.tag(Schema.Field.PRICE).getScale();
+        quantityScale = schema.tag(Schema.Field.QUANTITY).getScale();
+        return this;
+    }
+
+    private char tag(final Schema.Field field) {
+        final Schema.Tag tag = schema.tag(field);
+        return tag == null ? 0 : tag.getTag().charAt(0);
+    }
+
+    /**
+     * @throws IllegalArgumentException if split does not index its tags
+     */
+    @Override
+    public void decode(final Splitter split, final Add add) {
+        if (!(split instanceof TagIndex))
+            throw new IllegalArgumentException("Splitter does not index tags: " + split.getClass().getSimpleName());
+        final TagIndex tags = (TagIndex)split;
+        final int fieldCt = split.fieldCt();
+        final int sideIx = tags.field(side), sizeIx = tags.field(quantity), pxIx = tags.field(price);
+        if (!present(sideIx, fieldCt) || !present(sizeIx, fieldCt) || !present(pxIx, fieldCt)) {
+            rejected++;
+            return;
+        }
+        final int stampIx = tags.field(stamp), symbolIx = tags.field(symbol);
+        final Side side = Decoders.toSide(split.toChar(sideIx, Decoders::toChar));
+        final int entrySize = quantityScale == 2 ? (int)split.toLong(sizeIx, Decoders::toLongChar2)
+            : Math.toIntExact(Decoders.rescale(split.toLong(sizeIx, Decoders::toLongDecimal), quantityScale));
+        final int entryPx = priceScale == 2 ? (int)split.toLong(pxIx, Decoders::toLongChar2)
+            : Math.toIntExact(Decoders.rescale(split.toLong(pxIx, Decoders::toLongDecimal), priceScale));
+        final long stamp = present(stampIx, fieldCt) ? split.toLong(stampIx, Decoders::toLongStamp10) : 0;
+        final long symbolId = present(symbolIx, fieldCt) ? split.toLong(symbolIx, Decoders::toLongChar8) : 0;
+        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
+    }
+
+    /**
+     * @throws IllegalArgumentException if split does not index its tags
+     */
+    @Override
+    public void decode(final ByteSplitter split, final Add add) {
+        if (!(split instanceof TagIndex))
+            throw new IllegalArgumentException("Splitter does not index tags: " + split.getClass().getSimpleName());
+        final TagIndex tags = (TagIndex)split;
+        final int fieldCt = split.fieldCt();
+        final int sideIx = tags.field(side), sizeIx = tags.field(quantity), pxIx = tags.field(price);
+        if (!present(sideIx, fieldCt) || !present(sizeIx, fieldCt) || !present(pxIx, fieldCt)) {
+            rejected++;
+            return;
+        }
+        final int stampIx = tags.field(stamp), symbolIx = tags.field(symbol);
+        final Side side = Decoders.toSide(split.toChar(sideIx, Decoders::toChar));
+        final int entrySize = quantityScale == 2 ? (int)split.toLong(sizeIx, Decoders::toLongChar2)
+            : Math.toIntExact(Decoders.rescale(split.toLong(sizeIx, Decoders::toLongDecimal), quantityScale));
+        final int entryPx = priceScale == 2 ? (int)split.toLong(pxIx, Decoders::toLongChar2)
+            : Math.toIntExact(Decoders.rescale(split.toLong(pxIx, Decoders::toLongDecimal), priceScale));
+        final long stamp = present(stampIx, fieldCt) ? split.toLong(stampIx, Decoders::toLongStamp10) : 0;
+        final long symbolId = present(symbolIx, fieldCt) ? split.toLong(symbolIx, Decoders::toLongChar8) : 0;
+        if (add != null) add.apply(stamp, symbolId, side, entryPx, entrySize);
+    }
+
+    /**
+     * A tag ending the message has no value field after it
+     */
+    private static boolean present(final int ix, final int fieldCt) {
+        return ix >= 0 && ix < fieldCt;
+    }
+}
@@ -2,6 +2,8 @@ package orderbook.impl;
 
 import orderbook.Side;
 
+import java.nio.ByteBuffer;
+
 /**
  * Some common decoder primitives used in the message specific decoders
  */
@@ -45,6 +47,19 @@ public class Decoders {
         }
         return result;
     }
+    /**
+     * The reverse of {@link #toLongChar8(CharSequence, int, int)} - for display, so allocates
+     * @param symbolId packed by toLongChar8
+     * @return the up to 8 chars packed into symbolId
+     */
+    public static String fromLongChar8(long symbolId) {
+        final char[] chars = new char[8];
+        int ix = chars.length;
+        for (; symbolId != 0; symbolId >>>= 8)
+            chars[--ix] = (char)(symbolId & 0xFF);
+        return new String(chars, ix, chars.length - ix);
+    }
+
     /**
      * Some string assumptions made
      * There is ALWAYS a "." followed bt 2 digits
@@ -77,6 +92,8 @@ public class Decoders {
      * @return a long that represents a 10 digit stamp
      */
     public static long toLongStamp10(final CharSequence c, final int beginIndex, final int endIndex) {
+        if (endIndex - beginIndex != 10)
+            return toLongDigits(c, beginIndex, endIndex);
         long result = 0;
         int ix = beginIndex;
         // for (int _ix=0; _ix<10; _ix++) This was not unrolled, so we do it ourself
@@ -93,4 +110,165 @@ public class Decoders {
 
         return result;
     }
+
+    /**
+     * @return a long from any number of [0-9] chars
+     */
+    public static long toLongDigits(final CharSequence c, final int beginIndex, final int endIndex) {
+        long result = 0;
+        for (int ix = beginIndex; ix < endIndex; ix++)
+            result = (result * 10) + (c.charAt(ix) - '0');
+        return result;
+    }
+
+    /*
+        Byte equivalents of the above, reading raw ASCII from a ByteBuffer with absolute gets
+     */
+
+    public static char toChar(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        return (char)b.get(beginIndex);
+    }
+
+    /**
+     * Coverts UP TO 8 bytes into a long - the same value {@link #toLongChar8(CharSequence, int, int)}
+     * gives for the equivalent chars
+     */
+    public static long toLongChar8(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        long result = 0;
+        for (int ix = beginIndex; ix < endIndex; ix++)
+            result = (result << 8) | (b.get(ix) & 0xFF);
+        return result;
+    }
+
+    /**
+     * Same assumptions as {@link #toLongChar2(CharSequence, int, int)}
+     * @return a long that represent the x 100 scale of the fp.2 number
+     */
+    public static long toLongChar2(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        long result = 0;
+        int ix = beginIndex;
+        while (true) {
+            final byte ch = b.get(ix++);
+            if (ch == '.') break;
+            result = (result * 10) + (ch - '0');
+        }
+        // Skip the dot and unroll the cents
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix) - '0');
+
+        return result;
+    }
+
+    /**
+     * A 10 digit stamp, unrolled. Anything other than 10 digits falls back to {@link #toLongDigits}
+     * rather than reading past the field
+     * @return a long that represents the stamp
+     */
+    public static long toLongStamp10(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        if (endIndex - beginIndex != 10)
+            return toLongDigits(b, beginIndex, endIndex);
+        long result = 0;
+        int ix = beginIndex;
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix++) - '0');
+        result = (result * 10) + (b.get(ix) - '0');
+
+        return result;
+    }
+
+    /**
+     * @return a long from any number of [0-9] bytes
+     */
+    public static long toLongDigits(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        long result = 0;
+        for (int ix = beginIndex; ix < endIndex; ix++)
+            result = (result * 10) + (b.get(ix) - '0');
+        return result;
+    }
+
+    /*
+        Decimals of any precision, for long books. A field is parsed to its digits, unscaled, with the number
+        of decimal places in the low bits - so a splitter's ToLongFunction can return both - and then
+        rescaled exactly to the symbol's scale. Non negative only, up to 17 digits and 18 decimal places
+     */
+
+    static final int DECIMALS_BITS = 5, DECIMALS_MASK = (1 << DECIMALS_BITS) - 1;
+    static final long MAX_UNSCALED = (Long.MAX_VALUE >>> DECIMALS_BITS) / 10;
+    static final long[] POW10 = new long[19];
+    static final int MAX_DECIMALS = POW10.length - 1;     // Fits the low bits, and any rescale to 0..18 places
+    static {
+        POW10[0] = 1;
+        for (int ix = 1; ix < POW10.length; ix++)
+            POW10[ix] = POW10[ix - 1] * 10;
+    }
+
+    /**
+     * @return the digits, with the dot removed, shifted over the number of decimal places
+     * @throws IllegalArgumentException if there are too many digits, or more than 18 decimal places
+     */
+    public static long toLongDecimal(final CharSequence c, final int beginIndex, final int endIndex) {
+        long unscaled = 0;
+        int decimals = 0, dot = 0;
+        for (int ix = beginIndex; ix < endIndex; ix++) {
+            final char ch = c.charAt(ix);
+            if (ch == '.') {
+                dot = 1;
+                continue;
+            }
+            if (unscaled > MAX_UNSCALED)
+                throw new IllegalArgumentException("Too many digits: " + c.subSequence(beginIndex, endIndex));
+            unscaled = (unscaled * 10) + (ch - '0');
+            decimals += dot;
+        }
+        if (decimals > MAX_DECIMALS)
+            throw new IllegalArgumentException("Too many digits: " + c.subSequence(beginIndex, endIndex));
+        return unscaled << DECIMALS_BITS | decimals;
+    }
+
+    /**
+     * The byte equivalent of {@link #toLongDecimal(CharSequence, int, int)}
+     */
+    public static long toLongDecimal(final ByteBuffer b, final int beginIndex, final int endIndex) {
+        long unscaled = 0;
+        int decimals = 0, dot = 0;
+        for (int ix = beginIndex; ix < endIndex; ix++) {
+            final byte ch = b.get(ix);
+            if (ch == '.') {
+                dot = 1;
+                continue;
+            }
+            if (unscaled > MAX_UNSCALED)
+                throw new IllegalArgumentException("Too many digits at " + beginIndex);
+            unscaled = (unscaled * 10) + (ch - '0');
+            decimals += dot;
+        }
+        if (decimals > MAX_DECIMALS)
+            throw new IllegalArgumentException("Too many digits at " + beginIndex);
+        return unscaled << DECIMALS_BITS | decimals;
+    }
+
+    /**
+     * Scales a value from toLongDecimal to scale decimal places - "1.5" to 3 places is 1500
+     * @throws IllegalArgumentException if non zero digits would be dropped, or scale is not 0 to 18
+     * @throws ArithmeticException if the result overflows
+     */
+    public static long rescale(final long decimal, final int scale) {
+        if (scale < 0 || scale > MAX_DECIMALS)
+            throw new IllegalArgumentException("Scale not supported: " + scale);
+        final long unscaled = decimal >>> DECIMALS_BITS;
+        final int decimals = (int)decimal & DECIMALS_MASK;
+        if (decimals <= scale)
+            return Math.multiplyExact(unscaled, POW10[scale - decimals]);
+        final long divisor = POW10[decimals - scale];
+        if (unscaled % divisor != 0)
+            throw new IllegalArgumentException("Precision lost scaling " + unscaled + "e-" + decimals + " to " + scale + " places");
+        return unscaled / divisor;
+    }
 }
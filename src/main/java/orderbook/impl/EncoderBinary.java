@@ -0,0 +1,83 @@
+package orderbook.impl;
+
+import lombok.Getter;
+import orderbook.Decoder;
+import orderbook.Side;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes each update it is given as a {@link BinaryFormat} record, buffered, to a channel
+ * As it is a {@link Decoder.Add}, a text capture converts by replaying it into an encoder
+ * Closing flushes, but leaves the channel to its owner
+ */
+public class EncoderBinary implements Decoder.Add, Closeable {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    @Getter
+    private long records;
+
+    public EncoderBinary(final WritableByteChannel channel, final int bufferSize) {
+        if (bufferSize < BinaryFormat.HEADER + BinaryFormat.RECORD)
+            throw new IllegalArgumentException("bufferSize too small: " + bufferSize);
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.writeHeader(buffer, 0);
+        buffer.position(BinaryFormat.HEADER);
+    }
+
+    @Override
+    public void apply(final long stamp, final long symbolId, final Side side, final int entryPx, final int entrySize) {
+        if (buffer.remaining() < BinaryFormat.RECORD)
+            flush();
+        final int offset = buffer.position();
+        BinaryFormat.encode(buffer, offset, stamp, symbolId, side, entryPx, entrySize);
+        buffer.position(offset + BinaryFormat.RECORD);
+        records++;
+    }
+
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Converts a text capture (plain or zip, see {@link Replay}) to a binary capture
+     * @return the number of records written
+     */
+    public static long convert(final Path text, final Path binary) throws IOException {
+        try (FileChannel channel = FileChannel.open(binary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             EncoderBinary encoder = new EncoderBinary(channel, 1 << 20)) {
+            Replay.builder().build().replay(text, encoder);
+            return encoder.getRecords();
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("usage: EncoderBinary <text capture> <binary capture>");
+            return;
+        }
+        System.out.printf("%,d records\n", convert(Path.of(args[0]), Path.of(args[1])));
+    }
+}
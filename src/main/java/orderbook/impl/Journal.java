@@ -0,0 +1,147 @@
+package orderbook.impl;
+
+import lombok.Getter;
+import orderbook.Decoder;
+import orderbook.Side;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append only journal of the updates applied to a market, written through a memory mapping
+ *
+ * Each update is a {@link BinaryFormat} record and its sequence is its position in the file, so a journal
+ * is also a .bin capture {@link Replay} can read. The file is mapped a window (mapChunk) at a time, and
+ * grows a window ahead of the last record - records are in the page cache as soon as they are appended
+ * (force() to make them durable). Close trims the file to the last record. After a crash the file is
+ * left with a zeroed tail, which is recognised on reopening (a record's side is never 0)
+ *
+ * Together with a {@link Checkpoint} holding the books as at some sequence, recovery need only replay
+ * the journal from that sequence
+ */
+public class Journal implements Decoder.Add, Closeable {
+    private final FileChannel channel;
+    private final int window;           // Bytes per mapping - whole records
+    private MappedByteBuffer map;
+    private int mapOffset;              // Next record within map
+    @Getter
+    private long sequence;              // Records in the journal - the sequence of the next one
+
+    public Journal(final Path file) throws IOException {
+        this(file, 1 << 26);
+    }
+
+    /**
+     * Opens file for appending, creating it if needed
+     */
+    public Journal(final Path file, final int mapChunk) throws IOException {
+        window = mapChunk - mapChunk % BinaryFormat.RECORD;
+        if (window == 0)
+            throw new IllegalArgumentException("mapChunk smaller than a record: " + mapChunk);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final long size = channel.size();
+        if (size == 0) {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, BinaryFormat.HEADER);
+            BinaryFormat.writeHeader(header.order(ByteOrder.LITTLE_ENDIAN), 0);
+        } else {
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, BinaryFormat.HEADER));
+            BinaryFormat.checkHeader(header.order(ByteOrder.LITTLE_ENDIAN), 0);
+            sequence = records(channel, size);
+        }
+        mapAt(sequence);
+    }
+
+    private void mapAt(final long record) throws IOException {
+        final long perWindow = window / BinaryFormat.RECORD;
+        final long windowStart = BinaryFormat.HEADER + record / perWindow * window;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, window);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        mapOffset = (int)(record % perWindow) * BinaryFormat.RECORD;
+    }
+
+    @Override
+    public void apply(final long stamp, final long symbolId, final Side side, final int entryPx, final int entrySize) {
+        if (mapOffset == window) {
+            try {
+                mapAt(sequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        BinaryFormat.encode(map, mapOffset, stamp, symbolId, side, entryPx, entrySize);
+        mapOffset += BinaryFormat.RECORD;
+        sequence++;
+    }
+
+    /**
+     * Writes the mapped window through to the file
+     */
+    public void force() {
+        map.force();
+    }
+
+    /**
+     * Forces, and trims the file to the last record
+     */
+    @Override
+    public void close() throws IOException {
+        map.force();
+        map = null;
+        channel.truncate(BinaryFormat.HEADER + sequence * BinaryFormat.RECORD);
+        channel.close();
+    }
+
+    /**
+     * Replays the journal from sequence from on - stopping at a zeroed tail
+     * @return the number of records replayed
+     */
+    public static long replay(final Path file, final long from, final Decoder.Add add) throws IOException {
+        final int window = (1 << 26) - (1 << 26) % BinaryFormat.RECORD;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, BinaryFormat.HEADER));
+            BinaryFormat.checkHeader(header.order(ByteOrder.LITTLE_ENDIAN), 0);
+            long replayed = 0;
+            long pos = BinaryFormat.HEADER + from * BinaryFormat.RECORD;
+            for (long remaining = (size - pos) / BinaryFormat.RECORD * BinaryFormat.RECORD; remaining > 0; ) {
+                final int len = (int)Math.min(window, remaining);
+                final MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                map.order(ByteOrder.LITTLE_ENDIAN);
+                for (int offset = 0; offset < len; offset += BinaryFormat.RECORD) {
+                    if (map.get(offset + BinaryFormat.SIDE) == 0)
+                        return replayed;
+                    BinaryFormat.decode(map, offset, add);
+                    replayed++;
+                }
+                pos += len;
+                remaining -= len;
+            }
+            return replayed;
+        }
+    }
+
+    /**
+     * @return the number of records before any zeroed tail
+     */
+    private static long records(final FileChannel channel, final long size) throws IOException {
+        long end = (size - BinaryFormat.HEADER) / BinaryFormat.RECORD;
+        final int perWindow = (1 << 20) / BinaryFormat.RECORD;
+        // Scan back from the end 1MB at a time, over as many windows as the zeroed tail spans, to the last written record
+        while (end > 0) {
+            final long first = Math.max(0, end - perWindow);
+            final MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+                BinaryFormat.HEADER + first * BinaryFormat.RECORD, (end - first) * BinaryFormat.RECORD);
+            for (long record = end - 1; record >= first; record--)
+                if (map.get((int)(record - first) * BinaryFormat.RECORD + BinaryFormat.SIDE) != 0)
+                    return record + 1;
+            end = first;
+        }
+        return 0;
+    }
+}
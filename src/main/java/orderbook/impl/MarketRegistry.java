@@ -0,0 +1,174 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import orderbook.Instrument;
+import orderbook.Market;
+import orderbook.OrderBook;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link Market} held in an open addressed, linear probing table keyed on symbolId
+ *
+ * Keys, books and instruments are parallel arrays, so a lookup is a multiply, a shift and usually one
+ * probe, with no boxing or allocation. The table doubles when half full. symbolId 0 marks an empty slot
+ * and so cannot be registered - it is not a valid packed symbol in any case
+ */
+@Builder
+public class MarketRegistry implements Market {
+    /**
+     * Used by bookOrRegister for symbols first seen in the feed - its symbolId and symbol are replaced
+     */
+    @Builder.Default
+    private Instrument defaultInstrument = Instrument.builder().build();
+    @Builder.Default
+    private int capacity = 64;
+    /**
+     * Where DIRECT_OFFHEAP books take their slabs from - each book allocates its own if null
+     */
+    private SlabArena arena;
+
+    private long[] keys;
+    private OrderBook[] books;
+    private Instrument[] instruments;
+    private int size, shift;
+
+    public MarketRegistry init() {
+        final int n = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        keys = new long[n];
+        books = new OrderBook[n];
+        instruments = new Instrument[n];
+        shift = 64 - Integer.numberOfTrailingZeros(n);
+        size = 0;
+        return this;
+    }
+
+    private int slot(final long symbolId) {
+        return (int)((symbolId * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    @Override
+    public OrderBook book(final long symbolId) {
+        final int mask = keys.length - 1;
+        for (int ix = slot(symbolId); ; ix = (ix + 1) & mask) {
+            final long key = keys[ix];
+            if (key == 0) return null;
+            if (key == symbolId) return books[ix];
+        }
+    }
+
+    @Override
+    public Instrument instrument(final long symbolId) {
+        final int ix = find(symbolId);
+        return ix < 0 ? null : instruments[ix];
+    }
+
+    @Override
+    public OrderBook bookOrRegister(final long symbolId) {
+        final OrderBook book = book(symbolId);
+        if (book != null) return book;
+        return register(defaultInstrument.toBuilder()
+            .symbolId(symbolId)
+            .symbol(Decoders.fromLongChar8(symbolId))
+            .build());
+    }
+
+    @Override
+    public OrderBook register(final Instrument instrument) {
+        final long symbolId = instrument.getSymbolId();
+        if (symbolId == 0)
+            throw new IllegalArgumentException("symbolId must be specified");
+        if (find(symbolId) >= 0)
+            throw new IllegalArgumentException("Already registered: " + instrument);
+        if ((size + 1) * 2 > keys.length)
+            resize();
+        final OrderBook book = create(instrument, arena);
+        insert(symbolId, book, instrument);
+        return book;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<Instrument, OrderBook> consumer) {
+        for (int ix = 0; ix < keys.length; ix++)
+            if (keys[ix] != 0)
+                consumer.accept(instruments[ix], books[ix]);
+    }
+
+    /**
+     * Builds the book an instrument asks for
+     */
+    public static OrderBook create(final Instrument instrument) {
+        return create(instrument, null);
+    }
+
+    /**
+     * Builds the book an instrument asks for, with any off heap slabs from arena
+     */
+    public static OrderBook create(final Instrument instrument, final SlabArena arena) {
+        switch (instrument.getBookType()) {
+            case ART:
+                return BookArt.builder().build().init();
+            case FASTUTIL:
+                return BookFastUtil.builder().build();
+            case DIRECT:
+                return BookDirect.builder().symbolId(instrument.getSymbolId()).depth(instrument.getDepth())
+                    .build().initialiseSlabs();
+            case DIRECT_BITMAP:
+                return BookDirectBitmap.builder().symbolId(instrument.getSymbolId()).depth(instrument.getDepth())
+                    .build().initialiseSlabs();
+            case SLIDING:
+                return BookDirectSliding.builder().symbolId(instrument.getSymbolId()).window(instrument.getWindow())
+                    .build().initialiseSlabs();
+            case DIRECT_OFFHEAP:
+                return BookDirectOffHeap.builder().symbolId(instrument.getSymbolId()).depth(instrument.getDepth())
+                    .arena(arena).build().initialiseSlabs();
+            case DIRECT_SHORT:
+                return BookDirectShort.builder().symbolId(instrument.getSymbolId()).depth(instrument.getDepth())
+                    .build().initialiseSlabs();
+            case DIRECT_TICK:
+                return BookDirectTick.builder().symbolId(instrument.getSymbolId()).depth(instrument.getDepth())
+                    .base(instrument.getBasePrice()).tick(instrument.getTickSize()).build().initialiseSlabs();
+            default:
+                throw new IllegalArgumentException("Book type not supported: " + instrument.getBookType());
+        }
+    }
+
+    private int find(final long symbolId) {
+        final int mask = keys.length - 1;
+        for (int ix = slot(symbolId); ; ix = (ix + 1) & mask) {
+            final long key = keys[ix];
+            if (key == 0) return -1;
+            if (key == symbolId) return ix;
+        }
+    }
+
+    private void insert(final long symbolId, final OrderBook book, final Instrument instrument) {
+        final int mask = keys.length - 1;
+        int ix = slot(symbolId);
+        while (keys[ix] != 0)
+            ix = (ix + 1) & mask;
+        keys[ix] = symbolId;
+        books[ix] = book;
+        instruments[ix] = instrument;
+        size++;
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final OrderBook[] oldBooks = books;
+        final Instrument[] oldInstruments = instruments;
+        keys = new long[oldKeys.length * 2];
+        books = new OrderBook[keys.length];
+        instruments = new Instrument[keys.length];
+        shift--;
+        size = 0;
+        for (int ix = 0; ix < oldKeys.length; ix++)
+            if (oldKeys[ix] != 0)
+                insert(oldKeys[ix], oldBooks[ix], oldInstruments[ix]);
+    }
+}
@@ -0,0 +1,113 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+/**
+ * Crosses a marketable order against the resting levels of any {@link OrderBook} - for simulated execution
+ *
+ * A match walks the opposite side from the top with a static visitor, noting each level the limit crosses in
+ * the fill buffer, then takes the filled quantity out of the book in place. The walk finishes before the book is
+ * changed, as a book cannot be changed under its own iteration. The buffer is preallocated, so a match does not
+ * allocate - except against a {@link BookFastUtil}, whose forEach allocates an iterator - and is read back
+ * through fillPrice/fillQuantity until the next match
+ *
+ * The order is immediate or cancel - whatever does not fill (or does not fit in maxFills levels) is returned
+ * to the caller, who may rest it or match again
+ */
+@Builder
+public class Matcher {
+    private static final OrderBook.PriceLevelWithContext<Matcher> SWEEP = Matcher::sweep;
+
+    @Builder.Default
+    private int maxFills = 64;      // Levels one match can take
+
+    private int[] prices, quantities, resting;      // Per fill - resting is the level's quantity before the match
+    private int limit, remaining;
+    private boolean buy;
+
+    @Getter
+    private int fills;              // Levels filled by the last match
+    @Getter
+    private long filled;            // Quantity filled by the last match
+
+    public Matcher init() {
+        if (maxFills <= 0) throw new IllegalArgumentException("maxFills must be positive: " + maxFills);
+        prices = new int[maxFills];
+        quantities = new int[maxFills];
+        resting = new int[maxFills];
+        return this;
+    }
+
+    /**
+     * Fills as much of an order as crosses, best price first, taking it out of book
+     *
+     * @param side     of the aggressor - a BID (buy) lifts offers at or below limit, an OFFER (sell) hits bids at or above
+     * @param limit    worst price to fill at - Integer.MAX_VALUE (buy) or 0 (sell) for a market order
+     * @param quantity to fill
+     * @return the quantity filled
+     */
+    public long match(final OrderBook book, final Side side, final int limit, final int quantity) {
+        final Side opposite;
+        switch (side) {
+            case BID:
+                opposite = Side.OFFER;
+                break;
+            case OFFER:
+                opposite = Side.BID;
+                break;
+            default:
+                throw new IllegalArgumentException("Side not supported: " + side);
+        }
+        this.buy = side == Side.BID;
+        this.limit = limit;
+        remaining = quantity;
+        fills = 0;
+        filled = 0;
+        if (quantity > 0)
+            book.forEach(opposite, this, SWEEP);
+        for (int ix = 0; ix < fills; ix++) {
+            book.add(opposite, prices[ix], resting[ix] - quantities[ix]);
+            filled += quantities[ix];
+        }
+        return filled;
+    }
+
+    private static boolean sweep(final Matcher matcher, final int price, final int quantity) {
+        if (matcher.buy ? price > matcher.limit : price < matcher.limit)
+            return false;
+        final int ix = matcher.fills++;
+        final int take = Math.min(quantity, matcher.remaining);
+        matcher.prices[ix] = price;
+        matcher.quantities[ix] = take;
+        matcher.resting[ix] = quantity;
+        matcher.remaining -= take;
+        return matcher.remaining > 0 && matcher.fills < matcher.prices.length;
+    }
+
+    /**
+     * @return the price of fill ix of the last match, best first
+     */
+    public int fillPrice(final int ix) {
+        return prices[ix];
+    }
+
+    /**
+     * @return the quantity of fill ix of the last match
+     */
+    public int fillQuantity(final int ix) {
+        return quantities[ix];
+    }
+
+    /**
+     * @return the sum of price x quantity over the fills of the last match - divided by filled, the average price
+     */
+    public long fillNotional() {
+        long notional = 0;
+        for (int ix = 0; ix < fills; ix++)
+            notional += (long)prices[ix] * quantities[ix];
+        return notional;
+    }
+}
@@ -0,0 +1,170 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import orderbook.Market;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Splits, decodes and applies lines of the t=|i=|p=|q=|s= layout in one pass over the bytes
+ *
+ * The layered path ({@link SplitterBytes}, {@link DecoderDedicated}, a {@link orderbook.Decoder.Add}) records
+ * the field offsets, converts each field through a method reference, then calls back with the values. Here
+ * each field is converted as it is scanned, in the fixed order of the layout, and the line is applied to the
+ * book directly - no offsets, no functional interfaces. Use the layered path for any other layout
+ *
+ * Prices and quantities take up to 2 decimal places, scaled by 100 as {@link Decoders#toLongChar2}. A line
+ * that does not match the layout is skipped to its newline and counted as rejected. Side 'c' clears the book
+ */
+@Builder
+public class ParserFused {
+    @Getter
+    private long messages, rejected;    // Running totals
+
+    @Getter
+    private long stamp, symbolId;       // Of the last line applied
+    private int price, quantity;        // The last line parsed
+    private byte side;
+    private int value;                  // From fixed2
+
+    /**
+     * Applies every line between from and to to book - the symbol is not checked
+     * @return the number of lines applied
+     */
+    public long apply(final ByteBuffer bytes, final int from, final int to, final OrderBook book) {
+        final long before = messages;
+        for (int ix = from; ix < to; ) {
+            final int end = parse(bytes, ix, to);
+            if (end < 0) {
+                ix = skipLine(bytes, ix, to);
+                continue;
+            }
+            apply(book);
+            ix = end;
+        }
+        return messages - before;
+    }
+
+    /**
+     * Applies every line between from and to to the book of its symbol, registering books as they are seen
+     * @return the number of lines applied
+     */
+    public long apply(final ByteBuffer bytes, final int from, final int to, final Market market) {
+        final long before = messages;
+        for (int ix = from; ix < to; ) {
+            final int end = parse(bytes, ix, to);
+            if (end < 0) {
+                ix = skipLine(bytes, ix, to);
+                continue;
+            }
+            apply(market.bookOrRegister(symbolId));
+            ix = end;
+        }
+        return messages - before;
+    }
+
+    private void apply(final OrderBook book) {
+        switch (side) {
+            case 'b':
+                book.add(Side.BID, price, quantity);
+                break;
+            case 'a':
+                book.add(Side.OFFER, price, quantity);
+                break;
+            default:    // 'c'
+                book.clear();
+        }
+        messages++;
+    }
+
+    private int skipLine(final ByteBuffer bytes, int ix, final int to) {
+        if (!blank(bytes, ix, to)) rejected++;
+        while (ix < to && bytes.get(ix) != '\n') ix++;
+        return ix + 1;
+    }
+
+    private static boolean blank(final ByteBuffer bytes, final int ix, final int to) {
+        final byte ch = bytes.get(ix);
+        return ch == '\n' || ch == '\r' && (ix + 1 == to || bytes.get(ix + 1) == '\n');
+    }
+
+    /**
+     * Parses one line from ix into the fields
+     * @return the start of the next line, -1 if the line does not match the layout
+     */
+    private int parse(final ByteBuffer b, int ix, final int to) {
+        if (ix + 2 > to || b.get(ix) != 't' || b.get(ix + 1) != '=')
+            return -1;
+        ix += 2;
+        long t = 0;
+        byte ch;
+        while (ix < to && (ch = b.get(ix)) != '|') {
+            final int digit = ch - '0';
+            if (digit < 0 || digit > 9) return -1;
+            t = t * 10 + digit;
+            ix++;
+        }
+        if (ix + 3 > to || b.get(ix + 1) != 'i' || b.get(ix + 2) != '=')
+            return -1;
+        ix += 3;
+        long symbol = 0;
+        final int symbolEnd = Math.min(ix + 8, to);     // Packed 8 to a long
+        while (ix < symbolEnd && (ch = b.get(ix)) != '|') {
+            symbol = (symbol << 8) | (ch & 0xFF);
+            ix++;
+        }
+        if (ix + 3 > to || b.get(ix) != '|' || b.get(ix + 1) != 'p' || b.get(ix + 2) != '=')
+            return -1;
+        if ((ix = fixed2(b, ix + 3, to)) < 0)
+            return -1;
+        final int p = value;
+        if (ix + 3 > to || b.get(ix + 1) != 'q' || b.get(ix + 2) != '=')
+            return -1;
+        if ((ix = fixed2(b, ix + 3, to)) < 0)
+            return -1;
+        if (ix + 4 > to || b.get(ix + 1) != 's' || b.get(ix + 2) != '=')
+            return -1;
+        final byte s = b.get(ix + 3);
+        if (s != 'b' && s != 'a' && s != 'c')
+            return -1;
+        ix += 4;
+        if (ix < to && b.get(ix) == '\r') ix++;
+        if (ix < to && b.get(ix++) != '\n')
+            return -1;
+        stamp = t;
+        symbolId = symbol;
+        price = p;
+        quantity = value;
+        side = s;
+        return ix;
+    }
+
+    /**
+     * Converts digits with up to 2 decimal places, scaled by 100, into value
+     * @return the index of the '|' that ends the field, -1 if it is not a number
+     */
+    private int fixed2(final ByteBuffer b, int ix, final int to) {
+        int result = 0, decimals = -1;
+        byte ch;
+        while (ix < to && (ch = b.get(ix)) != '|') {
+            if (ch == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                final int digit = ch - '0';
+                if (digit < 0 || digit > 9 || decimals == 2) return -1;
+                result = result * 10 + digit;
+                if (decimals >= 0) decimals++;
+            }
+            ix++;
+        }
+        if (ix == to)
+            return -1;
+        for (decimals = Math.max(decimals, 0); decimals < 2; decimals++)
+            result *= 10;
+        value = result;
+        return ix;
+    }
+}
@@ -0,0 +1,169 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import lombok.Getter;
+import orderbook.ByteDecoder;
+import orderbook.ByteSplitter;
+import orderbook.Decoder;
+import orderbook.Splitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Replays a capture of newline separated messages, splitting and decoding each line in place
+ *
+ * A plain file is memory mapped a window (mapChunk) at a time, so a capture of any size can be replayed
+ * without loading it onto the heap. A zip (as in testing/) is streamed through one reused buffer
+ * (readChunk) as its entries cannot be mapped. Either way there is no String per line - each line is
+ * handed straight from the bytes to the {@link ByteSplitter} and {@link ByteDecoder}
+ *
+ * A trailing '\r' is dropped, empty lines are skipped, and lines that do not split are counted as
+ * rejected. Lines must fit in a chunk
+ *
+ * A .bin file is a {@link BinaryFormat} capture - mapped the same way, with nothing to split or parse
+ */
+@Builder
+public class Replay {
+    @Builder.Default
+    private ByteSplitter splitter = new SplitterBytes(20);
+    @Builder.Default
+    private ByteDecoder decoder = DecoderDedicated.builder().build();
+    @Builder.Default
+    private String delim = "|=";
+    @Builder.Default
+    private int mapChunk = 1 << 30;
+    @Builder.Default
+    private int readChunk = 1 << 20;
+
+    @Getter
+    private long messages, rejected;    // Running totals across replays
+
+    /**
+     * Replays the lines between position and limit of bytes - the buffer itself is not changed
+     * @return the number of messages decoded
+     */
+    public long replay(final ByteBuffer bytes, final Decoder.Add add) {
+        final long before = messages;
+        final int end = replayLines(bytes, bytes.position(), bytes.limit(), add);
+        replayLine(bytes, end, bytes.limit(), add);     // A last line without a newline
+        return messages - before;
+    }
+
+    /**
+     * Replays a capture file - a zip is replayed entry by entry, a .bin as binary records, anything else
+     * is mapped as text
+     * @return the number of messages decoded
+     */
+    public long replay(final Path file, final Decoder.Add add) throws IOException {
+        final long before = messages;
+        final String name = file.toString();
+        if (name.endsWith(".zip"))
+            replayZip(file, add);
+        else if (name.endsWith(".bin"))
+            replayBinary(file, add);
+        else
+            replayMapped(file, add);
+        return messages - before;
+    }
+
+    private void replayBinary(final Path file, final Decoder.Add add) throws IOException {
+        final int window = mapChunk - mapChunk % BinaryFormat.RECORD;    // Whole records per mapping
+        if (window == 0)
+            throw new IOException("mapChunk smaller than a record: " + mapChunk);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, BinaryFormat.HEADER));
+            BinaryFormat.checkHeader(header.order(ByteOrder.LITTLE_ENDIAN), 0);
+            final long records = (size - BinaryFormat.HEADER) / BinaryFormat.RECORD;
+            if (size - BinaryFormat.HEADER != records * BinaryFormat.RECORD)
+                rejected++;     // A partial last record
+            long pos = BinaryFormat.HEADER;
+            for (long remaining = records * BinaryFormat.RECORD; remaining > 0; ) {
+                final int len = (int)Math.min(window, remaining);
+                final MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                messages += BinaryFormat.decodeAll(map.order(ByteOrder.LITTLE_ENDIAN), add);
+                pos += len;
+                remaining -= len;
+            }
+        }
+    }
+
+    private void replayMapped(final Path file, final Decoder.Add add) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long pos = 0;
+            while (pos < size) {
+                final int len = (int)Math.min(mapChunk, size - pos);
+                final MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                map.order(ByteOrder.nativeOrder());
+                final int end = replayLines(map, 0, len, add);
+                if (pos + len == size) {
+                    replayLine(map, end, len, add);
+                    break;
+                }
+                if (end == 0)
+                    throw new IOException("Line longer than mapChunk at " + pos + " in " + file);
+                pos += end;     // Map the next window from the start of the incomplete line
+            }
+        }
+    }
+
+    private void replayZip(final Path file, final Decoder.Add add) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(readChunk).order(ByteOrder.nativeOrder());
+        final byte[] array = buffer.array();
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) continue;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    int filled = 0, read;
+                    while ((read = in.read(array, filled, array.length - filled)) >= 0) {
+                        filled += read;
+                        final int end = replayLines(buffer, 0, filled, add);
+                        if (end == 0 && filled == array.length)
+                            throw new IOException("Line longer than readChunk in " + entry.getName());
+                        System.arraycopy(array, end, array, 0, filled - end);  // Keep the incomplete line
+                        filled -= end;
+                    }
+                    replayLine(buffer, 0, filled, add);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the offset of the first byte not consumed - the start of an incomplete last line
+     */
+    private int replayLines(final ByteBuffer bytes, final int from, final int to, final Decoder.Add add) {
+        int start = from;
+        for (int ix = from; ix < to; ix++) {
+            if (bytes.get(ix) == '\n') {
+                replayLine(bytes, start, ix, add);
+                start = ix + 1;
+            }
+        }
+        return start;
+    }
+
+    private void replayLine(final ByteBuffer bytes, final int from, int to, final Decoder.Add add) {
+        if (to > from && bytes.get(to - 1) == '\r') to--;
+        if (to == from) return;
+        if (splitter.split(bytes, from, to, delim) != Splitter.Result.OK) {
+            rejected++;
+            return;
+        }
+        decoder.decode(splitter, add);
+        messages++;
+    }
+}
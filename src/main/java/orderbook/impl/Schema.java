@@ -0,0 +1,110 @@
+package orderbook.impl;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The layout of a tag=value feed - which tag carries which field, in the order the tags appear, and the
+ * decimal places a price or quantity is scaled to
+ *
+ * Described as comma separated tag=field[:scale] entries, e.g. the layout {@link DecoderDedicated} is
+ * written for is
+ * <pre>
+ *   t=stamp,i=symbol,p=price:2,q=quantity:2,s=side
+ * </pre>
+ * Tags are letters, digits, '_', '-' or '.'. A field may appear once. Tags mapped to skip are ignored, and stamp and symbol may be left out (they
+ * decode as 0). The nth tag's value is field 2n + 1 of a split on the tag and value delimiters. At a scale
+ * of 2 values must carry exactly 2 places, as {@link Decoders#toLongChar2} expects - any other scale takes
+ * any number of places up to the scale
+ */
+@Getter @ToString
+public class Schema {
+    public enum Field {
+        STAMP,      // Digits
+        SYMBOL,     // Up to 8 characters, packed to a long
+        PRICE,      // Decimal, scaled
+        QUANTITY,   // Decimal, scaled
+        SIDE,       // b, a or c
+        SKIP
+    }
+
+    @Getter @ToString
+    public static class Tag {
+        private final String tag;
+        private final Field field;
+        private final int scale;
+        private final int index;        // Of the value, in the split fields
+
+        Tag(final String tag, final Field field, final int scale, final int index) {
+            this.tag = tag;
+            this.field = field;
+            this.scale = scale;
+            this.index = index;
+        }
+    }
+
+    public static final Schema DEFAULT = parse("t=stamp,i=symbol,p=price:2,q=quantity:2,s=side");
+
+    private final List<Tag> tags;
+
+    private Schema(final List<Tag> tags) {
+        this.tags = Collections.unmodifiableList(tags);
+    }
+
+    /**
+     * @throws IllegalArgumentException if an entry is malformed, a tag has other characters, a field repeats, or price,
+     *  quantity or side is missing
+     */
+    public static Schema parse(final String description) {
+        final List<Tag> tags = new ArrayList<>();
+        final boolean[] seen = new boolean[Field.values().length];
+        for (final String entry : description.split(",")) {
+            final String[] tagField = entry.trim().split("=");
+            if (tagField.length != 2 || tagField[0].isEmpty())
+                throw new IllegalArgumentException("Expected tag=field[:scale]: " + entry);
+            for (int ix = 0; ix < tagField[0].length(); ix++)
+                if (!isTagChar(tagField[0].charAt(ix)))
+                    throw new IllegalArgumentException("Tag character not supported: " + entry);
+            final String[] fieldScale = tagField[1].split(":");
+            final Field field;
+            try {
+                field = Field.valueOf(fieldScale[0].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown field: " + entry);
+            }
+            final boolean scaled = field == Field.PRICE || field == Field.QUANTITY;
+            if (fieldScale.length != (scaled ? 2 : 1))
+                throw new IllegalArgumentException(scaled ? "Scale required: " + entry : "Scale not supported: " + entry);
+            final int scale = scaled ? Integer.parseInt(fieldScale[1]) : 0;
+            if (scale < 0 || scale >= Decoders.POW10.length)
+                throw new IllegalArgumentException("Scale not supported: " + entry);
+            if (field != Field.SKIP && seen[field.ordinal()])
+                throw new IllegalArgumentException("Field repeated: " + entry);
+            seen[field.ordinal()] = true;
+            tags.add(new Tag(tagField[0], field, scale, tags.size() * 2 + 1));
+        }
+        for (final Field field : new Field[]{Field.PRICE, Field.QUANTITY, Field.SIDE})
+            if (!seen[field.ordinal()])
+                throw new IllegalArgumentException("Missing " + field + ": " + description);
+        return new Schema(tags);
+    }
+
+    private static boolean isTagChar(final char ch) {
+        return ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z' || ch >= '0' && ch <= '9'
+            || ch == '_' || ch == '-' || ch == '.';
+    }
+
+    /**
+     * @return the tag carrying field, null if there is none
+     */
+    public Tag tag(final Field field) {
+        for (final Tag tag : tags)
+            if (tag.field == field)
+                return tag;
+        return null;
+    }
+}
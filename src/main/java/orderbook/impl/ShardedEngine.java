@@ -0,0 +1,256 @@
+package orderbook.impl;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.Builder;
+import orderbook.Decoder;
+import orderbook.Instrument;
+import orderbook.Market;
+import orderbook.OrderBook;
+import orderbook.Side;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies updates on a fixed set of worker threads, each owning the books for the symbols hashed to it
+ *
+ * Each book is only ever touched by its worker, so books need no locks or fences of their own - the
+ * single writer principle. Decoding is done by any number of producer threads (e.g. one {@link Replay}
+ * per capture), each handing updates to a worker through its own {@link UpdateRing}. Every
+ * producer/worker pair has a ring, so a worker's input is multi producer while every ring stays
+ * single producer single consumer and lock free
+ *
+ * Updates for one symbol are applied in the order a producer offered them. Updates for the same symbol
+ * from different producers are not ordered - a symbol should be fed by a single producer
+ *
+ * Books can be read from other threads only once the engine is idle ({@link #awaitIdle()}) or closed. With
+ * snapshotLevels set, each worker also publishes a {@link BookSnapshot} of every book it updated after each
+ * pass over its rings, which can be read from any thread at any time
+ */
+@Builder
+public class ShardedEngine implements Closeable {
+    @Builder.Default
+    private int workers = Runtime.getRuntime().availableProcessors();
+    @Builder.Default
+    private int producers = 1;
+    @Builder.Default
+    private int ringSize = 1 << 16;
+    @Builder.Default
+    private int batch = 256;        // Most updates applied from a ring before moving to the next
+    @Builder.Default
+    private Instrument defaultInstrument = Instrument.builder().build();
+    private int snapshotLevels;     // 0 for no snapshots
+
+    private UpdateRing[][] rings;   // [worker][producer]
+    private Worker[] workerState;
+    private Thread[] threads;
+    private volatile boolean running;
+    private final Map<Long, BookSnapshot> snapshots = new ConcurrentHashMap<>();  // For readers
+
+    public ShardedEngine start() {
+        if (workers < 1 || producers < 1)
+            throw new IllegalArgumentException("workers and producers must be at least 1");
+        rings = new UpdateRing[workers][producers];
+        workerState = new Worker[workers];
+        threads = new Thread[workers];
+        for (int workerIx = 0; workerIx < workers; workerIx++) {
+            for (int producerIx = 0; producerIx < producers; producerIx++)
+                rings[workerIx][producerIx] = new UpdateRing(ringSize);
+            workerState[workerIx] = new Worker(rings[workerIx]);
+        }
+        running = true;
+        for (int workerIx = 0; workerIx < workers; workerIx++) {
+            threads[workerIx] = new Thread(workerState[workerIx], "book-worker-" + workerIx);
+            threads[workerIx].setDaemon(true);
+            threads[workerIx].start();
+        }
+        return this;
+    }
+
+    /**
+     * @return the worker owning symbolId
+     */
+    public int shard(final long symbolId) {
+        return (int)(((symbolId * 0x9E3779B97F4A7C15L) >>> 32) * workers >>> 32);
+    }
+
+    /**
+     * The entry point for producer thread producerIx - to be used by that thread only. Blocks (spinning)
+     * while the worker's ring is full
+     * @throws IllegalStateException from the update, if the engine is closed or the worker has failed while
+     * its ring is full
+     */
+    public Decoder.Add producer(final int producerIx) {
+        final UpdateRing[] out = new UpdateRing[workers];
+        for (int workerIx = 0; workerIx < workers; workerIx++)
+            out[workerIx] = rings[workerIx][producerIx];
+        return (stamp, symbolId, side, price, qty) -> {
+            final int workerIx = shard(symbolId);
+            final UpdateRing ring = out[workerIx];
+            while (!ring.offer(stamp, symbolId, side, price, qty)) {
+                if (!running)
+                    throw new IllegalStateException("Engine closed");
+                checkAlive(workerState[workerIx]);
+                Thread.onSpinWait();
+            }
+        };
+    }
+
+    /**
+     * @throws IllegalStateException, caused by the worker's failure, if the worker has failed
+     */
+    private static void checkAlive(final Worker worker) {
+        if (!worker.alive && worker.failure != null)
+            throw new IllegalStateException("Worker failed", worker.failure);
+    }
+
+    /**
+     * The state owned by one worker thread
+     */
+    private final class Worker implements Runnable, Decoder.Add {
+        final UpdateRing[] in;
+        final Market market = MarketRegistry.builder().defaultInstrument(defaultInstrument).build().init();
+        final Long2ObjectOpenHashMap<BookSnapshot> owned = new Long2ObjectOpenHashMap<>();
+        BookSnapshot[] dirty = new BookSnapshot[16];
+        int dirtyCt;
+        volatile long passes;   // Completed passes over the rings, each ending with its updates published
+        volatile boolean alive = true;      // Cleared once the thread exits, normally or on failure
+        volatile Throwable failure;         // What stopped the worker, if it did not stop normally
+
+        Worker(final UpdateRing[] in) {
+            this.in = in;
+        }
+
+        @Override
+        public void apply(final long stamp, final long symbolId, final Side side, final int price, final int qty) {
+            final OrderBook book = market.bookOrRegister(symbolId);
+            switch (side) {
+                case BID:
+                case OFFER:
+                    book.add(side, price, qty);
+                    break;
+                case CLEAR:
+                    book.clear();
+                    break;
+            }
+            if (snapshotLevels > 0)
+                touch(symbolId, book);
+        }
+
+        private void touch(final long symbolId, final OrderBook book) {
+            BookSnapshot snapshot = owned.get(symbolId);
+            if (snapshot == null) {
+                snapshot = new BookSnapshot(book, snapshotLevels);
+                owned.put(symbolId, snapshot);
+                snapshots.put(symbolId, snapshot);
+            }
+            if (snapshot.dirty) return;
+            snapshot.dirty = true;
+            if (dirtyCt == dirty.length)
+                dirty = Arrays.copyOf(dirty, dirtyCt * 2);
+            dirty[dirtyCt++] = snapshot;
+        }
+
+        private void publish() {
+            for (int ix = 0; ix < dirtyCt; ix++) {
+                dirty[ix].publish();
+                dirty[ix].dirty = false;
+                dirty[ix] = null;
+            }
+            dirtyCt = 0;
+        }
+
+        @Override
+        public void run() {
+            try {
+                int idle = 0;
+                while (running || !isEmpty(in)) {
+                    int applied = 0;
+                    for (final UpdateRing ring : in)
+                        applied += ring.drain(this, batch);
+                    // Back off when there is nothing to do - spin, then yield, then park
+                    if (applied > 0) {
+                        idle = 0;
+                        publish();
+                    } else if (++idle < 100)
+                        Thread.onSpinWait();
+                    else if (idle < 200)
+                        Thread.yield();
+                    else
+                        LockSupport.parkNanos(50_000);
+                    passes++;
+                }
+            } catch (Throwable e) {
+                failure = e;    // Set before alive is cleared, so whoever sees the worker dead sees why
+            } finally {
+                alive = false;
+            }
+        }
+    }
+
+    private static boolean isEmpty(final UpdateRing[] in) {
+        for (final UpdateRing ring : in)
+            if (!ring.isEmpty()) return false;
+        return true;
+    }
+
+    /**
+     * Waits until every update offered so far has been applied, and any snapshots published. Returns at once
+     * for workers that have stopped after close, as they stop only once their rings are drained
+     * @throws IllegalStateException, caused by the worker's failure, if a worker has failed
+     */
+    public void awaitIdle() {
+        for (final Worker worker : workerState) {
+            while (!isEmpty(worker.in) && worker.alive)
+                Thread.yield();
+            // The pass that drained the rings may still be publishing
+            final long passes = worker.passes;
+            while (worker.passes == passes && worker.alive)
+                Thread.yield();
+            checkAlive(worker);
+        }
+    }
+
+    /**
+     * @return the book for symbolId, null if not seen - only safe once idle
+     */
+    public OrderBook book(final long symbolId) {
+        return workerState[shard(symbolId)].market.book(symbolId);
+    }
+
+    /**
+     * @return the published snapshot for symbolId, null if snapshots are off or the symbol has not been
+     * seen - safe from any thread at any time. Hold on to it rather than look it up per read
+     */
+    public BookSnapshot snapshot(final long symbolId) {
+        return snapshots.get(symbolId);
+    }
+
+    /**
+     * Visits every book, worker by worker - only safe once idle
+     */
+    public void forEach(final BiConsumer<Instrument, OrderBook> consumer) {
+        for (final Worker worker : workerState)
+            worker.market.forEach(consumer);
+    }
+
+    /**
+     * Stops the workers once they have applied everything offered
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (final Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package orderbook.impl;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Native memory for book slabs, allocated up front in a few large chunks and carved out by bumping an offset
+ *
+ * A whole market's slabs can be allocated in one go - off the heap, so the collector neither copies nor
+ * scans them - and freed in one go by close(), rather than whenever the collector gets to their buffers.
+ * Slabs are never freed individually. Chunks are at most 1GB (a ByteBuffer is int indexed), and a slab
+ * must fit in one. Memory is zeroed and slabs are 64 byte (cache line) aligned
+ *
+ * Close only once every book using the arena has been dropped - the memory is released immediately,
+ * and a book still using it would read or write freed memory
+ */
+public class SlabArena implements Closeable {
+    static final int ALIGN = 64;
+
+    private final ByteBuffer[] chunks;      // As allocated - the only buffers that can be freed
+    private final ByteBuffer[] aligned;     // The same, starting on a cache line
+    private int chunkIx, used;
+    @Getter
+    private final long capacity;
+    @Getter
+    private long allocated;
+
+    public SlabArena(final long capacity) {
+        this(capacity, 1 << 30);
+    }
+
+    public SlabArena(final long capacity, final int chunkSize) {
+        if (capacity <= 0 || chunkSize <= 0 || chunkSize > (1 << 30))
+            throw new IllegalArgumentException("Bad arena size: " + capacity + "/" + chunkSize);
+        this.capacity = capacity;
+        final int n = (int)((capacity + chunkSize - 1) / chunkSize);
+        chunks = new ByteBuffer[n];
+        aligned = new ByteBuffer[n];
+        long remaining = capacity;
+        for (int ix = 0; ix < n; ix++) {
+            final int size = (int)Math.min(chunkSize, remaining);
+            chunks[ix] = ByteBuffer.allocateDirect(size + ALIGN);
+            aligned[ix] = chunks[ix].alignedSlice(ALIGN);
+            remaining -= size;
+        }
+    }
+
+    /**
+     * @return a zeroed, native order buffer of bytes
+     * @throws IllegalStateException if the arena has no chunk with room
+     */
+    public ByteBuffer allocate(final int bytes) {
+        if (chunks[0] == null)
+            throw new IllegalStateException("Arena closed");
+        final int size = (bytes + ALIGN - 1) & -ALIGN;
+        while (chunkIx < aligned.length && aligned[chunkIx].capacity() - used < size) {
+            chunkIx++;
+            used = 0;
+        }
+        if (chunkIx == aligned.length)
+            throw new IllegalStateException("Arena exhausted allocating " + bytes + " of " + capacity);
+        final ByteBuffer slab = aligned[chunkIx].slice(used, bytes).order(ByteOrder.nativeOrder());
+        used += size;
+        allocated += size;
+        return slab;
+    }
+
+    /**
+     * Frees every chunk now
+     */
+    @Override
+    public void close() {
+        if (chunks[0] == null) return;
+        for (int ix = 0; ix < chunks.length; ix++) {
+            UNSAFE.invokeCleaner(chunks[ix]);
+            chunks[ix] = aligned[ix] = null;
+        }
+    }
+
+    private static final sun.misc.Unsafe UNSAFE;
+    static {
+        try {
+            final Field field = sun.misc.Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (sun.misc.Unsafe)field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package orderbook.impl;
+
+import orderbook.ByteSplitter;
+import orderbook.Splitter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The byte equivalent of {@link SplitterIndexed} - a garbage free splitter over a {@link ByteBuffer}
+ *
+ * Uses a pair of delimiters, expecting the message to alternate between them, so
+ *      t=1638848595|i=BTC-USD|p=32.99|q=100.00|s=b
+ * splits into the same 10 fields. Bytes are read with absolute gets, so any buffer - heap, direct
+ * or mapped - can be split in place and a buffer holding many messages can be split one at a time
+ */
+public class SplitterBytes implements ByteSplitter {
+
+    int[] split;
+    int splitIx;
+    ByteBuffer msg;
+
+    public SplitterBytes(final int maxElements) {
+        split = new int[maxElements];
+    }
+
+    @Override
+    public int fieldCt() {
+        return splitIx - 1;
+    }
+
+    @Override
+    public int begin(final int ix) {
+        return split[ix];
+    }
+
+    @Override
+    public int end(final int ix) {
+        return split[ix + 1] - 1;
+    }
+
+    @Override
+    public long toLong(final int ix, final ToLongFunction toLong) {
+        return toLong.apply(msg, split[ix], split[ix + 1] - 1);
+    }
+
+    @Override
+    public char toChar(final int ix, final ToCharFunction toChar) {
+        return toChar.apply(msg, split[ix], split[ix + 1] - 1);
+    }
+
+    @Override
+    public Splitter.Result split(final ByteBuffer msg, final int from, final int to, final String delim) {
+        this.msg = msg;
+        final byte delim0 = (byte)delim.charAt(0), delim1 = (byte)delim.charAt(1);
+        splitIx = 0;
+        split[splitIx++] = from;
+        byte expect = delim1;
+        for (int ix = from; ix < to; ix++) {
+            if (msg.get(ix) == expect) {
+                if (splitIx == split.length - 1) return Splitter.Result.FAILED;
+                split[splitIx++] = ix + 1;
+                expect = (splitIx & 1) == 0 ? delim0 : delim1;
+            }
+        }
+        if (split[splitIx - 1] != to) split[splitIx++] = to + 1;
+        return Splitter.Result.OK;
+    }
+}
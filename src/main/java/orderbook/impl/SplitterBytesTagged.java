@@ -0,0 +1,45 @@
+package orderbook.impl;
+
+import orderbook.Splitter;
+import orderbook.TagIndex;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The byte equivalent of {@link SplitterTagged} - a {@link SplitterBytes} that also indexes the value of
+ * each single character tag as it splits
+ */
+public class SplitterBytesTagged extends SplitterBytes implements TagIndex {
+    private final TagTable tags = new TagTable();
+
+    public SplitterBytesTagged(final int maxElements) {
+        super(maxElements);
+    }
+
+    @Override
+    public int field(final char tag) {
+        return tags.get(tag);
+    }
+
+    @Override
+    public Splitter.Result split(final ByteBuffer msg, final int from, final int to, final String delim) {
+        this.msg = msg;
+        final byte delim0 = (byte)delim.charAt(0), delim1 = (byte)delim.charAt(1);
+        splitIx = 0;
+        split[splitIx++] = from;
+        tags.next();
+        byte expect = delim1;
+        for (int ix = from; ix < to; ix++) {
+            if (msg.get(ix) == expect) {
+                if (splitIx == split.length - 1) return Splitter.Result.FAILED;
+                final int tag = split[splitIx - 1];
+                if ((splitIx & 1) == 1 && ix - tag == 1)    // Ends a single character tag - its value is next
+                    tags.put(msg.get(tag) & 0xFF, splitIx);
+                split[splitIx++] = ix + 1;
+                expect = (splitIx & 1) == 0 ? delim0 : delim1;
+            }
+        }
+        if (split[splitIx - 1] != to) split[splitIx++] = to + 1;
+        return Splitter.Result.OK;
+    }
+}
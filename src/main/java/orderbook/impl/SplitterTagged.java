@@ -0,0 +1,41 @@
+package orderbook.impl;
+
+import orderbook.TagIndex;
+
+/**
+ * A {@link SplitterIndexed} that also indexes the value of each single character tag as it splits, so
+ * {@link DecoderTagged} can find a field by tag rather than position
+ */
+public class SplitterTagged extends SplitterIndexed implements TagIndex {
+    private final TagTable tags = new TagTable();
+
+    public SplitterTagged(final int maxElements) {
+        super(maxElements);
+    }
+
+    @Override
+    public int field(final char tag) {
+        return tags.get(tag);
+    }
+
+    @Override
+    public Result split(final String msg, final String delim) {
+        this.msg = msg;
+        int from = splitIx = 0;
+        final int len = msg.length();
+        split[splitIx++] = 0;
+        tags.next();
+        while (true) {
+            final int delimc = delim.charAt(splitIx & 1);
+            final int offset = msg.indexOf(delimc, from);
+            if (offset == -1) {
+                if (from != len) split[splitIx++] = len + 1;
+                return Result.OK;
+            }
+            if ((splitIx & 1) == 1 && offset - from == 1)   // Ends a single character tag - its value is next
+                tags.put(msg.charAt(from), splitIx);
+            split[splitIx++] = offset + 1;
+            from = offset + 1;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package orderbook.impl;
+
+import lombok.Builder;
+import orderbook.Instrument;
+import orderbook.OrderBook;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Interns symbols, of any length, to dense ids from 0 - each with its book and instrument
+ *
+ * Where {@link MarketRegistry} is keyed on a symbol packed into a long (at most 8 characters - longer symbols
+ * such as 1000SHIBUSDT lose their leading characters and may collide), this is keyed on the symbol's bytes.
+ * Lookup packs the first 8 bytes from the feed into a long, as toLongChar8 does, hashes in any further bytes and
+ * probes an open addressed table holding each id and its hash - comparing the packed head, then any bytes past
+ * it, only on a matching hash. The id then indexes the books directly, so a decoder can hand it on in place of a
+ * packed symbol ({@link DecoderInterned}) and each message routes to books[id]
+ *
+ * Bytes past the head are held one after another in a single array, so nothing is allocated per lookup - a
+ * String is only made when a symbol is first registered. Symbols are ASCII. Preload the symbols of a feed at startup
+ * with {@link #register(Instrument)}; any other is registered from the default instrument on first sight
+ */
+@Builder
+public class SymbolDictionary {
+    public static final int ABSENT = -1;
+
+    /**
+     * Used by bookOrRegister for symbols first seen in the feed - its symbol is replaced
+     */
+    @Builder.Default
+    private Instrument defaultInstrument = Instrument.builder().build();
+    @Builder.Default
+    private int capacity = 64;
+    /**
+     * Where DIRECT_OFFHEAP books take their slabs from - each book allocates its own if null
+     */
+    private SlabArena arena;
+
+    private int[] slotIds, slotHashes;      // Per slot - id + 1 (0 for an empty slot) and its hash
+    private long[] heads;                   // Per id - the first 8 bytes, packed as toLongChar8
+    private int[] lengths, tails;           // Per id - the length, and where any bytes past the first 8 are in names
+    private byte[] names;
+    private OrderBook[] books;
+    private Instrument[] instruments;
+    private int size, namesSize, shift;
+
+    public SymbolDictionary init() {
+        final int n = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        slotIds = new int[n];
+        slotHashes = new int[n];
+        shift = 32 - Integer.numberOfTrailingZeros(n);
+        heads = new long[n / 2];
+        lengths = new int[n / 2];
+        tails = new int[n / 2];
+        names = new byte[n / 2 * 8];
+        books = new OrderBook[n / 2];
+        instruments = new Instrument[n / 2];
+        size = namesSize = 0;
+        return this;
+    }
+
+    /**
+     * @return the id of the symbol in bytes [from, to), ABSENT if not registered
+     */
+    public int id(final ByteBuffer bytes, final int from, final int to) {
+        final long head = Decoders.toLongChar8(bytes, from, Math.min(to, from + 8));
+        final int hash = hash(head, bytes, from, to);
+        final int mask = slotIds.length - 1;
+        for (int ix = hash >>> shift; ; ix = (ix + 1) & mask) {
+            final int id = slotIds[ix] - 1;
+            if (id < 0) return ABSENT;
+            if (slotHashes[ix] == hash && heads[id] == head && matches(id, bytes, from, to)) return id;
+        }
+    }
+
+    /**
+     * @return the id of the symbol in chars [from, to), ABSENT if not registered
+     */
+    public int id(final CharSequence chars, final int from, final int to) {
+        final long head = Decoders.toLongChar8(chars, from, Math.min(to, from + 8));
+        final int hash = hash(head, chars, from, to);
+        final int mask = slotIds.length - 1;
+        for (int ix = hash >>> shift; ; ix = (ix + 1) & mask) {
+            final int id = slotIds[ix] - 1;
+            if (id < 0) return ABSENT;
+            if (slotHashes[ix] == hash && heads[id] == head && matches(id, chars, from, to)) return id;
+        }
+    }
+
+    /**
+     * @return the id of symbol, ABSENT if not registered
+     */
+    public int id(final CharSequence symbol) {
+        return id(symbol, 0, symbol.length());
+    }
+
+    /**
+     * @return the id of the symbol in bytes [from, to), registering it from the default instrument if needed
+     * @throws IllegalArgumentException if the symbol is empty or not ASCII
+     */
+    public int idOrRegister(final ByteBuffer bytes, final int from, final int to) {
+        final int id = id(bytes, from, to);
+        if (id != ABSENT) return id;
+        final byte[] symbol = new byte[to - from];
+        bytes.get(from, symbol);
+        return add(defaultInstrument.toBuilder().symbol(new String(symbol, StandardCharsets.ISO_8859_1)).build());
+    }
+
+    /**
+     * @return the id of the symbol in chars [from, to), registering it from the default instrument if needed
+     * @throws IllegalArgumentException if the symbol is empty or not ASCII
+     */
+    public int idOrRegister(final CharSequence chars, final int from, final int to) {
+        final int id = id(chars, from, to);
+        if (id != ABSENT) return id;
+        return add(defaultInstrument.toBuilder().symbol(chars.subSequence(from, to).toString()).build());
+    }
+
+    /**
+     * Creates the book described by instrument, for instrument.symbol
+     * @return the symbol's id
+     * @throws IllegalArgumentException if the symbol is missing, not ASCII or already registered
+     */
+    public int register(final Instrument instrument) {
+        final String symbol = instrument.getSymbol();
+        if (symbol != null && id(symbol) != ABSENT)
+            throw new IllegalArgumentException("Already registered: " + instrument);
+        return add(instrument);
+    }
+
+    /**
+     * @return the book for id
+     */
+    public OrderBook book(final int id) {
+        return books[id];
+    }
+
+    /**
+     * @return the book for the symbol in bytes [from, to), null if not registered
+     */
+    public OrderBook book(final ByteBuffer bytes, final int from, final int to) {
+        final int id = id(bytes, from, to);
+        return id == ABSENT ? null : books[id];
+    }
+
+    /**
+     * @return the book for the symbol in bytes [from, to), registering it from the default instrument if needed
+     */
+    public OrderBook bookOrRegister(final ByteBuffer bytes, final int from, final int to) {
+        return books[idOrRegister(bytes, from, to)];
+    }
+
+    public Instrument instrument(final int id) {
+        return instruments[id];
+    }
+
+    public String symbol(final int id) {
+        return instruments[id].getSymbol();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every symbol, in id order
+     */
+    public void forEach(final BiConsumer<Instrument, OrderBook> consumer) {
+        for (int id = 0; id < size; id++)
+            consumer.accept(instruments[id], books[id]);
+    }
+
+    /**
+     * An instrument without a symbolId is given the packed head - the books (the DIRECT ones in particular)
+     * need one, though it only identifies symbols of up to 8 characters
+     */
+    private int add(Instrument instrument) {
+        final String symbol = instrument.getSymbol();
+        if (symbol == null || symbol.isEmpty())
+            throw new IllegalArgumentException("symbol must be specified");
+        for (int ix = 0; ix < symbol.length(); ix++)
+            if (symbol.charAt(ix) >= 128)
+                throw new IllegalArgumentException("symbol must be ASCII: " + symbol);
+        final int length = symbol.length();
+        final long head = Decoders.toLongChar8(symbol, 0, Math.min(length, 8));
+        if (instrument.getSymbolId() == 0)
+            instrument = instrument.toBuilder().symbolId(head).build();
+        final OrderBook book = MarketRegistry.create(instrument, arena);     // Before any change, as it may throw
+        if ((size + 1) * 2 > slotIds.length)
+            resize();
+        final int id = size++;
+        if (namesSize + length > names.length)
+            names = Arrays.copyOf(names, Math.max(names.length * 2, namesSize + length));
+        heads[id] = head;
+        lengths[id] = length;
+        tails[id] = namesSize;
+        for (int ix = 8; ix < length; ix++)
+            names[namesSize++] = (byte)symbol.charAt(ix);
+        books[id] = book;
+        instruments[id] = instrument;
+        insert(id, hash(head, symbol, 0, length));
+        return id;
+    }
+
+    private void insert(final int id, final int hash) {
+        final int mask = slotIds.length - 1;
+        int ix = hash >>> shift;
+        while (slotIds[ix] != 0)
+            ix = (ix + 1) & mask;
+        slotIds[ix] = id + 1;
+        slotHashes[ix] = hash;
+    }
+
+    private void resize() {
+        final int[] oldIds = slotIds, oldHashes = slotHashes;
+        slotIds = new int[oldIds.length * 2];
+        slotHashes = new int[slotIds.length];
+        shift--;
+        for (int ix = 0; ix < oldIds.length; ix++)
+            if (oldIds[ix] != 0)
+                insert(oldIds[ix] - 1, oldHashes[ix]);
+        final int ids = slotIds.length / 2;
+        heads = Arrays.copyOf(heads, ids);
+        lengths = Arrays.copyOf(lengths, ids);
+        tails = Arrays.copyOf(tails, ids);
+        books = Arrays.copyOf(books, ids);
+        instruments = Arrays.copyOf(instruments, ids);
+    }
+
+    /**
+     * Past the head, which has been compared already
+     */
+    private boolean matches(final int id, final ByteBuffer bytes, final int from, final int to) {
+        if (lengths[id] != to - from) return false;
+        for (int ix = from + 8, tail = tails[id]; ix < to; ix++, tail++)
+            if (names[tail] != bytes.get(ix)) return false;
+        return true;
+    }
+
+    private boolean matches(final int id, final CharSequence chars, final int from, final int to) {
+        if (lengths[id] != to - from) return false;
+        for (int ix = from + 8, tail = tails[id]; ix < to; ix++, tail++)
+            if (names[tail] != chars.charAt(ix)) return false;
+        return true;
+    }
+
+    /**
+     * The same hash for the same ASCII symbol, as bytes or chars - mixed, so the top bits pick the slot. A symbol
+     * of up to 8 bytes costs no more to hash than to pack
+     */
+    private static int hash(final long head, final ByteBuffer bytes, final int from, final int to) {
+        long hash = head;
+        for (int ix = from + 8; ix < to; ix++)
+            hash = hash * 31 + (bytes.get(ix) & 0xFF);
+        return (int)((hash * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    private static int hash(final long head, final CharSequence chars, final int from, final int to) {
+        long hash = head;
+        for (int ix = from + 8; ix < to; ix++)
+            hash = hash * 31 + chars.charAt(ix);
+        return (int)((hash * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+}
@@ -0,0 +1,37 @@
+package orderbook.impl;
+
+import orderbook.TagIndex;
+
+import java.util.Arrays;
+
+/**
+ * The value field of each single character ASCII tag in a message, direct indexed by the tag character
+ *
+ * Each entry is stamped with the message it was written for, so the table is never cleared between messages
+ * - an entry from an earlier message reads as absent
+ */
+final class TagTable {
+    private final int[] fields = new int[128], written = new int[128];
+    private int generation;
+
+    /**
+     * Starts a new message, forgetting every tag of the last
+     */
+    void next() {
+        if (++generation == 0) {    // Wrapped - no old stamp may match the new generation
+            Arrays.fill(written, 0);
+            generation = 1;
+        }
+    }
+
+    void put(final int tag, final int field) {
+        if (tag < 128) {
+            fields[tag] = field;
+            written[tag] = generation;
+        }
+    }
+
+    int get(final char tag) {
+        return tag < 128 && written[tag] == generation ? fields[tag] : TagIndex.ABSENT;
+    }
+}
@@ -0,0 +1,110 @@
+package orderbook.impl;
+
+import orderbook.Decoder;
+import orderbook.Side;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A bounded, lock free, single producer single consumer ring of book updates
+ *
+ * Updates are held field by field in primitive arrays, so nothing is allocated per update. The producer
+ * and consumer each own one sequence, published with release and read with acquire semantics, and each
+ * caches the other's so it only reads the shared value when the ring looks full (or empty). The
+ * sequences are padded onto their own cache lines. The consumer advances its sequence only once a
+ * batch has been applied - an empty ring means every update offered has been applied
+ */
+public class UpdateRing {
+    private static final Side[] SIDES = Side.values();
+
+    @SuppressWarnings("unused")
+    static class LhsPad { long p1, p2, p3, p4, p5, p6, p7; }
+    static class Value extends LhsPad { volatile long value; }
+    @SuppressWarnings("unused")
+    static class Sequence extends Value { long p9, p10, p11, p12, p13, p14, p15; }
+
+    private static final VarHandle VALUE;
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Value.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int capacity, mask;
+    private final long[] stamps, symbolIds;
+    private final byte[] sides;
+    private final int[] prices, quantities;
+
+    private final Sequence head = new Sequence();  // Next to consume, written by the consumer
+    private final Sequence tail = new Sequence();  // Next to offer, written by the producer
+    private long headCache;                        // Producer's view of head
+    private long tailCache;                        // Consumer's view of tail
+
+    public UpdateRing(final int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of 2: " + capacity);
+        this.capacity = capacity;
+        mask = capacity - 1;
+        stamps = new long[capacity];
+        symbolIds = new long[capacity];
+        sides = new byte[capacity];
+        prices = new int[capacity];
+        quantities = new int[capacity];
+    }
+
+    /**
+     * Producer only
+     * @return false if the ring is full
+     */
+    public boolean offer(final long stamp, final long symbolId, final Side side, final int price, final int quantity) {
+        final long t = (long)VALUE.getOpaque(tail);
+        if (t - headCache >= capacity) {
+            headCache = (long)VALUE.getAcquire(head);
+            if (t - headCache >= capacity)
+                return false;
+        }
+        final int ix = (int)t & mask;
+        stamps[ix] = stamp;
+        symbolIds[ix] = symbolId;
+        sides[ix] = (byte)side.ordinal();
+        prices[ix] = price;
+        quantities[ix] = quantity;
+        VALUE.setRelease(tail, t + 1);
+        return true;
+    }
+
+    /**
+     * Consumer only - applies up to max updates, in order
+     * @return the number applied, 0 if the ring was empty
+     */
+    public int drain(final Decoder.Add add, final int max) {
+        final long h = (long)VALUE.getOpaque(head);
+        if (tailCache - h < max) {
+            tailCache = (long)VALUE.getAcquire(tail);
+            if (tailCache == h)
+                return 0;
+        }
+        final int n = (int)Math.min(tailCache - h, max);
+        for (long seq = h; seq < h + n; seq++) {
+            final int ix = (int)seq & mask;
+            add.apply(stamps[ix], symbolIds[ix], SIDES[sides[ix]], prices[ix], quantities[ix]);
+        }
+        VALUE.setRelease(head, h + n);
+        return n;
+    }
+
+    /**
+     * Safe from any thread
+     * @return true if every update offered has been applied
+     */
+    public boolean isEmpty() {
+        return (long)VALUE.getAcquire(head) == (long)VALUE.getAcquire(tail);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,174 @@
+package orderbook;
+
+import orderbook.impl.BookArtL3;
+import orderbook.impl.BookFastUtil;
+import orderbook.impl.Matcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestBookL3 {
+
+    @Test
+    void testQueue() {
+        final BookArtL3 book = BookArtL3.builder().expectedOrders(2).build().init();
+        book.addOrder(1, Side.BID, 100, 10)
+            .addOrder(2, Side.BID, 100, 20)
+            .addOrder(3, Side.BID, 100, 30)
+            .addOrder(4, Side.BID, 99, 5)
+            .addOrder(5, Side.OFFER, 102, 7);
+        assertEquals(60, book.get(Side.BID, 100));
+        assertEquals(3, book.orders(Side.BID, 100));
+        assertEquals(2, book.depth(Side.BID));
+        assertEquals(65, book.totalSize(Side.BID));
+        assertEquals(101, book.getMidPrice());
+        assertEquals(2, book.queuePosition(3));
+        assertEquals(30, book.queueAhead(3));
+
+        // A reduction keeps its place, an increase goes to the back
+        assertTrue(book.modifyOrder(1, 5));
+        assertEquals(0, book.queuePosition(1));
+        assertEquals(5, book.queueAhead(2));
+        assertTrue(book.modifyOrder(2, 25));
+        assertEquals(2, book.queuePosition(2));
+        assertEquals(35, book.queueAhead(2));
+        assertEquals(60, book.get(Side.BID, 100));
+        assertEquals("1:5 3:30 2:25 ", queue(book, Side.BID, 100));
+
+        // A new price goes to the back there
+        assertTrue(book.replaceOrder(1, 99, 8));
+        assertEquals(1, book.queuePosition(1));
+        assertEquals(13, book.get(Side.BID, 99));
+        assertEquals(0, book.queuePosition(3));
+
+        // Cancelling the last order removes the level
+        assertTrue(book.cancelOrder(5));
+        assertEquals(0, book.depth(Side.OFFER));
+        assertEquals(OrderBook.NO_VALUE, book.get(Side.OFFER, 102));
+        assertEquals(OrderBook.NO_PRICE, book.getMidPrice());
+        assertTrue(book.modifyOrder(4, 0));
+        assertEquals(8, book.get(Side.BID, 99));
+
+        assertFalse(book.cancelOrder(5));
+        assertFalse(book.modifyOrder(5, 1));
+        assertFalse(book.replaceOrder(5, 1, 1));
+        assertEquals(-1, book.queuePosition(5));
+        assertEquals(OrderBook.NO_VALUE, book.orderQuantity(5));
+        assertThrows(IllegalArgumentException.class, () -> book.addOrder(1, Side.OFFER, 110, 1));
+        assertThrows(IllegalArgumentException.class, () -> book.addOrder(6, Side.OFFER, 110, 0));
+        assertThrows(IllegalArgumentException.class, () -> book.addOrder(OrderBookL3.SYNTHETIC_ORDER, Side.OFFER, 110, 1));
+        final int before = book.orderQuantity(3);
+        assertTrue(before > 0);
+        assertThrows(IllegalArgumentException.class, () -> book.replaceOrder(3, 101, -1));
+        assertEquals(before, book.orderQuantity(3));     // Still live, untouched
+
+        book.clear();
+        assertEquals(0, book.depth(Side.BID));
+        assertEquals(OrderBook.NO_VALUE, book.orderQuantity(3));
+        book.addOrder(3, Side.BID, 100, 1);
+        assertEquals(0, book.queuePosition(3));
+    }
+
+    @Test
+    void testL2Add() {
+        final BookArtL3 book = BookArtL3.builder().build().init();
+        book.addOrder(1, Side.OFFER, 100, 10).addOrder(2, Side.OFFER, 100, 20);
+
+        // An increase rests behind the orders there, and grows while it is at the back
+        book.add(Side.OFFER, 100, 40).add(Side.OFFER, 100, 45).add(Side.OFFER, 101, 5);
+        assertEquals(45, book.get(Side.OFFER, 100));
+        assertEquals(3, book.orders(Side.OFFER, 100));
+        assertEquals(50, book.totalSize(Side.OFFER));
+        book.addOrder(3, Side.OFFER, 100, 1);
+        assertEquals(3, book.queuePosition(3));
+        assertEquals(45, book.queueAhead(3));
+
+        // A decrease is taken from the front, as a fill
+        book.add(Side.OFFER, 100, 30);
+        assertEquals(OrderBook.NO_VALUE, book.orderQuantity(1));
+        assertEquals(14, book.orderQuantity(2));
+        assertEquals(0, book.queuePosition(2));
+        assertEquals(30, book.get(Side.OFFER, 100));
+        assertEquals(35, book.totalSize(Side.OFFER));
+        assertFalse(book.cancelOrder(OrderBookL3.SYNTHETIC_ORDER));
+
+        // So a Matcher sweeps an L3 book front first
+        final Matcher matcher = Matcher.builder().build().init();
+        assertEquals(32, matcher.match(book, Side.BID, 101, 32));
+        assertEquals(OrderBook.NO_VALUE, book.orderQuantity(2));
+        assertEquals(OrderBook.NO_VALUE, book.orderQuantity(3));
+        assertEquals(OrderBook.NO_VALUE, book.get(Side.OFFER, 100));
+        assertEquals(3, book.get(Side.OFFER, 101));
+        assertEquals(1, book.depth(Side.OFFER));
+
+        // 0 removes the level, and its orders
+        book.addOrder(4, Side.OFFER, 101, 2);
+        book.add(Side.OFFER, 101, 0);
+        assertEquals(0, book.depth(Side.OFFER));
+        assertEquals(0, book.totalSize(Side.OFFER));
+        assertEquals(OrderBook.NO_VALUE, book.orderQuantity(4));
+        book.addOrder(4, Side.OFFER, 101, 2);       // Its orderId is free again
+        assertThrows(IllegalArgumentException.class, () -> book.add(Side.BID, 100, -1));
+    }
+
+    @Test
+    void testMatchesL2() {
+        // Random orders, with the L2 book kept from the per price totals
+        final Random r = new Random(0);
+        final BookArtL3 book = BookArtL3.builder().build().init();
+        final BookFastUtil reference = BookFastUtil.builder().build();
+        final int orders = 2_000;
+        final Side[] sides = new Side[orders];
+        final int[] prices = new int[orders], quantities = new int[orders];
+        final int[] levelPrices = new int[10], levelQty = new int[10], refPrices = new int[10], refQty = new int[10];
+        for (int ix = 0; ix < 100_000; ix++) {
+            final int orderId = r.nextInt(orders);
+            final Side side = sides[orderId];
+            if (side == null) {
+                sides[orderId] = r.nextBoolean() ? Side.BID : Side.OFFER;
+                prices[orderId] = sides[orderId] == Side.BID ? 900 + r.nextInt(100) : 1000 + r.nextInt(100);
+                quantities[orderId] = 1 + r.nextInt(100);
+                book.addOrder(orderId, sides[orderId], prices[orderId], quantities[orderId]);
+                levelAdd(reference, sides[orderId], prices[orderId], quantities[orderId]);
+            } else if (r.nextBoolean()) {
+                assertTrue(book.cancelOrder(orderId));
+                levelAdd(reference, side, prices[orderId], -quantities[orderId]);
+                sides[orderId] = null;
+            } else {
+                final int quantity = 1 + r.nextInt(100);
+                assertTrue(book.modifyOrder(orderId, quantity));
+                levelAdd(reference, side, prices[orderId], quantity - quantities[orderId]);
+                quantities[orderId] = quantity;
+                assertEquals(quantity, book.orderQuantity(orderId));
+            }
+            for (final Side check : new Side[]{Side.BID, Side.OFFER}) {
+                reference.getLevels(check, 10, refPrices, refQty);
+                book.getLevels(check, 10, levelPrices, levelQty);
+                assertArrayEquals(refPrices, levelPrices, ix + " " + check);
+                assertArrayEquals(refQty, levelQty, ix + " " + check);
+                assertEquals(reference.depth(check), book.depth(check));
+                assertEquals(reference.totalSize(check), book.totalSize(check));
+            }
+        }
+    }
+
+    private static void levelAdd(final OrderBook book, final Side side, final int price, final int quantity) {
+        final int current = book.get(side, price);
+        book.add(side, price, (current == OrderBook.NO_VALUE ? 0 : current) + quantity);
+    }
+
+    private static String queue(final OrderBookL3 book, final Side side, final int price) {
+        final StringBuilder out = new StringBuilder();
+        book.forEachOrder(side, price, out, (sb, orderId, quantity) -> {
+            sb.append(orderId).append(':').append(quantity).append(' ');
+            return true;
+        });
+        return out.toString();
+    }
+}
@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -41,9 +44,17 @@ public class TestBooks {
 
     private static OrderBook[] bookSource() {
         return new OrderBook[] {
-            BookArt.builder().maxIterationLevel(20).build().init(),
+            BookArt.builder().build().init(),
             BookDirect.builder().depth(100).symbolId(1).build().initialiseSlabs(),
+            BookDirectBitmap.builder().depth(100).symbolId(1).build().initialiseSlabs(),
             BookFastUtil.builder().build(),
+            BookDirectSliding.builder().window(8).build().initialiseSlabs(),
+            BookDirectOffHeap.builder().depth(100).symbolId(1).build().initialiseSlabs(),
+            BookDirectOffHeap.builder().depth(100).symbolId(1).arena(new SlabArena(1000)).build().initialiseSlabs(),
+            BookDirectShort.builder().depth(100).symbolId(1).build().initialiseSlabs(),
+            BookDirectTick.builder().depth(100).symbolId(1).build().initialiseSlabs(),
+            // Odd prices and those outside 20 to 38 go to the overflow
+            BookDirectTick.builder().depth(10).base(20).tick(2).symbolId(1).build().initialiseSlabs(),
         };
     }
     @ParameterizedTest
@@ -98,4 +109,120 @@ public class TestBooks {
         assertEquals(3, BookUtils.getLevelSatisfyingSize(book, Side.OFFER, 35));
     }
 
+
+    @ParameterizedTest
+    @MethodSource("bookSource")
+    void testTotals(OrderBook book) {
+        assertEquals(OrderBook.NO_PRICE, book.getMidPrice());
+        for (int price = 1; price <= 5; price++) {
+            book.add(Side.BID,   50 - price, 10 * price);
+            book.add(Side.OFFER, 50 + price, 20 * price);
+        }
+        assertEquals(150, book.totalSize(Side.BID));
+        assertEquals(300, book.totalSize(Side.OFFER));
+        assertEquals(50, book.getMidPrice());
+
+        book.add(Side.BID, 49, 0);      // Remove head
+        book.add(Side.OFFER, 52, 5);    // Update
+        book.add(Side.OFFER, 60, 0);    // Remove a level that does not exist
+        assertEquals(4, book.depth(Side.BID));
+        assertEquals(5, book.depth(Side.OFFER));
+        assertEquals(140, book.totalSize(Side.BID));
+        assertEquals(265, book.totalSize(Side.OFFER));
+        assertEquals(49, book.getMidPrice());
+
+        for (int price = 1; price <= 5; price++)
+            book.add(Side.OFFER, 50 + price, 0);
+        assertEquals(0, book.depth(Side.OFFER));
+        assertEquals(0, book.totalSize(Side.OFFER));
+        assertEquals(OrderBook.NO_PRICE, book.getMidPrice());
+
+        book.clear();
+        assertEquals(0, book.depth(Side.BID));
+        assertEquals(0, book.totalSize(Side.BID));
+    }
+
+    @ParameterizedTest
+    @MethodSource("bookSource")
+    void testEarlyTermination(OrderBook book) {
+        for (int price = 1; price <= 5; price++)
+            book.add(Side.OFFER, 50 + price, 15);
+        final int[] ct = new int[1];
+        book.forEach(Side.OFFER, (price, size) -> ++ct[0] < 2);
+        assertEquals(2, ct[0]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("bookSource")
+    void testContextVisitor(OrderBook book) {
+        final int[] none = new int[3];
+        book.forEach(Side.BID, none, (ct, price, size) -> ++ct[0] > 0);
+        assertEquals(0, none[0]);   // Empty side is not visited
+
+        for (int price = 1; price <= 5; price++) {
+            book.add(Side.BID,   50 - price, 10 * price);
+            book.add(Side.OFFER, 50 + price, 20 * price);
+        }
+        final int[] ct = new int[1];
+        book.forEach(Side.OFFER, ct, (c, price, size) -> ++c[0] < 3);
+        assertEquals(3, ct[0]);
+
+        final int[] prices = new int[7], qty = new int[7];
+        final int[] expectPrices = new int[7], expectQty = new int[7];
+        final BookUtils.WorkingLevels working = new BookUtils.WorkingLevels();
+        for (final Side side : new Side[]{Side.BID, Side.OFFER}) {
+            for (final int level : new int[]{0, 3, 7}) {
+                book.getLevels(side, level, expectPrices, expectQty);
+                BookUtils.getLevels(book, side, level, prices, qty, working);
+                assertArrayEquals(expectPrices, prices, side + " " + level);
+                assertArrayEquals(expectQty, qty, side + " " + level);
+            }
+        }
+        assertEquals(60, BookUtils.getSizeUpToLevel(book, Side.BID, 3, new BookUtils.WorkingSizeUpToLevel()));
+        assertEquals(3, BookUtils.getLevelSatisfyingSize(book, Side.OFFER, 101, new BookUtils.WorkingLevelSatisfyingSize()));
+        assertEquals(5, BookUtils.getLevelSatisfyingSize(book, Side.OFFER, 1_000));
+    }
+
+    @Test
+    void testArtUncapped() {
+        final OrderBook book = BookArt.builder().build().init();
+        for (int price = 1; price <= 500; price++)
+            book.add(Side.BID, price, price);
+        final int[] ct = new int[1];
+        book.forEach(Side.BID, (price, size) -> {
+            assertEquals(500 - ct[0]++, price);
+            return true;
+        });
+        assertEquals(500, ct[0]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("bookSource")
+    void testBatch(final OrderBook book) {
+        // Batches that remove and replace the top and repeat prices, against one add at a time
+        final Random r = new Random(0);
+        final OrderBook reference = BookFastUtil.builder().build();
+        final Side[] sides = new Side[50];
+        final int[] prices = new int[50], quantities = new int[50];
+        final int[] refPrices = new int[10], refQty = new int[10], outPrices = new int[10], outQty = new int[10];
+        for (int batch = 0; batch < 2_000; batch++) {
+            final int offset = r.nextInt(10), len = r.nextInt(40);
+            for (int ix = offset; ix < offset + len; ix++) {
+                sides[ix] = r.nextBoolean() ? Side.BID : Side.OFFER;
+                prices[ix] = sides[ix] == Side.BID ? 1 + r.nextInt(49) : 50 + r.nextInt(49);
+                quantities[ix] = r.nextInt(3) == 0 ? 0 : 1 + r.nextInt(1_000);
+                reference.add(sides[ix], prices[ix], quantities[ix]);
+            }
+            book.addBatch(sides, prices, quantities, offset, len);
+            for (final Side side : new Side[]{Side.BID, Side.OFFER}) {
+                reference.getLevels(side, 10, refPrices, refQty);
+                book.getLevels(side, 10, outPrices, outQty);
+                assertArrayEquals(refPrices, outPrices, batch + " " + side);
+                assertArrayEquals(refQty, outQty, batch + " " + side);
+                assertEquals(reference.depth(side), book.depth(side), batch + " " + side);
+                assertEquals(reference.totalSize(side), book.totalSize(side), batch + " " + side);
+            }
+            assertEquals(reference.getMidPrice(), book.getMidPrice(), batch + "");
+        }
+    }
 }
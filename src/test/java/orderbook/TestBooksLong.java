@@ -0,0 +1,100 @@
+package orderbook;
+
+import orderbook.impl.BookArt;
+import orderbook.impl.BookDirectLong;
+import orderbook.impl.BookFastUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestBooksLong {
+    // 8 decimal places - 0.00012340 to 0.00012439 in 0.00000001 ticks, and quantities beyond an int
+    static final long BASE = 12340, TICK = 1, BIG = 50_000_000_000L;
+
+    private static OrderBookLong[] bookSource() {
+        return new OrderBookLong[] {
+            BookArt.builder().build().init(),
+            BookFastUtil.builder().build(),
+            BookDirectLong.builder().symbolId(1).base(BASE).tick(TICK).depth(100).build().initialiseSlabs(),
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("bookSource")
+    void testAddAndRead(final OrderBookLong book) {
+        for (int level = 1; level <= 5; level++) {
+            book.add(Side.BID, BASE + 50 - level * 2, BIG + level);
+            book.add(Side.OFFER, BASE + 50 + level * 2, BIG * 2 + level);
+        }
+        assertEquals(BASE + 50, book.getMidPriceLong());
+        assertEquals(5, book.depth(Side.BID));
+        assertEquals(5 * BIG + 15, book.totalSize(Side.BID));
+        assertEquals(BIG + 1, book.get(Side.BID, BASE + 48));
+        assertEquals(OrderBookLong.NO_VALUE, book.get(Side.BID, BASE + 49));
+
+        final long[] prices = new long[6], qty = new long[6];
+        book.getLevels(Side.OFFER, 6, prices, qty);
+        assertArrayEquals(new long[]{BASE + 52, BASE + 54, BASE + 56, BASE + 58, BASE + 60, OrderBookLong.NO_PRICE}, prices);
+        assertArrayEquals(new long[]{BIG * 2 + 1, BIG * 2 + 2, BIG * 2 + 3, BIG * 2 + 4, BIG * 2 + 5, 0}, qty);
+
+        final long[] seen = {0, 0};
+        book.forEach(Side.BID, seen, (ct, price, size) -> {
+            ct[1] += size;
+            return ++ct[0] < 3;
+        });
+        assertArrayEquals(new long[]{3, 3 * BIG + 6}, seen);
+
+        // Remove the top bid
+        book.add(Side.BID, BASE + 48, 0);
+        book.getLevels(Side.BID, 2, prices, qty);
+        assertEquals(BASE + 46, prices[0]);
+        assertEquals(BASE + 44, prices[1]);
+        assertEquals(4 * BIG + 14, book.totalSize(Side.BID));
+
+        book.clear();
+        assertEquals(0, book.depth(Side.OFFER));
+        assertEquals(OrderBookLong.NO_PRICE, book.getMidPriceLong());
+    }
+
+    @Test
+    void testBooksAgree() {
+        final OrderBookLong[] books = bookSource();
+        final Random r = new Random(0);
+        final long[] expectedPrices = new long[10], expectedQty = new long[10];
+        final long[] prices = new long[10], qty = new long[10];
+        for (int ix = 0; ix < 20_000; ix++) {
+            final Side side = r.nextBoolean() ? Side.BID : Side.OFFER;
+            final long price = BASE + r.nextInt(100);
+            final long quantity = r.nextInt(3) == 0 ? 0 : BIG + r.nextInt(1000);
+            for (final OrderBookLong book : books)
+                book.add(side, price, quantity);
+            books[0].getLevels(side, 10, expectedPrices, expectedQty);
+            for (int bookIx = 1; bookIx < books.length; bookIx++) {
+                books[bookIx].getLevels(side, 10, prices, qty);
+                assertArrayEquals(expectedPrices, prices, ix + " " + books[bookIx]);
+                assertArrayEquals(expectedQty, qty, ix + " " + books[bookIx]);
+                assertEquals(books[0].totalSize(side), books[bookIx].totalSize(side));
+                assertEquals(books[0].getMidPriceLong(), books[bookIx].getMidPriceLong());
+            }
+        }
+    }
+
+    @Test
+    void testDirectTicks() {
+        final OrderBookLong book = BookDirectLong.builder().symbolId(1).base(1_000_000).tick(50).depth(10)
+            .build().initialiseSlabs();
+        book.add(Side.BID, 1_000_100, 1).add(Side.OFFER, 1_000_450, 2);
+        assertEquals(1, book.get(Side.BID, 1_000_100));
+        assertEquals(1_000_275, book.getMidPriceLong());
+        assertThrows(IllegalArgumentException.class, () -> book.add(Side.BID, 1_000_101, 1));   // Off tick
+        assertThrows(IllegalArgumentException.class, () -> book.add(Side.BID, 999_950, 1));     // Below base
+        assertThrows(IllegalArgumentException.class, () -> book.add(Side.OFFER, 1_000_500, 1)); // Past depth
+        assertThrows(IllegalArgumentException.class, () -> book.get(Side.OFFER, 1_000_001));
+    }
+}
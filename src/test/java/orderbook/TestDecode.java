@@ -6,10 +6,26 @@ import lombok.ToString;
 import orderbook.impl.BookDirect;
 import orderbook.impl.DecoderDedicated;
 import orderbook.impl.DecoderGeneric;
+import orderbook.impl.DecoderScaled;
+import orderbook.impl.DecoderSchema;
+import orderbook.impl.Decoders;
+import orderbook.impl.MarketRegistry;
+import orderbook.impl.Schema;
+import orderbook.impl.DecoderTagged;
+import orderbook.impl.SplitterBytes;
+import orderbook.impl.SplitterBytesTagged;
 import orderbook.impl.SplitterIndexed;
+import orderbook.impl.SplitterTagged;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class TestDecode {
@@ -221,4 +237,174 @@ public class TestDecode {
         }
     }
 
+    @Test
+    void testDecodeBytes() {
+        // All the messages in one buffer, newline separated, as they would arrive from a feed or file
+        final byte[] raw = (String.join("\n", TEST_MSGS) + "\nt=0|i=SOL-USD|p=22.63|q=2698.75|s=a\n")
+            .getBytes(StandardCharsets.US_ASCII);
+        for (final ByteBuffer bytes : new ByteBuffer[]{
+                ByteBuffer.wrap(raw), ByteBuffer.allocateDirect(raw.length).put(raw).flip()}) {
+            final ByteSplitter splitBytes = new SplitterBytes(20);
+            final DecoderDedicated decoder = DecoderDedicated.builder().build();
+            final long[] expected = new long[5], actual = new long[5];
+            int from = 0;
+            for (int ix = 0; ix < bytes.limit(); ix++) {
+                if (bytes.get(ix) != '\n') continue;
+                final String msg = new String(raw, from, ix - from, StandardCharsets.US_ASCII);
+                assertEquals(Splitter.Result.OK, splitBytes.split(bytes, from, ix, "|="), msg);
+                assertEquals(10, splitBytes.fieldCt(), msg);
+                assertEquals(from + 2, splitBytes.begin(1), msg);
+
+                splitIndexed.split(msg, "|=");
+                decoder.decode(splitIndexed, (stamp, symbolId, side, price, qty) -> set(expected, stamp, symbolId, side, price, qty));
+                decoder.decode(splitBytes, (stamp, symbolId, side, price, qty) -> set(actual, stamp, symbolId, side, price, qty));
+                if (msg.startsWith("t=0|"))
+                    expected[0] = 0;    // Not a 10 digit stamp - the byte decoder does not read past the field
+                assertArrayEquals(expected, actual, msg);
+                from = ix + 1;
+            }
+            assertEquals(0, bytes.position());
+        }
+    }
+
+    @Test
+    void testDecodeScaled() {
+        final Market market = MarketRegistry.builder().build().init();
+        final long btc = Decoders.toLongChar8("BTC-USD", 0, 7);
+        market.register(Instrument.builder().symbolId(btc).priceScale(2).quantityScale(8).build());
+        final DecoderScaled decoder = DecoderScaled.builder().market(market).build();    // 8 places otherwise
+        final ByteSplitter splitBytes = new SplitterBytes(20);
+        final long[] fromChars = new long[5], fromBytes = new long[5];
+        for (final String msg : new String[]{
+                "t=1638848595|i=BTC-USD|p=32990.5|q=0.00012345|s=b",
+                "t=1638848595|i=PEPE-USD|p=0.00000123|q=12345678.9|s=a",
+                "t=1638848595|i=PEPE-USD|p=1.10000000000|q=0|s=a"}) {
+            splitIndexed.split(msg, "|=");
+            decoder.decode(splitIndexed, (stamp, symbolId, side, price, qty) -> set(fromChars, stamp, symbolId, side, price, qty));
+            final ByteBuffer bytes = ByteBuffer.wrap(msg.getBytes(StandardCharsets.US_ASCII));
+            splitBytes.split(bytes, 0, bytes.limit(), "|=");
+            decoder.decode(splitBytes, (stamp, symbolId, side, price, qty) -> set(fromBytes, stamp, symbolId, side, price, qty));
+            assertArrayEquals(fromChars, fromBytes, msg);
+            switch (msg.substring(msg.indexOf("p="), msg.indexOf("|s"))) {
+                case "p=32990.5|q=0.00012345":
+                    assertEquals(32990_50L, fromChars[3]);
+                    assertEquals(12345L, fromChars[4]);
+                    break;
+                case "p=0.00000123|q=12345678.9":
+                    assertEquals(123L, fromChars[3]);
+                    assertEquals(12345678_90000000L, fromChars[4]);
+                    break;
+                default:
+                    assertEquals(1_10000000L, fromChars[3]);    // Trailing zeros past the scale are not lost precision
+                    assertEquals(0, fromChars[4]);
+            }
+        }
+
+        // Digits past the scale, and values that do not fit, are rejected rather than rounded or wrapped
+        splitIndexed.split("t=1638848595|i=BTC-USD|p=32990.505|q=1|s=b", "|=");
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(splitIndexed, null));
+        splitIndexed.split("t=1638848595|i=ETH-USD|p=99999999999.5|q=1|s=b", "|=");
+        assertThrows(ArithmeticException.class, () -> decoder.decode(splitIndexed, null));
+        splitIndexed.split("t=1638848595|i=ETH-USD|p=1234567890123456789|q=1|s=b", "|=");
+        assertThrows(IllegalArgumentException.class, () -> decoder.decode(splitIndexed, null));
+        // As are more than 18 places, even of trailing zeros
+        final String zeros = "1." + "0".repeat(19), tiny = "0." + "0".repeat(40) + "1";
+        for (final String value : new String[]{zeros, tiny}) {
+            splitIndexed.split("t=1638848595|i=ETH-USD|p=" + value + "|q=1|s=b", "|=");
+            assertThrows(IllegalArgumentException.class, () -> decoder.decode(splitIndexed, null), value);
+            final ByteBuffer bytes = ByteBuffer.wrap(value.getBytes(StandardCharsets.US_ASCII));
+            assertThrows(IllegalArgumentException.class, () -> Decoders.toLongDecimal(bytes, 0, bytes.limit()), value);
+        }
+        assertEquals(0, Decoders.rescale(Decoders.toLongDecimal("0." + "0".repeat(18), 0, 20), 2));     // 18 is fine
+    }
+
+    @Test
+    void testDecodeSchema() {
+        // The generated decoder for the default layout decodes as DecoderDedicated does
+        final DecoderSchema generated = DecoderSchema.compile(Schema.DEFAULT);
+        assertSame(Schema.DEFAULT, generated.getSchema());
+        final DecoderDedicated dedicated = DecoderDedicated.builder().build();
+        final ByteSplitter splitBytes = new SplitterBytes(20);
+        final long[] expected = new long[5], actual = new long[5], fromBytes = new long[5];
+        for (final String msg : TEST_MSGS) {
+            splitIndexed.split(msg, "|=");
+            dedicated.decode(splitIndexed, (stamp, symbolId, side, price, qty) -> set(expected, stamp, symbolId, side, price, qty));
+            generated.decode(splitIndexed, (stamp, symbolId, side, price, qty) -> set(actual, stamp, symbolId, side, price, qty));
+            final ByteBuffer bytes = ByteBuffer.wrap(msg.getBytes(StandardCharsets.US_ASCII));
+            splitBytes.split(bytes, 0, bytes.limit(), "|=");
+            generated.decode(splitBytes, (stamp, symbolId, side, price, qty) -> set(fromBytes, stamp, symbolId, side, price, qty));
+            assertArrayEquals(expected, actual, msg);
+            assertArrayEquals(expected, fromBytes, msg);
+        }
+
+        // Another venue - tags in another order, one ignored, and other scales
+        final DecoderSchema venue = DecoderSchema.compile(
+            Schema.parse("s=side,x=skip,q=quantity:4,i=symbol,p=price:1,t=stamp"));
+        splitIndexed.split("s=a|x=ignored|q=1.5|i=ETH-USD|p=2000.5|t=1638848595", "|=");
+        venue.decode(splitIndexed, (stamp, symbolId, side, price, qty) -> set(actual, stamp, symbolId, side, price, qty));
+        assertArrayEquals(new long[]{1638848595L, Decoders.toLongChar8("ETH-USD", 0, 7), Side.OFFER.ordinal(), 2000_5, 1_5000}, actual);
+
+        final DecoderSchema bare = DecoderSchema.compile(Schema.parse("p=price:2,q=quantity:2,s=side"));
+        splitIndexed.split("p=1.00|q=2.50|s=b", "|=");
+        bare.decode(splitIndexed, (stamp, symbolId, side, price, qty) -> set(actual, stamp, symbolId, side, price, qty));
+        assertArrayEquals(new long[]{0, 0, Side.BID.ordinal(), 1_00, 2_50}, actual);
+
+        assertThrows(IllegalArgumentException.class, () -> Schema.parse("t=stamp,p=price,q=quantity:2,s=side"));
+        assertThrows(IllegalArgumentException.class, () -> Schema.parse("t=stamp:2,p=price:2,q=quantity:2,s=side"));
+        assertThrows(IllegalArgumentException.class, () -> Schema.parse("t=stamp,p=price:2,s=side"));
+        assertThrows(IllegalArgumentException.class, () -> Schema.parse("p=price:2,b=price:2,q=quantity:2,s=side"));
+        assertThrows(IllegalArgumentException.class, () -> Schema.parse("p=price:2,q=quantity:2,s=side,x=other"));
+        assertThrows(IllegalArgumentException.class, () -> Schema.parse("p=price:2,q=quantity:2,s=side,x\n}=skip"));
+        assertThrows(IllegalArgumentException.class, () -> Schema.parse("p=price:2,q=quantity:2,s=side,x y=skip"));
+    }
+
+    @Test
+    void testDecodeTagged() {
+        // The default layout decodes as DecoderDedicated does, whatever the order of the tags
+        final DecoderTagged tagged = DecoderTagged.builder().build().init();
+        final DecoderDedicated dedicated = DecoderDedicated.builder().build();
+        final Splitter splitTagged = new SplitterTagged(20);
+        final ByteSplitter splitBytes = new SplitterBytesTagged(20);
+        final long[] expected = new long[5], actual = new long[5], fromBytes = new long[5];
+        for (final String msg : TEST_MSGS) {
+            splitIndexed.split(msg, "|=");
+            dedicated.decode(splitIndexed, (stamp, symbolId, side, price, qty) -> set(expected, stamp, symbolId, side, price, qty));
+            final String[] fields = msg.split("\\|");
+            final String reordered = String.join("|", fields[4], fields[2], "zz=extra", fields[3], fields[1], fields[0]);
+            splitTagged.split(reordered, "|=");
+            tagged.decode(splitTagged, (stamp, symbolId, side, price, qty) -> set(actual, stamp, symbolId, side, price, qty));
+            final ByteBuffer bytes = ByteBuffer.wrap(reordered.getBytes(StandardCharsets.US_ASCII));
+            splitBytes.split(bytes, 0, bytes.limit(), "|=");
+            tagged.decode(splitBytes, (stamp, symbolId, side, price, qty) -> set(fromBytes, stamp, symbolId, side, price, qty));
+            assertArrayEquals(expected, actual, reordered);
+            assertArrayEquals(expected, fromBytes, reordered);
+        }
+        assertEquals(0, tagged.getRejected());
+
+        // Optional tags left out, other tags and scales
+        final DecoderTagged venue = DecoderTagged.builder()
+            .schema(Schema.parse("P=price:1,Q=quantity:4,S=side,I=symbol")).build().init();
+        splitTagged.split("S=a|Q=1.5|P=2000.5", "|=");
+        venue.decode(splitTagged, (stamp, symbolId, side, price, qty) -> set(actual, stamp, symbolId, side, price, qty));
+        assertArrayEquals(new long[]{0, 0, Side.OFFER.ordinal(), 2000_5, 1_5000}, actual);
+
+        // No quantity, or a quantity tag with no value, is rejected
+        splitTagged.split("S=a|P=2000.5", "|=");
+        venue.decode(splitTagged, (stamp, symbolId, side, price, qty) -> fail("Applied without a quantity"));
+        splitTagged.split("S=a|P=2000.5|Q=", "|=");
+        venue.decode(splitTagged, (stamp, symbolId, side, price, qty) -> fail("Applied without a quantity"));
+        assertEquals(2, venue.getRejected());
+
+        assertThrows(IllegalArgumentException.class, () -> tagged.decode(splitIndexed, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> DecoderTagged.builder().schema(Schema.parse("px=price:2,q=quantity:2,s=side")).build().init());
+    }
+
+    private static void set(final long[] out, final long stamp, final long symbolId, final Side side, final long price, final long qty) {
+        out[0] = stamp;
+        out[1] = symbolId;
+        out[2] = side.ordinal();
+        out[3] = price;
+        out[4] = qty;
+    }
 }
@@ -1,14 +1,30 @@
 package orderbook;
 
 import orderbook.impl.BookDirect;
+import orderbook.impl.BookDirectBitmap;
+import orderbook.impl.BookDirectOffHeap;
+import orderbook.impl.BookDirectShort;
+import orderbook.impl.BookDirectTick;
+import orderbook.impl.BookFastUtil;
 import orderbook.impl.BookUtils;
 import orderbook.impl.DecoderGeneric;
+import orderbook.impl.SlabArena;
 import orderbook.impl.SplitterIndexed;
+import orderbook.tools.OrderSet;
+import org.junit.jupiter.api.Named;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestDirect {
 
@@ -98,6 +114,101 @@ public class TestDirect {
         assertEquals(205_00, BookUtils.getSizeUpToLevel(book, Side.OFFER, 3)); // Nothing at this level
     }
 
+    private static Stream<Named<Function<SlabArena, OrderBook>>> candidateSource() {
+        return Stream.of(
+            Named.of("BookDirectBitmap", arena -> BookDirectBitmap.builder().depth(10_000).symbolId(1).build().initialiseSlabs()),
+            Named.of("BookDirectOffHeap", arena -> BookDirectOffHeap.builder().depth(10_000).symbolId(1).arena(arena)
+                .build().initialiseSlabs()),
+            Named.of("BookDirectShort", arena -> BookDirectShort.builder().depth(10_000).symbolId(1).build().initialiseSlabs()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("candidateSource")
+    void testMatchesDirect(final Function<SlabArena, OrderBook> create) {
+        // Removal heavy, so the book stays sparse, with quantities either side of the 16 bit slot limit
+        final OrderSet orders = OrderSet.builder()
+            .typeDistribution(Map.of(0, 30, 1, 50, 2, 20))
+            .priceDistribution(Map.of(10, 40, 1_00, 40, 5_00, 15, 40_00, 5))
+            .symbolDistribution(Map.of(0, 1))
+            .symbols(new String[]{"BTC-USD"})
+            .priceBase(5_000)
+            .qtyBase(60_000).qtyRange(10_000)
+            .n(20_000)
+            .build().generate();
+        try (SlabArena arena = new SlabArena(1 << 20)) {
+            final BookDirect direct = BookDirect.builder().depth(10_000).symbolId(1).build().initialiseSlabs();
+            final OrderBook candidate = create.apply(arena);
+            final int[] prices = new int[10], qty = new int[10], candidatePrices = new int[10], candidateQty = new int[10];
+            for (int ix = 0; ix < orders.n; ix++) {
+                final Side side = orders.prices[ix] > 5_000 ? Side.BID : Side.OFFER;
+                direct.add(side, orders.prices[ix], orders.quantities[ix]);
+                candidate.add(side, orders.prices[ix], orders.quantities[ix]);
+                if (ix == orders.n / 2) {
+                    direct.clear();
+                    candidate.clear();
+                }
+                for (final Side check : new Side[]{Side.BID, Side.OFFER}) {
+                    direct.getLevels(check, 10, prices, qty);
+                    candidate.getLevels(check, 10, candidatePrices, candidateQty);
+                    assertArrayEquals(prices, candidatePrices, ix + " " + check);
+                    assertArrayEquals(qty, candidateQty, ix + " " + check);
+                    assertEquals(direct.depth(check), candidate.depth(check), ix + " " + check);
+                    assertEquals(direct.totalSize(check), candidate.totalSize(check), ix + " " + check);
+                }
+                assertEquals(direct.getMidPrice(), candidate.getMidPrice(), String.valueOf(ix));
+            }
+            for (int price = 0; price < 10_000; price++) {
+                assertEquals(direct.get(Side.BID, price), candidate.get(Side.BID, price));
+                assertEquals(direct.get(Side.OFFER, price), candidate.get(Side.OFFER, price));
+            }
+        }
+    }
+
+    @Test
+    void testShortEscapes() {
+        // Quantities at and past the 16 bit slot limit are held in the overflow table
+        final BookDirectShort narrow = BookDirectShort.builder().depth(10).symbolId(1).build().initialiseSlabs();
+        narrow.add(Side.BID, 1, 65_534).add(Side.BID, 2, 65_535).add(Side.BID, 3, Integer.MAX_VALUE);
+        assertEquals(65_534, narrow.get(Side.BID, 1));
+        assertEquals(65_535, narrow.get(Side.BID, 2));
+        assertEquals(Integer.MAX_VALUE, narrow.get(Side.BID, 3));
+    }
+
+    @Test
+    void testTickMatchesFastUtil() {
+        // 0.10 ticks around 50.00, with a slab covering 45.00 to 54.90 - off grid and out of range prices overflow
+        final Random r = new Random(0);
+        final BookFastUtil reference = BookFastUtil.builder().build();
+        final BookDirectTick tick = BookDirectTick.builder().depth(100).base(45_00).tick(10).symbolId(1)
+            .build().initialiseSlabs();
+        final int[] prices = new int[10], qty = new int[10], tickPrices = new int[10], tickQty = new int[10];
+        for (int ix = 0; ix < 50_000; ix++) {
+            final int price = r.nextInt(10) == 0 ? 40_00 + r.nextInt(20_00) : 40_00 + r.nextInt(200) * 10;
+            final int quantity = r.nextInt(3) == 0 ? 0 : 1 + r.nextInt(1_000);
+            final Side side = price < 50_00 ? Side.BID : Side.OFFER;
+            reference.add(side, price, quantity);
+            tick.add(side, price, quantity);
+            if (ix == 25_000) {
+                reference.clear();
+                tick.clear();
+            }
+            for (final Side check : new Side[]{Side.BID, Side.OFFER}) {
+                reference.getLevels(check, 10, prices, qty);
+                tick.getLevels(check, 10, tickPrices, tickQty);
+                assertArrayEquals(prices, tickPrices, ix + " " + check);
+                assertArrayEquals(qty, tickQty, ix + " " + check);
+                assertEquals(reference.depth(check), tick.depth(check), ix + " " + check);
+                assertEquals(reference.totalSize(check), tick.totalSize(check), ix + " " + check);
+            }
+            assertEquals(reference.getMidPrice(), tick.getMidPrice(), ix + "");
+        }
+        for (int price = 40_00; price < 60_00; price++) {
+            assertEquals(reference.get(Side.BID, price), tick.get(Side.BID, price));
+            assertEquals(reference.get(Side.OFFER, price), tick.get(Side.OFFER, price));
+        }
+        assertTrue(tick.overflowLevels(Side.BID) > 0 && tick.overflowLevels(Side.BID) < tick.depth(Side.BID));
+    }
+
     private void processMessages(final String[] messages) {
         for (final String msg : messages)
             processMessage(msg);
@@ -0,0 +1,206 @@
+package orderbook;
+
+import orderbook.impl.BookDirect;
+import orderbook.impl.BookSnapshot;
+import orderbook.impl.MarketRegistry;
+import orderbook.impl.ShardedEngine;
+import orderbook.impl.UpdateRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestEngine {
+    static final int LEVELS = 10;
+
+    @Test
+    void testRing() {
+        final UpdateRing ring = new UpdateRing(4);
+        assertTrue(ring.isEmpty());
+        for (int ix = 0; ix < 4; ix++)
+            assertTrue(ring.offer(ix, 100 + ix, Side.BID, ix * 10, ix * 100));
+        assertFalse(ring.offer(4, 104, Side.OFFER, 40, 400));     // Full
+        final StringBuilder out = new StringBuilder();
+        final Decoder.Add add = (stamp, symbolId, side, price, qty) ->
+            out.append(stamp).append(' ').append(symbolId).append(' ').append(side).append(' ')
+                .append(price).append(' ').append(qty).append('\n');
+        assertEquals(3, ring.drain(add, 3));
+        assertTrue(ring.offer(4, 104, Side.CLEAR, 0, 0));        // Wraps
+        assertEquals(2, ring.drain(add, 10));
+        assertEquals(0, ring.drain(add, 10));
+        assertTrue(ring.isEmpty());
+        assertEquals("0 100 BID 0 0\n1 101 BID 10 100\n2 102 BID 20 200\n3 103 BID 30 300\n4 104 CLEAR 0 0\n",
+            out.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> new UpdateRing(3));
+    }
+
+    @Test
+    void testRingAcrossThreads() throws InterruptedException {
+        final UpdateRing ring = new UpdateRing(16);
+        final int n = 200_000;
+        final Thread producer = new Thread(() -> {
+            for (int ix = 0; ix < n; ix++)
+                while (!ring.offer(ix, ix, Side.OFFER, ix, ix))
+                    Thread.yield();
+        });
+        producer.start();
+        final long[] expected = {0};
+        while (expected[0] < n) {
+            final int drained = ring.drain((stamp, symbolId, side, price, qty) -> {
+                assertEquals(expected[0], stamp);
+                assertEquals(expected[0], symbolId);
+                assertEquals(expected[0], price);
+                assertEquals(expected[0]++, qty);
+            }, 7);
+            if (drained == 0) Thread.yield();
+        }
+        producer.join();
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void testSnapshotNotTorn() throws InterruptedException {
+        final int levels = 8, n = 20_000;
+        final OrderBook book = BookDirect.builder().symbolId(1).depth(100).build().initialiseSlabs();
+        final BookSnapshot snapshot = new BookSnapshot(book, levels);
+        final int[] bidPrices = new int[levels], bidQty = new int[levels];
+        final int[] offerPrices = new int[levels], offerQty = new int[levels];
+        assertEquals(0, snapshot.read(bidPrices, bidQty, offerPrices, offerQty));
+        assertEquals(OrderBook.NO_PRICE, bidPrices[0]);
+
+        // Every publication has the same quantity at every level, so a torn read would mix two
+        final Thread writer = new Thread(() -> {
+            for (int version = 1; version <= n; version++) {
+                for (int level = 0; level < levels; level++)
+                    book.add(Side.BID, 10 + level, version).add(Side.OFFER, 50 + level, version);
+                snapshot.publish();
+            }
+        });
+        writer.start();
+        long last = 0;
+        while (last < n) {
+            final long version = snapshot.read(bidPrices, bidQty, offerPrices, offerQty);
+            assertTrue(version >= last);
+            if (version > 0) {
+                assertEquals(version, bidQty[0]);
+                for (int level = 0; level < levels; level++) {
+                    assertEquals(17 - level, bidPrices[level]);
+                    assertEquals(50 + level, offerPrices[level]);
+                    assertEquals(version, bidQty[level]);
+                    assertEquals(version, offerQty[level]);
+                }
+            }
+            last = version;
+        }
+        writer.join();
+        assertEquals(n, snapshot.version());
+    }
+
+    @Test
+    void testEngineMatchesSingleThread() throws InterruptedException {
+        final int producers = 2, symbols = 32, n = 100_000;
+        final Random r = new Random(0);
+        final long[] symbolIds = new long[n];
+        final Side[] sides = new Side[n];
+        final int[] prices = new int[n], quantities = new int[n];
+        for (int ix = 0; ix < n; ix++) {
+            symbolIds[ix] = 1 + r.nextInt(symbols);
+            sides[ix] = r.nextInt(1000) == 0 ? Side.CLEAR : r.nextBoolean() ? Side.BID : Side.OFFER;
+            prices[ix] = 1000 + r.nextInt(200);
+            quantities[ix] = r.nextInt(4) == 0 ? 0 : 1 + r.nextInt(1000);
+        }
+
+        final Instrument instrument = Instrument.builder().bookType(Instrument.BookType.DIRECT).depth(2000).build();
+        final Market reference = MarketRegistry.builder().defaultInstrument(instrument).build().init();
+        for (int ix = 0; ix < n; ix++) {
+            final OrderBook book = reference.bookOrRegister(symbolIds[ix]);
+            if (sides[ix] == Side.CLEAR) book.clear();
+            else book.add(sides[ix], prices[ix], quantities[ix]);
+        }
+
+        // A small ring, so producers wait on workers
+        try (ShardedEngine engine = ShardedEngine.builder()
+            .workers(3).producers(producers).ringSize(64).defaultInstrument(instrument).snapshotLevels(LEVELS)
+            .build().start()) {
+            // Each symbol is fed by one producer
+            final Thread[] threads = new Thread[producers];
+            for (int producerIx = 0; producerIx < producers; producerIx++) {
+                final int pIx = producerIx;
+                final Decoder.Add add = engine.producer(pIx);
+                threads[pIx] = new Thread(() -> {
+                    for (int ix = 0; ix < n; ix++)
+                        if (symbolIds[ix] % producers == pIx)
+                            add.apply(ix, symbolIds[ix], sides[ix], prices[ix], quantities[ix]);
+                });
+                threads[pIx].start();
+            }
+            for (final Thread thread : threads)
+                thread.join();
+            engine.awaitIdle();
+
+            final int[] count = {0};
+            engine.forEach((i, book) -> count[0]++);
+            assertEquals(symbols, count[0]);
+            reference.forEach((i, expected) -> {
+                final OrderBook book = engine.book(i.getSymbolId());
+                assertNotNull(book);
+                for (final Side side : new Side[]{Side.BID, Side.OFFER}) {
+                    assertEquals(expected.depth(side), book.depth(side));
+                    assertEquals(expected.totalSize(side), book.totalSize(side));
+                    final int[] expectedPrices = new int[LEVELS], expectedQty = new int[LEVELS];
+                    final int[] bookPrices = new int[LEVELS], bookQty = new int[LEVELS];
+                    expected.getLevels(side, LEVELS, expectedPrices, expectedQty);
+                    book.getLevels(side, LEVELS, bookPrices, bookQty);
+                    assertArrayEquals(expectedPrices, bookPrices);
+                    assertArrayEquals(expectedQty, bookQty);
+                }
+                final int[] bidPrices = new int[LEVELS], bidQty = new int[LEVELS];
+                final int[] offerPrices = new int[LEVELS], offerQty = new int[LEVELS];
+                final int[] levelPrices = new int[LEVELS], levelQty = new int[LEVELS];
+                assertTrue(engine.snapshot(i.getSymbolId()).read(bidPrices, bidQty, offerPrices, offerQty) > 0);
+                expected.getLevels(Side.BID, LEVELS, levelPrices, levelQty);
+                assertArrayEquals(levelPrices, bidPrices);
+                assertArrayEquals(levelQty, bidQty);
+                expected.getLevels(Side.OFFER, LEVELS, levelPrices, levelQty);
+                assertArrayEquals(levelPrices, offerPrices);
+                assertArrayEquals(levelQty, offerQty);
+            });
+        }
+    }
+
+    @Test
+    void testWorkerFailure() {
+        // A price past the depth of a DIRECT book fails its worker - the producer and awaitIdle report it
+        final Instrument instrument = Instrument.builder().bookType(Instrument.BookType.DIRECT).depth(100).build();
+        try (ShardedEngine engine = ShardedEngine.builder()
+            .workers(1).ringSize(16).defaultInstrument(instrument).build().start()) {
+            final Decoder.Add add = engine.producer(0);
+            add.apply(0, 1, Side.BID, 10, 100);
+            add.apply(0, 1, Side.BID, 1_000_000, 100);
+            final IllegalStateException failed = assertThrows(IllegalStateException.class, () -> {
+                for (int ix = 0; ix < 1_000; ix++)      // Until the ring is full
+                    add.apply(0, 1, Side.BID, 10, 100);
+            });
+            assertInstanceOf(ArrayIndexOutOfBoundsException.class, failed.getCause());
+            assertSame(failed.getCause(), assertThrows(IllegalStateException.class, engine::awaitIdle).getCause());
+        }
+    }
+
+    @Test
+    void testAwaitIdleAfterClose() {
+        final ShardedEngine engine = ShardedEngine.builder().workers(2).ringSize(16).build().start();
+        engine.producer(0).apply(0, 1, Side.BID, 10, 100);
+        engine.close();
+        engine.awaitIdle();     // Returns, rather than waiting on workers that have stopped
+        assertEquals(100, engine.book(1).get(Side.BID, 10));
+    }
+}
@@ -0,0 +1,158 @@
+package orderbook;
+
+import orderbook.impl.BinaryFormat;
+import orderbook.impl.Checkpoint;
+import orderbook.impl.Journal;
+import orderbook.impl.MarketRegistry;
+import orderbook.impl.Replay;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestJournal {
+    static final Path CAPTURE = Path.of("testing/SOLUSDT-100000.zip");
+    static final int LEVELS = 50;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRecoveryMatchesFullReplay() throws IOException {
+        for (final Instrument.BookType type : new Instrument.BookType[]{
+                Instrument.BookType.ART, Instrument.BookType.DIRECT, Instrument.BookType.SLIDING}) {
+            final Instrument instrument = Instrument.builder().bookType(type).window(64).build();
+            final Path journalFile = dir.resolve(type + "-journal.bin");
+            final Checkpoint checkpoint = Checkpoint.builder().dir(dir.resolve(type + "-checkpoints")).build();
+
+            // The live market - journaled, and checkpointed part way through
+            final Market market = MarketRegistry.builder().defaultInstrument(instrument).build().init();
+            try (Journal journal = new Journal(journalFile, 1 << 16)) {
+                Replay.builder().build().replay(CAPTURE, (stamp, symbolId, side, price, qty) -> {
+                    journal.apply(stamp, symbolId, side, price, qty);
+                    apply(market, symbolId, side, price, qty);
+                    if (journal.getSequence() % 30_000 == 0) {
+                        try {
+                            checkpoint.write(market, journal.getSequence());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                });
+                assertEquals(100_000, journal.getSequence());
+            }
+            assertEquals(BinaryFormat.HEADER + 100_000L * BinaryFormat.RECORD, Files.size(journalFile));
+
+            // Restart - the latest checkpoint (90,000) and the tail of the journal
+            final Market recovered = MarketRegistry.builder().defaultInstrument(instrument).build().init();
+            assertEquals(100_000, checkpoint.recover(recovered, journalFile));
+            verify(market, recovered);
+
+            // Or the whole journal, which is a binary capture
+            final Market replayed = MarketRegistry.builder().defaultInstrument(instrument).build().init();
+            assertEquals(100_000, Replay.builder().build().replay(journalFile,
+                (stamp, symbolId, side, price, qty) -> apply(replayed, symbolId, side, price, qty)));
+            verify(market, replayed);
+        }
+    }
+
+    @Test
+    void testReopenAfterCrash() throws IOException {
+        final Path file = dir.resolve("crash-journal.bin");
+        try (Journal journal = new Journal(file, 100)) {
+            for (int ix = 0; ix < 10; ix++)
+                journal.apply(ix, 1, Side.BID, 100 + ix, 10);
+        }
+        // As left by a crash - the mapping beyond the last record is zeroed
+        Files.write(file, new byte[1000], StandardOpenOption.APPEND);
+        try (Journal journal = new Journal(file, 100)) {
+            assertEquals(10, journal.getSequence());
+            journal.apply(10, 1, Side.CLEAR, 0, 0);
+            journal.apply(11, 1, Side.OFFER, 200, 20);
+        }
+        assertEquals(BinaryFormat.HEADER + 12 * BinaryFormat.RECORD, Files.size(file));
+
+        final StringBuilder out = new StringBuilder();
+        assertEquals(3, Journal.replay(file, 9, (stamp, symbolId, side, price, qty) ->
+            out.append(stamp).append(' ').append(side).append(' ').append(price).append(' ').append(qty).append('\n')));
+        assertEquals("9 BID 109 10\n10 CLEAR 0 0\n11 OFFER 200 20\n", out.toString());
+    }
+
+    @Test
+    void testCheckpointsKept() throws IOException {
+        final Checkpoint checkpoint = Checkpoint.builder().dir(dir).keep(2).build();
+        final Market empty = MarketRegistry.builder().build().init();
+        assertEquals(0, checkpoint.load(empty));
+
+        final Market market = MarketRegistry.builder().build().init();
+        final OrderBook book = market.register(Instrument.builder().symbolId(42).bookType(Instrument.BookType.DIRECT)
+            .depth(1000).tickSize(5).build());
+        for (long sequence = 1; sequence <= 3; sequence++) {
+            book.add(Side.BID, 100 + (int)sequence, 10).add(Side.OFFER, 200 - (int)sequence, 20);
+            checkpoint.write(market, sequence);
+        }
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+        final Market loaded = MarketRegistry.builder().build().init();
+        assertEquals(3, checkpoint.load(loaded));
+        assertNotNull(loaded.book(42));
+        assertEquals(Instrument.BookType.DIRECT, loaded.instrument(42).getBookType());
+        assertEquals(5, loaded.instrument(42).getTickSize());
+        verify(market, loaded);
+    }
+
+    @Test
+    void testCheckpointVersion() throws IOException {
+        final Checkpoint checkpoint = Checkpoint.builder().dir(dir).build();
+        final Market market = MarketRegistry.builder().build().init();
+        market.register(Instrument.builder().symbolId(42).build()).add(Side.BID, 100, 10);
+        final Path file = checkpoint.write(market, 1);
+
+        // Another version of the layout is rejected rather than misread
+        final ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putInt(4, Checkpoint.VERSION + 1);
+        Files.write(file, bytes.array());
+        assertThrows(IOException.class, () -> checkpoint.load(MarketRegistry.builder().build().init()));
+
+        // As is a file that is not a checkpoint
+        bytes.putInt(0, 0).putInt(4, Checkpoint.VERSION);
+        Files.write(file, bytes.array());
+        assertThrows(IOException.class, () -> checkpoint.load(MarketRegistry.builder().build().init()));
+    }
+
+    private static void apply(final Market market, final long symbolId, final Side side, final int price, final int qty) {
+        final OrderBook book = market.bookOrRegister(symbolId);
+        if (side == Side.CLEAR) book.clear();
+        else book.add(side, price, qty);
+    }
+
+    private static void verify(final Market expected, final Market actual) {
+        assertEquals(expected.size(), actual.size());
+        expected.forEach((instrument, reference) -> {
+            final OrderBook book = actual.book(instrument.getSymbolId());
+            assertNotNull(book);
+            for (final Side side : new Side[]{Side.BID, Side.OFFER}) {
+                assertEquals(reference.depth(side), book.depth(side), side.name());
+                assertEquals(reference.totalSize(side), book.totalSize(side), side.name());
+                final int[] refPrices = new int[LEVELS], refQty = new int[LEVELS];
+                final int[] prices = new int[LEVELS], qty = new int[LEVELS];
+                reference.getLevels(side, LEVELS, refPrices, refQty);
+                book.getLevels(side, LEVELS, prices, qty);
+                assertArrayEquals(refPrices, prices, side.name());
+                assertArrayEquals(refQty, qty, side.name());
+            }
+        });
+    }
+}
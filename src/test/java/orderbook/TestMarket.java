@@ -0,0 +1,191 @@
+package orderbook;
+
+import orderbook.impl.BookArt;
+import orderbook.impl.BookDirect;
+import orderbook.impl.BookDirectBitmap;
+import orderbook.impl.BookDirectOffHeap;
+import orderbook.impl.BookDirectShort;
+import orderbook.impl.BookDirectTick;
+import orderbook.impl.BookDirectSliding;
+import orderbook.impl.BookFastUtil;
+import orderbook.impl.DecoderInterned;
+import orderbook.impl.Decoders;
+import orderbook.impl.MarketRegistry;
+import orderbook.impl.SlabArena;
+import orderbook.impl.SplitterBytes;
+import orderbook.impl.SplitterIndexed;
+import orderbook.impl.SymbolDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestMarket {
+
+    @Test
+    void testRegister() {
+        final Market market = MarketRegistry.builder().build().init();
+        final long btc = Decoders.toLongChar8("BTC-USD", 0, 7);
+        final Instrument instrument = Instrument.builder()
+            .symbolId(btc).symbol("BTC-USD")
+            .tickSize(5).priceScale(2)
+            .bookType(Instrument.BookType.DIRECT).depth(1_000)
+            .build();
+        final OrderBook book = market.register(instrument);
+        assertInstanceOf(BookDirect.class, book);
+        assertSame(book, market.book(btc));
+        assertSame(book, market.bookOrRegister(btc));
+        assertSame(instrument, market.instrument(btc));
+        assertEquals(5, market.instrument(btc).getTickSize());
+        assertEquals(1, market.size());
+
+        assertNull(market.book(btc + 1));
+        assertNull(market.instrument(btc + 1));
+        assertNull(market.book(0));
+        assertThrows(IllegalArgumentException.class, () -> market.register(instrument));
+        assertThrows(IllegalArgumentException.class, () -> market.register(Instrument.builder().build()));
+    }
+
+    @Test
+    void testBookTypes() {
+        final Market market = MarketRegistry.builder().build().init();
+        long symbolId = 1;
+        for (final Instrument.BookType type : Instrument.BookType.values()) {
+            final OrderBook book = market.register(Instrument.builder()
+                .symbolId(symbolId++).bookType(type).depth(100).window(16).build());
+            book.add(Side.BID, 10, 100).add(Side.OFFER, 20, 200);
+            assertEquals(15, book.getMidPrice(), type.name());
+        }
+        assertInstanceOf(BookArt.class, market.book(1));
+        assertInstanceOf(BookFastUtil.class, market.book(2));
+        assertInstanceOf(BookDirect.class, market.book(3));
+        assertInstanceOf(BookDirectBitmap.class, market.book(4));
+        assertInstanceOf(BookDirectSliding.class, market.book(5));
+        assertInstanceOf(BookDirectOffHeap.class, market.book(6));
+        assertInstanceOf(BookDirectShort.class, market.book(7));
+        assertInstanceOf(BookDirectTick.class, market.book(8));
+    }
+
+    @Test
+    void testArena() {
+        // Two books of two 4,000 byte slabs, in 10,000 byte chunks - a chunk per book
+        try (SlabArena arena = new SlabArena(20_000, 10_000)) {
+            final Market market = MarketRegistry.builder()
+                .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.DIRECT_OFFHEAP).depth(1_000).build())
+                .arena(arena)
+                .build().init();
+            market.bookOrRegister(1).add(Side.BID, 999, 10);
+            market.bookOrRegister(2).add(Side.OFFER, 0, 20);
+            assertEquals(4 * 4_032, arena.getAllocated());
+            assertEquals(10, market.book(1).get(Side.BID, 999));
+            assertEquals(20, market.book(2).get(Side.OFFER, 0));
+            assertEquals(OrderBook.NO_VALUE, market.book(2).get(Side.BID, 999));
+            assertThrows(IllegalStateException.class, () -> market.bookOrRegister(3));
+        }
+    }
+
+    @Test
+    void testManySymbols() {
+        // The default instrument decides the book for symbols first seen in the feed
+        final Market market = MarketRegistry.builder()
+            .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.FASTUTIL).build())
+            .capacity(4)
+            .build().init();
+        final int n = 5_000;
+        for (int ix = 1; ix <= n; ix++)
+            market.bookOrRegister(ix * 7919L).add(Side.BID, ix, ix);
+        assertEquals(n, market.size());
+        for (int ix = 1; ix <= n; ix++) {
+            assertEquals(ix, market.book(ix * 7919L).get(Side.BID, ix));
+            assertEquals(ix * 7919L, market.instrument(ix * 7919L).getSymbolId());
+            assertEquals(Instrument.BookType.FASTUTIL, market.instrument(ix * 7919L).getBookType());
+        }
+        final Set<Long> seen = new HashSet<>();
+        market.forEach((instrument, book) -> {
+            assertSame(book, market.book(instrument.getSymbolId()));
+            seen.add(instrument.getSymbolId());
+        });
+        assertEquals(n, seen.size());
+
+        final long sol = Decoders.toLongChar8("SOL-USD", 0, 7);
+        market.bookOrRegister(sol);
+        assertEquals("SOL-USD", market.instrument(sol).getSymbol());
+    }
+
+    @Test
+    void testSymbolDictionary() {
+        // Preloaded symbols take the first ids, long symbols are told apart where packing into a long is not
+        final SymbolDictionary dictionary = SymbolDictionary.builder()
+            .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.FASTUTIL).build())
+            .capacity(2)
+            .build().init();
+        assertEquals(0, dictionary.register(Instrument.builder().symbol("1000SHIBUSDT").bookType(Instrument.BookType.FASTUTIL).build()));
+        assertEquals(1, dictionary.register(Instrument.builder().symbol("2000SHIBUSDT").build()));
+        assertEquals(Decoders.toLongChar8("1000SHIBUSDT", 0, 12), Decoders.toLongChar8("2000SHIBUSDT", 0, 12));
+        assertInstanceOf(BookArt.class, dictionary.book(1));
+        assertInstanceOf(BookFastUtil.class, dictionary.book(0));
+        assertEquals(1, dictionary.id("2000SHIBUSDT"));
+        assertEquals(SymbolDictionary.ABSENT, dictionary.id("1000SHIBUSD"));
+        assertEquals(SymbolDictionary.ABSENT, dictionary.id("1000SHIBUSDX"));
+        assertEquals(SymbolDictionary.ABSENT, dictionary.id("1000SHIB"));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.register(Instrument.builder().symbol("1000SHIBUSDT").build()));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.register(Instrument.builder().build()));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.register(Instrument.builder().symbol("\u00e9").build()));
+
+        // Bytes and chars find the same id, growing through several resizes
+        final int n = 1_000;
+        for (int ix = 0; ix < n; ix++) {
+            final String symbol = "SYM" + ix + "-USDT";
+            final ByteBuffer bytes = ByteBuffer.wrap(("x|" + symbol + "|y").getBytes(StandardCharsets.US_ASCII));
+            assertEquals(ix + 2, dictionary.idOrRegister(bytes, 2, 2 + symbol.length()));
+            assertEquals(ix + 2, dictionary.id(symbol));
+            assertEquals(symbol, dictionary.symbol(ix + 2));
+        }
+        assertEquals(n + 2, dictionary.size());
+        for (int ix = 0; ix < n; ix++)
+            assertEquals(ix + 2, dictionary.idOrRegister("SYM" + ix + "-USDT", 0, ("SYM" + ix + "-USDT").length()));
+        assertEquals(n + 2, dictionary.size());
+        dictionary.forEach((instrument, book) -> assertSame(book, dictionary.book(dictionary.id(instrument.getSymbol()))));
+
+        // The interned decoder hands on the dense id as the symbolId
+        final DecoderInterned decoder = DecoderInterned.builder().dictionary(dictionary).build().init();
+        final String msg = "t=1638848595|i=1000SHIBUSDT|p=0.01|q=100.00|s=b";
+        final Splitter split = new SplitterIndexed(20);
+        split.split(msg, "|=");
+        decoder.decode(split, (stamp, symbolId, side, price, qty) -> dictionary.book((int)symbolId).add(side, price, qty));
+        final ByteSplitter splitBytes = new SplitterBytes(20);
+        splitBytes.split(ByteBuffer.wrap(msg.replace("1000", "2000").getBytes(StandardCharsets.US_ASCII)), 0, msg.length(), "|=");
+        decoder.decode(splitBytes, (stamp, symbolId, side, price, qty) -> dictionary.book((int)symbolId).add(side, price, 2 * qty));
+        assertEquals(100_00, dictionary.book(0).get(Side.BID, 1));
+        assertEquals(200_00, dictionary.book(1).get(Side.BID, 1));
+        splitBytes.split(ByteBuffer.wrap(msg.replace("1000", "3000").getBytes(StandardCharsets.US_ASCII)), 0, msg.length(), "|=");
+        decoder.decode(splitBytes, (stamp, symbolId, side, price, qty) -> assertEquals(n + 2, symbolId));
+        assertEquals("3000SHIBUSDT", dictionary.symbol(n + 2));
+
+        // DIRECT books need a symbolId - given the packed head when the instrument has none
+        final SymbolDictionary direct = SymbolDictionary.builder()
+            .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.DIRECT).depth(1_000).build())
+            .build().init();
+        final ByteBuffer sol = ByteBuffer.wrap("SOL-USD".getBytes(StandardCharsets.US_ASCII));
+        direct.bookOrRegister(sol, 0, 7).add(Side.BID, 100, 10);
+        assertInstanceOf(BookDirect.class, direct.book(0));
+        assertEquals(Decoders.toLongChar8("SOL-USD", 0, 7), direct.instrument(0).getSymbolId());
+        assertEquals(1, direct.register(Instrument.builder().symbol("1000SHIBUSDT").bookType(Instrument.BookType.DIRECT_TICK).build()));
+        assertInstanceOf(BookDirectTick.class, direct.book(1));
+        assertEquals(2, direct.register(Instrument.builder().symbol("ETH-USD").symbolId(7).bookType(Instrument.BookType.DIRECT).build()));
+        assertEquals(7, direct.instrument(2).getSymbolId());
+        // A book that cannot be built leaves the dictionary as it was
+        assertThrows(RuntimeException.class,
+            () -> direct.register(Instrument.builder().symbol("BAD").bookType(Instrument.BookType.DIRECT).depth(-1).build()));
+        assertEquals(3, direct.size());
+        assertEquals(SymbolDictionary.ABSENT, direct.id("BAD"));
+    }
+}
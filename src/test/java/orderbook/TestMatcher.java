@@ -0,0 +1,61 @@
+package orderbook;
+
+import orderbook.impl.BookArt;
+import orderbook.impl.BookDirect;
+import orderbook.impl.BookDirectSliding;
+import orderbook.impl.BookFastUtil;
+import orderbook.impl.Matcher;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestMatcher {
+
+    private static OrderBook[] bookSource() {
+        return new OrderBook[] {
+            BookArt.builder().build().init(),
+            BookDirect.builder().depth(200).symbolId(1).build().initialiseSlabs(),
+            BookFastUtil.builder().build(),
+            BookDirectSliding.builder().window(8).build().initialiseSlabs(),
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("bookSource")
+    void testSweep(final OrderBook book) {
+        final Matcher matcher = Matcher.builder().build().init();
+        book.add(Side.OFFER, 101, 10).add(Side.OFFER, 102, 20).add(Side.OFFER, 103, 30)
+            .add(Side.BID, 99, 10).add(Side.BID, 98, 20);
+
+        // Limit buy - takes 101 and part of 102, stopping short of 103
+        assertEquals(25, matcher.match(book, Side.BID, 102, 25));
+        assertEquals(2, matcher.getFills());
+        assertEquals(101, matcher.fillPrice(0));
+        assertEquals(10, matcher.fillQuantity(0));
+        assertEquals(102, matcher.fillPrice(1));
+        assertEquals(15, matcher.fillQuantity(1));
+        assertEquals(101 * 10 + 102 * 15, matcher.fillNotional());
+        assertEquals(OrderBook.NO_VALUE, book.get(Side.OFFER, 101));
+        assertEquals(5, book.get(Side.OFFER, 102));
+        assertEquals(2, book.depth(Side.OFFER));
+
+        // Limit does not cross
+        assertEquals(0, matcher.match(book, Side.BID, 101, 100));
+        assertEquals(0, matcher.getFills());
+        assertEquals(0, matcher.match(book, Side.OFFER, 100, 100));
+
+        // Market sell larger than the side - the rest is left to the caller
+        assertEquals(30, matcher.match(book, Side.OFFER, 0, 100));
+        assertEquals(2, matcher.getFills());
+        assertEquals(0, book.depth(Side.BID));
+        assertEquals(0, book.totalSize(Side.BID));
+
+        // At most maxFills levels a match
+        final Matcher narrow = Matcher.builder().maxFills(1).build().init();
+        assertEquals(5, narrow.match(book, Side.BID, Integer.MAX_VALUE, 100));
+        assertEquals(30, narrow.match(book, Side.BID, Integer.MAX_VALUE, 100));
+        assertEquals(0, book.depth(Side.OFFER));
+        assertEquals(0, narrow.match(book, Side.BID, Integer.MAX_VALUE, 100));
+    }
+}
@@ -0,0 +1,263 @@
+package orderbook;
+
+import orderbook.impl.BinaryFormat;
+import orderbook.impl.BookFastUtil;
+import orderbook.impl.Conflater;
+import orderbook.impl.DecoderDedicated;
+import orderbook.impl.Decoders;
+import orderbook.impl.EncoderBinary;
+import orderbook.impl.MarketRegistry;
+import orderbook.impl.ParserFused;
+import orderbook.impl.Replay;
+import orderbook.impl.SplitterIndexed;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestReplay {
+    static final Path CAPTURE = Path.of("testing/SOLUSDT-1000.zip");
+    static final int LEVELS = 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testZipMatchesStrings() throws IOException {
+        final OrderBook reference = replayStrings(CAPTURE);
+        final OrderBook book = BookFastUtil.builder().build();
+        // A small buffer, so lines straddle reads
+        final Replay replay = Replay.builder().readChunk(100).build();
+        assertEquals(1000, replay.replay(CAPTURE, (stamp, symbolId, side, price, qty) -> book.add(side, price, qty)));
+        assertEquals(0, replay.getRejected());
+        verify(reference, book);
+    }
+
+    @Test
+    void testMappedMatchesStrings() throws IOException {
+        final Path file = dir.resolve("capture.txt");
+        try (ZipFile zip = new ZipFile(CAPTURE.toFile())) {
+            Files.write(file, zip.getInputStream(zip.entries().nextElement()).readAllBytes());
+        }
+        final OrderBook reference = replayStrings(CAPTURE);
+        final OrderBook book = BookFastUtil.builder().build();
+        // A small window, so lines straddle mappings
+        final Replay replay = Replay.builder().mapChunk(100).build();
+        assertEquals(1000, replay.replay(file, (stamp, symbolId, side, price, qty) -> book.add(side, price, qty)));
+        verify(reference, book);
+    }
+
+    @Test
+    void testLineEndings() throws IOException {
+        final Path file = dir.resolve("endings.txt");
+        Files.writeString(file, "t=1638848595|i=BTC-USD|p=32.99|q=123.00|s=b\r\n"
+            + "\n"
+            + "t=1638848595|i=BTC-USD|p=32.98|q=102.00|s=b\n"
+            + "t=1638848595|i=BTC-USD|p=33.11|q=321.00|s=a");   // No final newline
+        final OrderBook book = BookFastUtil.builder().build();
+        final Replay replay = Replay.builder().build();
+        assertEquals(3, replay.replay(file, (stamp, symbolId, side, price, qty) -> book.add(side, price, qty)));
+        assertEquals(2, book.depth(Side.BID));
+        assertEquals(123_00, book.get(Side.BID, 32_99));
+        assertEquals(321_00, book.get(Side.OFFER, 33_11));
+
+        assertThrows(IOException.class, () -> Replay.builder().mapChunk(16).build().replay(file, null));
+    }
+
+    @Test
+    void testBinaryMatchesStrings() throws IOException {
+        final Path binary = dir.resolve("capture.bin");
+        assertEquals(1000, EncoderBinary.convert(CAPTURE, binary));
+        assertEquals(BinaryFormat.HEADER + 1000 * BinaryFormat.RECORD, Files.size(binary));
+
+        final OrderBook reference = replayStrings(CAPTURE);
+        final OrderBook book = BookFastUtil.builder().build();
+        // A window that is not a whole number of records
+        final Replay replay = Replay.builder().mapChunk(100 + 7).build();
+        assertEquals(1000, replay.replay(binary, (stamp, symbolId, side, price, qty) -> book.add(side, price, qty)));
+        verify(reference, book);
+
+        final Path text = dir.resolve("not.bin");
+        Files.writeString(text, "t=1638848595|i=BTC-USD|p=32.99|q=123.00|s=b\n");
+        assertThrows(IllegalArgumentException.class, () -> replay.replay(text, null));
+    }
+
+    @Test
+    void testBinaryRecord() {
+        final ByteBuffer buffer = ByteBuffer.allocate(3 * BinaryFormat.RECORD).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.encode(buffer, 0, 1638848595L, 18669995963011908L, Side.BID, 32_99, 123_00);
+        BinaryFormat.encode(buffer, BinaryFormat.RECORD, Long.MAX_VALUE, -1L, Side.OFFER, Integer.MAX_VALUE, 0);
+        BinaryFormat.encode(buffer, 2 * BinaryFormat.RECORD, 0, 0, Side.CLEAR, 0, 0);
+        final StringBuilder out = new StringBuilder();
+        assertEquals(3, BinaryFormat.decodeAll(buffer, (stamp, symbolId, side, price, qty) ->
+            out.append(stamp).append(' ').append(symbolId).append(' ').append(side).append(' ')
+                .append(price).append(' ').append(qty).append('\n')));
+        assertEquals("1638848595 18669995963011908 BID 3299 12300\n"
+            + Long.MAX_VALUE + " -1 OFFER " + Integer.MAX_VALUE + " 0\n"
+            + "0 0 CLEAR 0 0\n", out.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> BinaryFormat.decodeAll(ByteBuffer.allocate(25), null));
+    }
+
+    @Test
+    void testFusedMatchesLayered() throws IOException {
+        final byte[] raw;
+        try (ZipFile zip = new ZipFile(CAPTURE.toFile())) {
+            raw = zip.getInputStream(zip.entries().nextElement()).readAllBytes();
+        }
+        final OrderBook reference = replayStrings(CAPTURE);
+        final OrderBook book = BookFastUtil.builder().build();
+        final ParserFused parser = ParserFused.builder().build();
+        assertEquals(1000, parser.apply(ByteBuffer.wrap(raw), 0, raw.length, book));
+        assertEquals(0, parser.getRejected());
+        verify(reference, book);
+
+        // Routed by symbol
+        final Market market = MarketRegistry.builder()
+            .defaultInstrument(Instrument.builder().bookType(Instrument.BookType.FASTUTIL).build())
+            .build().init();
+        assertEquals(1000, parser.apply(ByteBuffer.wrap(raw), 0, raw.length, market));
+        assertEquals(1, market.size());
+        verify(reference, market.book(parser.getSymbolId()));
+    }
+
+    @Test
+    void testFusedLines() {
+        final byte[] raw = ("t=1638848595|i=BTC-USD|p=32.99|q=123.00|s=b\r\n"
+            + "\n"
+            + "t=1638848595|i=BTC-USD|p=32.9|q=102|s=b\n"                 // Fewer decimals
+            + "t=1638848595|i=BTC-USD|p=32.987|q=1.00|s=b\n"              // Too many decimals
+            + "t=1638848595|i=BTC-USD|q=1.00|p=32.97|s=b\n"               // Out of order
+            + "t=1638848595|i=BTC-USD-PERP|p=32.97|q=1.00|s=b\n"          // Symbol too long
+            + "t=1638848595|i=BTC-USD|p=32.96|q=1.00|s=x\n"               // Unknown side
+            + "t=1638848595|i=BTC-USD|p=33.11|q=321.00|s=a").getBytes(StandardCharsets.US_ASCII); // No final newline
+        final OrderBook book = BookFastUtil.builder().build();
+        final ParserFused parser = ParserFused.builder().build();
+        assertEquals(3, parser.apply(ByteBuffer.wrap(raw), 0, raw.length, book));
+        assertEquals(4, parser.getRejected());
+        assertEquals(2, book.depth(Side.BID));
+        assertEquals(123_00, book.get(Side.BID, 32_99));
+        assertEquals(102_00, book.get(Side.BID, 32_90));
+        assertEquals(321_00, book.get(Side.OFFER, 33_11));
+        assertEquals(1638848595L, parser.getStamp());
+        assertEquals(Decoders.toLongChar8("BTC-USD", 0, 7), parser.getSymbolId());
+    }
+
+    @Test
+    void testConflatedMatches() throws IOException {
+        final OrderBook reference = replayStrings(CAPTURE);
+        for (final int maxLevels : new int[]{1, 16, 1024}) {
+            final OrderBook book = BookFastUtil.builder().build();
+            final Conflater conflater = Conflater.builder()
+                .downstream((stamp, symbolId, side, price, qty) -> book.add(side, price, qty))
+                .maxLevels(maxLevels)
+                .build().init();
+            Replay.builder().build().replay(CAPTURE, conflater);
+            conflater.flush();
+            assertEquals(1000, conflater.getUpdates());
+            assertEquals(0, conflater.pending());
+            if (maxLevels == 1)
+                assertEquals(1000, conflater.getWrites());
+            else
+                assertTrue(conflater.getWrites() < 1000, "writes " + conflater.getWrites());
+            verify(reference, book);
+        }
+    }
+
+    @Test
+    void testConflater() {
+        final long[] now = {0}, lastStamp = {0};
+        final List<String> writes = new ArrayList<>();
+        final Conflater conflater = Conflater.builder()
+            .downstream((stamp, symbolId, side, price, qty) -> {
+                writes.add(symbolId + " " + side + " " + price + " " + qty);
+                assertTrue(stamp >= lastStamp[0], "stamp went back to " + stamp);    // Stamps stay in order
+                lastStamp[0] = stamp;
+            })
+            .maxLevels(4)
+            .maxDelayNanos(1_000)
+            .clock(() -> now[0])
+            .build().init();
+        conflater.apply(1, 1, Side.BID, 100, 10);
+        conflater.apply(2, 1, Side.BID, 100, 20);
+        conflater.apply(3, 2, Side.BID, 100, 30);       // Another symbol, same price
+        conflater.apply(4, 1, Side.OFFER, 100, 40);     // Another side, same price
+        conflater.apply(5, 1, Side.BID, 100, 0);
+        assertEquals(3, conflater.pending());
+        assertTrue(writes.isEmpty());
+
+        // A clear flushes what is pending first, in the order last updated
+        conflater.apply(6, 1, Side.CLEAR, 0, 0);
+        assertEquals(List.of("2 BID 100 30", "1 OFFER 100 40", "1 BID 100 0", "1 CLEAR 0 0"), writes);
+
+        // Flushed on reaching maxLevels
+        writes.clear();
+        for (int price = 1; price <= 4; price++)
+            conflater.apply(7, 1, Side.OFFER, price, price);
+        assertEquals(4, writes.size());
+        assertEquals(0, conflater.pending());
+
+        // And on age, by the next update or a poll
+        writes.clear();
+        conflater.apply(8, 1, Side.BID, 99, 1);
+        now[0] = 999;
+        assertFalse(conflater.poll());
+        conflater.apply(8, 1, Side.BID, 98, 1);
+        now[0] = 1_000;
+        assertTrue(conflater.poll());
+        assertEquals(2, writes.size());
+        assertFalse(conflater.poll());
+        conflater.apply(9, 1, Side.BID, 97, 1);
+        now[0] = 2_500;
+        conflater.apply(9, 1, Side.BID, 96, 1);
+        assertEquals(4, writes.size());
+        assertEquals(14, conflater.getUpdates());
+        assertEquals(12, conflater.getWrites());
+        assertEquals(4, conflater.getFlushes());
+    }
+
+    private static OrderBook replayStrings(final Path capture) throws IOException {
+        final OrderBook book = BookFastUtil.builder().build();
+        final Splitter splitter = new SplitterIndexed(20);
+        final Decoder decoder = DecoderDedicated.builder().build();
+        try (ZipFile zip = new ZipFile(capture.toFile());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                 zip.getInputStream(zip.entries().nextElement()), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                splitter.split(line, "|=");
+                decoder.decode(splitter, (stamp, symbolId, side, price, qty) -> book.add(side, price, qty));
+            }
+        }
+        return book;
+    }
+
+    private static void verify(final OrderBook reference, final OrderBook book) {
+        for (final Side side : new Side[]{Side.BID, Side.OFFER}) {
+            assertEquals(reference.depth(side), book.depth(side), side.name());
+            assertEquals(reference.totalSize(side), book.totalSize(side), side.name());
+            final int[] refPrices = new int[LEVELS], refQty = new int[LEVELS];
+            final int[] prices = new int[LEVELS], qty = new int[LEVELS];
+            reference.getLevels(side, LEVELS, refPrices, refQty);
+            book.getLevels(side, LEVELS, prices, qty);
+            assertArrayEquals(refPrices, prices, side.name());
+            assertArrayEquals(refQty, qty, side.name());
+        }
+    }
+}
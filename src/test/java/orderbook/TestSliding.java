@@ -0,0 +1,74 @@
+package orderbook;
+
+import orderbook.impl.BookDirectSliding;
+import orderbook.impl.BookFastUtil;
+import orderbook.tools.OrderSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestSliding {
+    static final int LEVELS = 20;
+
+    final OrderSet orders = OrderSet.builder()
+        .typeDistribution(Map.of(
+            0, 40,  // 40 / Add
+            1, 30,  // 30 / Remove
+            2, 20)) // 20 / Change
+        .priceDistribution(Map.of(
+            10, 40,     // 40% / 10
+            1_00, 40,   // 40% / 100
+            5_00, 15,   // 15% / 500
+            40_00, 5))  //  5% / 4000
+        .symbolDistribution(Map.of(0, 1))
+        .symbols(new String[]{"BTC-USD"})
+        .priceBase(5_000).priceRange(4_000)
+        .qtyBase(10_00).qtyRange(1_00)
+        .n(20_000)
+        .build().generate();
+
+    @Test
+    void testMatchesReference() {
+        final OrderBook reference = BookFastUtil.builder().build();
+        final OrderBook sliding = BookDirectSliding.builder().window(64).build().initialiseSlabs();
+
+        for (int ix = 0; ix < orders.n; ix++) {
+            // Bids and offers overlap, so the window slides in both directions as the book crosses
+            final Side side = (ix & 1) == 0 ? Side.BID : Side.OFFER;
+            reference.add(side, orders.prices[ix], orders.quantities[ix]);
+            sliding.add(side, orders.prices[ix], orders.quantities[ix]);
+            if ((ix & 63) == 0)
+                verify(reference, sliding, String.valueOf(ix));
+        }
+        verify(reference, sliding, "final");
+        assertTrue(sliding.depth(Side.BID) > 64, "book should be deeper than the window");
+
+        sliding.clear();
+        assertEquals(0, sliding.depth(Side.BID));
+        assertEquals(0, sliding.depth(Side.OFFER));
+        assertEquals(OrderBook.NO_PRICE, sliding.getMidPrice());
+    }
+
+    private static void verify(final OrderBook reference, final OrderBook sliding, final String id) {
+        for (final Side side : new Side[]{Side.BID, Side.OFFER}) {
+            assertEquals(reference.depth(side), sliding.depth(side), id + " " + side);
+            assertEquals(reference.totalSize(side), sliding.totalSize(side), id + " " + side);
+
+            final int[] refPrices = new int[LEVELS], refQty = new int[LEVELS];
+            final int[] prices = new int[LEVELS], qty = new int[LEVELS];
+            reference.getLevels(side, LEVELS, refPrices, refQty);
+            sliding.getLevels(side, LEVELS, prices, qty);
+            assertArrayEquals(refPrices, prices, id + " " + side);
+            assertArrayEquals(refQty, qty, id + " " + side);
+
+            for (int level = 0; level < LEVELS && refPrices[level] != OrderBook.NO_PRICE; level++)
+                assertEquals(refQty[level], sliding.get(side, refPrices[level]), id + " " + side);
+        }
+        if (reference.depth(Side.BID) > 0 && reference.depth(Side.OFFER) > 0)
+            assertEquals(reference.getMidPrice(), sliding.getMidPrice(), id);
+    }
+}
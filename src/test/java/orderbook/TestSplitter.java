@@ -1,10 +1,17 @@
 package orderbook;
 
+import orderbook.impl.SplitterBytesTagged;
 import orderbook.impl.SplitterIndexed;
 import orderbook.impl.SplitterStringSplit;
+import orderbook.impl.SplitterTagged;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class TestSplitter {
 
     public static final String TEST_MSGS[] = {
@@ -46,6 +53,33 @@ public class TestSplitter {
         }
     }
 
+    @Test
+    void testTagged() {
+        final SplitterTagged tagged = new SplitterTagged(20);
+        final SplitterBytesTagged taggedBytes = new SplitterBytesTagged(20);
+        for (final String msg : new String[]{
+                "t=1638848595|i=BTC-USD|p=32.99|q=100.00|s=b",
+                "s=b|q=100.00|xy=extra|p=32.99|i=BTC-USD|t=1638848595"}) {
+            tagged.split(msg, "|=");
+            taggedBytes.split(ByteBuffer.wrap(msg.getBytes(StandardCharsets.US_ASCII)), 0, msg.length(), "|=");
+            for (final TagIndex tags : new TagIndex[]{tagged, taggedBytes}) {
+                assertEquals(tagged.field('p'), tags.field('p'), msg);
+                assertEquals(tagged.field('q'), tags.field('q'), msg);
+                assertEquals(TagIndex.ABSENT, tags.field('x'), msg);     // Only single character tags
+                assertEquals(TagIndex.ABSENT, tags.field('\u00e9'), msg);
+            }
+            assertEquals("32.99", tagged.sequence(tagged.field('p')).toString(), msg);
+            assertEquals("100.00", tagged.sequence(tagged.field('q')).toString(), msg);
+            assertEquals("BTC-USD", tagged.sequence(tagged.field('i')).toString(), msg);
+        }
+
+        // Tags of the last message are forgotten by the next
+        tagged.split("p=1.00|s=a", "|=");
+        assertEquals(1, tagged.field('p'));
+        assertEquals(3, tagged.field('s'));
+        assertEquals(TagIndex.ABSENT, tagged.field('q'));
+        assertEquals(TagIndex.ABSENT, tagged.field('t'));
+    }
 
     private static void testSplitter(final Splitter splitter, final int n,
         final String testMessage, final String delim) {